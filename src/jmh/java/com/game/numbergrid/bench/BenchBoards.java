@@ -0,0 +1,51 @@
+package com.game.numbergrid.bench;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+
+import java.util.Random;
+
+// Reproducible boards for benchmarks: the same seed always gives the same board
+public final class BenchBoards {
+
+    public static final long SEED = 42L;
+
+    public enum Kind {
+        FULL,   // every cell live, random 1-9
+        SPARSE, // about 5% of cells live
+        DEAD    // every cell live but all 1s: no combo of up to 9 blocks reaches 10
+    }
+
+    private BenchBoards() {
+    }
+
+    public static GameState game(Kind kind, int rows, int cols) {
+        GameState game = new GameState(rows, cols);
+        game.setGameId("bench-" + kind);
+        Board board = game.getBoard();
+        Random random = new Random(SEED);
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            switch (kind) {
+                case FULL:
+                    board.setValue(cell, random.nextInt(9) + 1);
+                    break;
+                case SPARSE:
+                    board.setValue(cell, random.nextInt(20) == 0 ? random.nextInt(9) + 1 : 0);
+                    break;
+                case DEAD:
+                    board.setValue(cell, 1);
+                    break;
+            }
+        }
+        // Rebuild the derived state (hint index) for the new values
+        game.setBoard(board);
+        return game;
+    }
+
+    // Overwrite two cells with values that sum to 10 (3 + 7)
+    public static void plantPair(GameState game, int firstCell, int secondCell) {
+        game.getBoard().setValue(firstCell, 3);
+        game.getBoard().setValue(secondCell, 7);
+        game.setBoard(game.getBoard());
+    }
+}
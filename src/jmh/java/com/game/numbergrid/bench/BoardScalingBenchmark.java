@@ -0,0 +1,72 @@
+package com.game.numbergrid.bench;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.model.HintPolicy;
+import com.game.numbergrid.service.GameService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// How game-over detection and hints scale with board size.
+// mvn -Pbench test-compile exec:exec -Dbench.include=BoardScalingBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardScalingBenchmark {
+
+    @Param({"10x20", "100x200", "200x500"})
+    public String size;
+
+    private GameService gameService;
+    private GameState game;
+    private List<int[]> validPair;
+    private int firstValue;
+    private int secondValue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] dims = size.split("x");
+        int rows = Integer.parseInt(dims[0]);
+        int cols = Integer.parseInt(dims[1]);
+
+        gameService = new GameService();
+        game = BenchBoards.game(BenchBoards.Kind.FULL, rows, cols);
+
+        // Top-left pair that always sums to 10
+        BenchBoards.plantPair(game, 0, 1);
+        firstValue = 3;
+        secondValue = 7;
+
+        validPair = new ArrayList<>();
+        validPair.add(new int[]{0, 0});
+        validPair.add(new int[]{0, 1});
+    }
+
+    // A valid combo: clears two cells and runs the game-over check, then puts them back
+    @Benchmark
+    public boolean clearAndCheckGameOver() {
+        gameService.selectBlocks(game, validPair);
+        Board board = game.getBoard();
+        board.setValue(0, firstValue);
+        board.setValue(1, secondValue);
+        game.setGameOver(false);
+        return gameService.isGameComplete(game);
+    }
+
+    @State(Scope.Thread)
+    public static class Hint {
+        @Param({"FIRST", "NEAREST", "LARGEST"})
+        public HintPolicy policy;
+    }
+
+    @Benchmark
+    public GameState hint(Hint hint) {
+        return gameService.getHint(game, hint.policy);
+    }
+}
@@ -0,0 +1,87 @@
+package com.game.numbergrid.bench;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.model.HintPolicy;
+import com.game.numbergrid.service.GameService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The per-request service calls on a seeded 10x20 board
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameServiceBenchmark {
+
+    private GameService gameService;
+    private GameState game;
+    private List<int[]> validPair;
+    private List<int[]> invalidPair;
+    private int[] validCells;
+    private int[] invalidCells;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameService = new GameService();
+        game = BenchBoards.game(BenchBoards.Kind.FULL, GameState.DEFAULT_ROWS, GameState.DEFAULT_COLS);
+
+        // (0,0)+(0,1) = 3 + 7, (1,0)+(1,1) = 3 + 3
+        BenchBoards.plantPair(game, 0, 1);
+        Board board = game.getBoard();
+        board.setValue(board.cellIndex(1, 0), 3);
+        board.setValue(board.cellIndex(1, 1), 3);
+        game.setBoard(board);
+
+        validPair = new ArrayList<>();
+        validPair.add(new int[]{0, 0});
+        validPair.add(new int[]{0, 1});
+        invalidPair = new ArrayList<>();
+        invalidPair.add(new int[]{1, 0});
+        invalidPair.add(new int[]{1, 1});
+        validCells = new int[]{board.cellIndex(0, 0), board.cellIndex(0, 1)};
+        invalidCells = new int[]{board.cellIndex(1, 0), board.cellIndex(1, 1)};
+    }
+
+    // Valid combo: clear, score, game-over check; the two cells are put back afterwards
+    @Benchmark
+    public GameState selectValid() {
+        gameService.selectBlocks(game, validPair);
+        Board board = game.getBoard();
+        board.setValue(0, 3);
+        board.setValue(1, 7);
+        game.setGameOver(false);
+        return game;
+    }
+
+    @Benchmark
+    public GameState selectInvalid() {
+        return gameService.selectBlocks(game, invalidPair);
+    }
+
+    // Cell-index entry point; run with -prof gc, gc.alloc.rate.norm should be ~0
+    @Benchmark
+    public GameState selectCellsValid() {
+        gameService.selectCells(game, validCells, validCells.length);
+        Board board = game.getBoard();
+        board.setValue(0, 3);
+        board.setValue(1, 7);
+        game.setGameOver(false);
+        return game;
+    }
+
+    @Benchmark
+    public GameState selectCellsInvalid() {
+        return gameService.selectCells(game, invalidCells, invalidCells.length);
+    }
+
+    @Benchmark
+    public GameState hint() {
+        return gameService.getHint(game, HintPolicy.NEAREST);
+    }
+}
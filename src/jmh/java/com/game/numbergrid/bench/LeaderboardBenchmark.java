@@ -0,0 +1,59 @@
+package com.game.numbergrid.bench;
+
+import com.game.numbergrid.leaderboard.Leaderboard;
+import com.game.numbergrid.leaderboard.LeaderboardEntry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Rank and top-K queries against a leaderboard holding a million finished games
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class LeaderboardBenchmark {
+
+    private static final int ENTRIES = 1_000_000;
+
+    private Leaderboard leaderboard;
+    private long[] scores;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        leaderboard = new Leaderboard(true, 7, 64, Clock.systemUTC());
+        Random random = new Random(BenchBoards.SEED);
+        scores = new long[ENTRIES];
+        long day = System.currentTimeMillis() / 86_400_000L;
+        for (int i = 0; i < ENTRIES; i++) {
+            // Mostly default-board scores, plus a long tail from big boards
+            scores[i] = random.nextInt(10) == 0 ? (long) (random.nextDouble() * 1e9) : 10L * random.nextInt(50_000);
+            leaderboard.submit(new LeaderboardEntry("bench-" + i, scores[i], 10, 20, i, day));
+        }
+        while (leaderboard.entryCount() < ENTRIES) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        leaderboard.stop();
+    }
+
+    @Benchmark
+    public long rank() {
+        long score = scores[next];
+        next = (next + 7919) % ENTRIES;
+        return leaderboard.rankOf(score, Leaderboard.Window.ALL, null, 0, 0);
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> top10() {
+        return leaderboard.top(Leaderboard.Window.DAILY, null, 0, 0, 10);
+    }
+}
@@ -0,0 +1,36 @@
+package com.game.numbergrid.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.numbergrid.bench.BenchBoards;
+import com.game.numbergrid.model.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Cost of turning a board into the grid/hints JSON the page receives
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardJsonBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GameState game;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = BenchBoards.game(BenchBoards.Kind.FULL, GameState.DEFAULT_ROWS, GameState.DEFAULT_COLS);
+    }
+
+    @Benchmark
+    public byte[] fullBoard() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("grid", BoardJson.values(game.getBoard()));
+        response.put("hints", BoardJson.hints(game.getBoard()));
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,438 @@
+package com.game.numbergrid.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.numbergrid.NumberGridGameApplication;
+import com.game.numbergrid.simulation.ValueHistogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load generator: N simulated players run the page's HTTP flows against the
+// game endpoints: open /game/start, drag-select combos (/select-multiple),
+// ask for hints and clear them, restart, and read the state. Each player is a
+// chain of async requests on one shared HttpClient with random think times
+// between actions, so thousands of players need only a handful of threads.
+//
+// Every player also keeps its own copy of its board and the score it should
+// have, applying each response's changes. A reply whose score differs from
+// the expected one, a game the server no longer knows, or a final board that
+// differs from the copy is counted as a lost update.
+//
+// Boots the app in this JVM on a free port unless --url is given:
+//
+//   mvn -Pbench test-compile exec:java -Dexec.mainClass=com.game.numbergrid.load.LoadTest \
+//       -Dexec.args="--players=2000 --actions=100 --think-ms=250"
+//
+// Options: --players=N --actions=PER_PLAYER --think-ms=MEAN --ramp-ms=MS
+//          --rows=R --cols=C --threads=T --url=http://host:port
+public class LoadTest {
+
+    enum Action {
+        START, SELECT, HINT, CLEAR_HINT, RESTART, STATE
+    }
+
+    private final URI base;
+    private final int players;
+    private final int actions;
+    private final long thinkMillis;
+    private final long rampMillis;
+    private final int rows;
+    private final int cols;
+
+    private final HttpClient client;
+    private final ScheduledExecutorService timer;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<Action, ValueHistogram> latencies = new EnumMap<>(Action.class); // microseconds
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();     // transport errors and non-2xx
+    private final LongAdder lostUpdates = new LongAdder();  // score or board diverged from the player's copy
+    private final LongAdder lostGames = new LongAdder();    // server answered "Game not found"
+    private final LongAdder validCombos = new LongAdder();
+    private final AtomicLong finishedPlayers = new AtomicLong();
+
+    LoadTest(URI base, Map<String, String> options, ExecutorService clientThreads) {
+        this.base = base;
+        this.players = Integer.parseInt(options.getOrDefault("players", "1000"));
+        this.actions = Integer.parseInt(options.getOrDefault("actions", "50"));
+        this.thinkMillis = Long.parseLong(options.getOrDefault("think-ms", "200"));
+        this.rampMillis = Long.parseLong(options.getOrDefault("ramp-ms", "2000"));
+        this.rows = Integer.parseInt(options.getOrDefault("rows", "10"));
+        this.cols = Integer.parseInt(options.getOrDefault("cols", "20"));
+        this.client = HttpClient.newBuilder()
+            .executor(clientThreads)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Action action : Action.values()) {
+            latencies.put(action, new ValueHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                usage("Bad argument: " + arg);
+                return;
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        ConfigurableApplicationContext app = null;
+        String url = options.get("url");
+        if (url == null) {
+            app = SpringApplication.run(NumberGridGameApplication.class,
+                "--server.port=0", "--logging.level.root=WARN", "--game.pool.enabled=false");
+            url = "http://localhost:" + ((ServletWebServerApplicationContext) app).getWebServer().getPort();
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+            Integer.toString(Runtime.getRuntime().availableProcessors())));
+        ExecutorService clientThreads = Executors.newFixedThreadPool(threads);
+        try {
+            LoadTest test;
+            try {
+                test = new LoadTest(URI.create(url), options, clientThreads);
+            } catch (NumberFormatException e) {
+                usage(e.getMessage());
+                return;
+            }
+            test.run(app != null);
+        } finally {
+            clientThreads.shutdown();
+            if (app != null) {
+                app.close();
+            }
+        }
+    }
+
+    private void run(boolean inProcess) throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = usedHeapAfterGc(memory);
+        System.out.printf("%d players x %d actions against %s (think %d ms, ramp %d ms)%n",
+            players, actions, base, thinkMillis, rampMillis);
+
+        CountDownLatch done = new CountDownLatch(players);
+        long start = System.nanoTime();
+        for (int i = 0; i < players; i++) {
+            Player player = new Player(done);
+            long delay = players > 1 ? rampMillis * i / (players - 1) : 0;
+            timer.schedule(player::start, delay, TimeUnit.MILLISECONDS);
+        }
+        while (!done.await(5, TimeUnit.SECONDS)) {
+            System.out.printf("... %d/%d players done, %d requests, %d lost updates%n",
+                finishedPlayers.get(), players, requests.sum(), lostUpdates.sum() + lostGames.sum());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long heapAfter = usedHeapAfterGc(memory);
+
+        System.out.printf("requests=%d (%.0f/s) failures=%d validCombos=%d lostUpdates=%d lostGames=%d%n",
+            requests.sum(), requests.sum() / seconds, failures.sum(), validCombos.sum(),
+            lostUpdates.sum(), lostGames.sum());
+        for (Map.Entry<Action, ValueHistogram> entry : latencies.entrySet()) {
+            ValueHistogram histogram = entry.getValue();
+            synchronized (histogram) {
+                if (histogram.getTotal() == 0) {
+                    continue;
+                }
+                System.out.printf("  %-10s n=%-8d p50=%dus p90=%dus p99=%dus p999=%dus max=%dus%n",
+                    entry.getKey(), histogram.getTotal(), histogram.percentile(0.5), histogram.percentile(0.9),
+                    histogram.percentile(0.99), histogram.percentile(0.999), histogram.percentile(1.0));
+            }
+        }
+        System.out.printf("heap after GC: %.1f MB -> %.1f MB (%+.1f MB%s)%n",
+            heapBefore / 1e6, heapAfter / 1e6, (heapAfter - heapBefore) / 1e6,
+            inProcess ? ", server and players" : ", load generator only");
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    // One simulated player: a chain of requests, each scheduled from the reply
+    // to the previous one
+    private final class Player {
+        private final CountDownLatch done;
+        private String gameId;
+        private int[] board;       // cell values as last seen
+        private Integer version;   // board version, sent as 'since'
+        private long expectedScore;
+        private boolean gameOver;
+        private int actionsLeft = actions;
+
+        Player(CountDownLatch done) {
+            this.done = done;
+        }
+
+        void start() {
+            send(Action.START, HttpRequest.newBuilder(base.resolve("/game/start?rows=" + rows + "&cols=" + cols)).GET())
+                .thenAccept(page -> {
+                    JsonNode state = island(page);
+                    gameId = state.get("gameId").asText();
+                    applyState(state);
+                    next();
+                })
+                .exceptionally(this::abort);
+        }
+
+        private void next() {
+            if (actionsLeft-- <= 0) {
+                verify();
+                return;
+            }
+            long think = thinkMillis <= 0 ? 0
+                : (long) (-thinkMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+            timer.schedule(this::act, think, TimeUnit.MILLISECONDS);
+        }
+
+        private void act() {
+            double roll = ThreadLocalRandom.current().nextDouble();
+            CompletableFuture<?> step;
+            if (gameOver || roll < 0.05) {
+                step = restart();
+            } else if (roll < 0.75) {
+                step = select();
+            } else if (roll < 0.90) {
+                step = post(Action.HINT, "/game/hint", form("gameId", gameId, "since", version))
+                    .thenCompose(hint -> {
+                        applyChanges(hint);
+                        return post(Action.CLEAR_HINT, "/game/clear-hint", form("gameId", gameId, "since", version));
+                    })
+                    .thenAccept(this::applyChanges);
+            } else {
+                step = get(Action.STATE, "/game/api/state?gameId=" + gameId).thenAccept(state -> {
+                    checkScore(state);
+                    applyState(state);
+                });
+            }
+            step.thenRun(this::next).exceptionally(this::abort);
+        }
+
+        // Drag over a pair summing to 10 when there is one; now and then a
+        // pair that does not, which must leave the score alone
+        private CompletableFuture<?> select() {
+            int[] pair = findPair(ThreadLocalRandom.current().nextDouble() < 0.1);
+            if (pair == null) {
+                return restart();
+            }
+            boolean valid = (board[pair[0]] + board[pair[1]]) % 10 == 0;
+            String positions = pair[0] / cols + "," + pair[0] % cols + ";" + pair[1] / cols + "," + pair[1] % cols;
+            return post(Action.SELECT, "/game/select-multiple", form("gameId", gameId, "positions", positions,
+                "since", version))
+                .thenAccept(reply -> {
+                    if (valid) {
+                        expectedScore += 10L * 2 * 2;
+                        validCombos.increment();
+                    }
+                    applyChanges(reply);
+                    checkScore(reply);
+                    gameOver = reply.path("gameOver").asBoolean(false);
+                });
+        }
+
+        private CompletableFuture<?> restart() {
+            return post(Action.RESTART, "/game/restart", form("gameId", gameId)).thenAccept(state -> {
+                expectedScore = 0;
+                checkScore(state);
+                applyState(state);
+            });
+        }
+
+        // Last action: the server's full board and score must match this player's copy
+        private void verify() {
+            get(Action.STATE, "/game/api/state?gameId=" + gameId)
+                .thenAccept(state -> {
+                    checkScore(state);
+                    JsonNode grid = state.get("grid");
+                    for (int cell = 0; cell < board.length; cell++) {
+                        if (grid.get(cell / cols).get(cell % cols).asInt() != board[cell]) {
+                            lostUpdates.increment();
+                            break;
+                        }
+                    }
+                    finish();
+                })
+                .exceptionally(this::abort);
+        }
+
+        private Void abort(Throwable error) {
+            failures.increment();
+            finish();
+            return null;
+        }
+
+        private void finish() {
+            finishedPlayers.incrementAndGet();
+            done.countDown();
+        }
+
+        private int[] findPair(boolean invalid) {
+            List<List<Integer>> byValue = byValue();
+            int from = ThreadLocalRandom.current().nextInt(1, 10);
+            for (int i = 0; i < 9; i++) {
+                int value = (from + i - 1) % 9 + 1;
+                if (byValue.get(value).isEmpty()) {
+                    continue;
+                }
+                int first = byValue.get(value).get(0);
+                for (int other = 1; other <= 9; other++) {
+                    boolean sumsToTen = (value + other) % 10 == 0;
+                    List<Integer> cells = byValue.get(other);
+                    int needed = other == value ? 2 : 1;
+                    if (sumsToTen != invalid && cells.size() >= needed) {
+                        return new int[]{first, cells.get(needed - 1)};
+                    }
+                }
+            }
+            return null;
+        }
+
+        private List<List<Integer>> byValue() {
+            List<List<Integer>> byValue = new ArrayList<>(10);
+            for (int value = 0; value <= 9; value++) {
+                byValue.add(new ArrayList<>());
+            }
+            for (int cell = 0; cell < board.length; cell++) {
+                byValue.get(board[cell]).add(cell);
+            }
+            return byValue;
+        }
+
+        private void checkScore(JsonNode reply) {
+            if (reply.has("score") && reply.get("score").asLong() != expectedScore) {
+                lostUpdates.increment();
+                expectedScore = reply.get("score").asLong(); // resync, count each divergence once
+            }
+        }
+
+        private void applyState(JsonNode state) {
+            JsonNode grid = state.get("grid");
+            board = new int[rows * cols];
+            for (int cell = 0; cell < board.length; cell++) {
+                board[cell] = grid.get(cell / cols).get(cell % cols).asInt();
+            }
+            version = state.get("version").asInt();
+            expectedScore = state.path("score").asLong(expectedScore);
+            gameOver = state.path("gameOver").asBoolean(false);
+        }
+
+        // A reply to a request sent with 'since': changed cells as (cell, value, flags)
+        private void applyChanges(JsonNode reply) {
+            if (reply.has("grid")) {
+                applyState(reply);
+                return;
+            }
+            JsonNode changes = reply.get("changes");
+            for (int i = 0; i + 2 < changes.size(); i += 3) {
+                board[changes.get(i).asInt()] = changes.get(i + 1).asInt();
+            }
+            version = reply.get("version").asInt();
+        }
+
+        private CompletableFuture<JsonNode> get(Action action, String path) {
+            return send(action, HttpRequest.newBuilder(base.resolve(path)).GET()).thenApply(this::json);
+        }
+
+        private CompletableFuture<JsonNode> post(Action action, String path, String form) {
+            return send(action, HttpRequest.newBuilder(base.resolve(path))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form)))
+                .thenApply(this::json);
+        }
+
+        private JsonNode json(String body) {
+            try {
+                JsonNode node = mapper.readTree(body);
+                if (node.has("error")) {
+                    lostGames.increment();
+                    throw new IllegalStateException(node.get("error").asText());
+                }
+                return node;
+            } catch (IOException e) {
+                throw new IllegalStateException("Bad JSON reply", e);
+            }
+        }
+
+        private JsonNode island(String page) {
+            String open = "<script id=\"initialState\" type=\"application/json\">";
+            int from = page.indexOf(open);
+            int to = from < 0 ? -1 : page.indexOf("</script>", from);
+            if (to < 0) {
+                throw new IllegalStateException("No game state in the page");
+            }
+            return json(page.substring(from + open.length(), to));
+        }
+    }
+
+    private CompletableFuture<String> send(Action action, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        return client.sendAsync(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString())
+            .thenApply(response -> {
+                long micros = (System.nanoTime() - start) / 1000;
+                requests.increment();
+                ValueHistogram histogram = latencies.get(action);
+                synchronized (histogram) {
+                    histogram.record(micros);
+                }
+                if (response.statusCode() / 100 != 2) {
+                    throw new IllegalStateException(action + " returned " + response.statusCode());
+                }
+                return response.body();
+            });
+    }
+
+    // name, value pairs; null values are left out
+    private static String form(Object... pairs) {
+        StringBuilder form = new StringBuilder();
+        for (int i = 0; i + 1 < pairs.length; i += 2) {
+            if (pairs[i + 1] == null) {
+                continue;
+            }
+            if (form.length() > 0) {
+                form.append('&');
+            }
+            form.append(pairs[i]).append('=')
+                .append(URLEncoder.encode(String.valueOf(pairs[i + 1]), StandardCharsets.UTF_8));
+        }
+        return form.toString();
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: LoadTest [--players=N] [--actions=PER_PLAYER] [--think-ms=MEAN] [--ramp-ms=MS]"
+            + " [--rows=R] [--cols=C] [--threads=T] [--url=http://host:port]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,47 @@
+package com.game.numbergrid.service;
+
+import com.game.numbergrid.bench.BenchBoards;
+import com.game.numbergrid.model.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Game-over detection on full, sparse and dead 10x20 boards, against the
+// recursive reference scan it replaced, with combos of up to 4 blocks (the
+// residue DP) and up to 10 (the precomputed table). Lives in the service
+// package to reach the package-private reference.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameOverBenchmark {
+
+    @Param({"FULL", "SPARSE", "DEAD"})
+    public BenchBoards.Kind kind;
+
+    @Param({"4", "10"})
+    public int maxCombo;
+
+    private GameService gameService;
+    private GameState game;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameService = new GameService();
+        gameService.setMaxComboSize(maxCombo);
+        game = BenchBoards.game(kind, GameState.DEFAULT_ROWS, GameState.DEFAULT_COLS);
+    }
+
+    @Benchmark
+    public boolean residueCounts() {
+        return gameService.isGameComplete(game);
+    }
+
+    // Slow on DEAD boards with maxCombo 4 (every 4-subset of 200 cells is visited)
+    @Benchmark
+    public boolean referenceScan() {
+        return gameService.isGameCompleteByScan(game.getBoard());
+    }
+}
@@ -0,0 +1,29 @@
+package com.game.numbergrid.service;
+
+import com.game.numbergrid.model.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Rating boards offline: generate a seeded 10x20 board and plan its best score.
+// Without a combo limit the plan is closed-form; with one the search runs to
+// its time budget on most boards, so that case measures plan quality per budget.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreSolverBenchmark {
+
+    @Param({"0", "4"})
+    public int maxCombo;
+
+    private long seed;
+
+    @Benchmark
+    public long rateBoard() {
+        GameState game = new GameState(GameState.DEFAULT_ROWS, GameState.DEFAULT_COLS, seed++);
+        return ScoreSolver.solve(game.getValueCounts(), maxCombo, TimeUnit.MILLISECONDS.toNanos(1)).getPoints();
+    }
+}
@@ -2,8 +2,10 @@ package com.game.numbergrid;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class NumberGridGameApplication {
     public static void main(String[] args) {
         SpringApplication.run(NumberGridGameApplication.class, args);
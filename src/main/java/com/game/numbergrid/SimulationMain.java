@@ -0,0 +1,67 @@
+package com.game.numbergrid;
+
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.simulation.BuiltInStrategy;
+import com.game.numbergrid.simulation.SimulationConfig;
+import com.game.numbergrid.simulation.SimulationEngine;
+import com.game.numbergrid.simulation.SimulationStats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Command-line entry point for batch simulations (no web server is started):
+//
+//   java -cp <classpath> com.game.numbergrid.SimulationMain --strategy=nearest --games=1000000
+//
+// Options: --strategy=first|nearest|largest|solver --games=N --seed=FIRST
+//          --rows=R --cols=C --threads=T --report-ms=MS
+public class SimulationMain {
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                usage("Bad argument: " + arg);
+                return;
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        SimulationConfig config;
+        try {
+            config = new SimulationConfig(
+                BuiltInStrategy.fromName(options.getOrDefault("strategy", "nearest")),
+                Long.parseLong(options.getOrDefault("seed", "0")),
+                Long.parseLong(options.getOrDefault("games", "100000")));
+            config.setSize(
+                Integer.parseInt(options.getOrDefault("rows", "" + GameState.DEFAULT_ROWS)),
+                Integer.parseInt(options.getOrDefault("cols", "" + GameState.DEFAULT_COLS)));
+            if (options.containsKey("threads")) {
+                config.setThreads(Integer.parseInt(options.get("threads")));
+            }
+            if (options.containsKey("report-ms")) {
+                config.setReportIntervalMillis(Long.parseLong(options.get("report-ms")));
+            }
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+            return;
+        }
+
+        SimulationStats stats;
+        try {
+            stats = new SimulationEngine().run(config, progress -> System.out.println("... " + progress));
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+            return;
+        }
+        System.out.println(stats);
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: SimulationMain [--strategy=first|nearest|largest|solver] [--games=N]"
+            + " [--seed=FIRST] [--rows=R] [--cols=C] [--threads=T] [--report-ms=MS]");
+        System.exit(2);
+    }
+}
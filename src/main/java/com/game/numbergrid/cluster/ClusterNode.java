@@ -0,0 +1,381 @@
+package com.game.numbergrid.cluster;
+
+import com.game.numbergrid.persistence.GameSnapshotCodec;
+import com.game.numbergrid.service.GameSessionStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+// This JVM's place in the cluster. Members share a consistent hash ring of
+// node addresses; each node holds the games whose IDs hash into its ranges.
+// Membership changes are announced peer to peer (no coordination service):
+// a node joins by telling any member, which sends the new member list to
+// everyone. On every change each node hands the games it no longer owns to
+// their new owner as snapshots, so they keep their boards and scores.
+//
+// Requests follow a game while it moves: the node holding it serves it, and
+// a new owner still waiting for a game sends its requests to the game's
+// owner under the previous member list.
+//
+// With game.cluster.enabled=false (the default) this node owns every game.
+@Component
+public class ClusterNode implements GameOwnership {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterNode.class);
+
+    private static final byte MSG_JOIN = 1;    // address
+    private static final byte MSG_MEMBERS = 2; // epoch, then members and members before, each count + addresses
+    static final byte MSG_GAMES = 3;           // count, then (length, snapshot) each; package-private for tests
+
+    // Games per hand-off message
+    private static final int GAMES_PER_MESSAGE = 256;
+
+    private final boolean enabled;
+    private final String self;
+    private final List<String> seeds;
+    private final int pointsPerMember;
+    private final ClusterTransport transport;
+    private final GameSessionStore sessionStore;
+    private final List<BiConsumer<String, String>> moveListeners = new CopyOnWriteArrayList<>();
+
+    private volatile HashRing ring;
+    private volatile HashRing previousRing; // members before the last change
+    private long epoch; // guarded by this; highest member list seen
+
+    @Autowired
+    public ClusterNode(
+            @Value("${game.cluster.enabled:false}") boolean enabled,
+            @Value("${game.cluster.self:}") String self,
+            @Value("${game.cluster.seeds:}") String seeds,
+            @Value("${game.cluster.virtual-nodes:128}") int pointsPerMember,
+            ClusterTransport transport,
+            GameSessionStore sessionStore) {
+        if (enabled && self.isBlank()) {
+            throw new IllegalStateException("game.cluster.self must be set when game.cluster.enabled=true");
+        }
+        this.enabled = enabled;
+        this.self = self.trim();
+        this.seeds = Arrays.stream(seeds.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        this.pointsPerMember = pointsPerMember;
+        this.transport = transport;
+        this.sessionStore = sessionStore;
+        this.ring = new HashRing(List.of(this.self), pointsPerMember);
+        this.previousRing = ring;
+    }
+
+    // A cluster member built by hand, e.g. several nodes on one InMemoryClusterTransport.
+    // Call start() to bind it, then join() through any existing member.
+    public ClusterNode(String self, ClusterTransport transport, GameSessionStore sessionStore, int pointsPerMember) {
+        this(true, self, "", pointsPerMember, transport, sessionStore);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!enabled) {
+            return;
+        }
+        start();
+        for (String seed : seeds) {
+            if (seed.equals(self)) {
+                continue;
+            }
+            try {
+                join(seed);
+                break;
+            } catch (RuntimeException e) {
+                log.warn("Cannot join cluster through {}: {}", seed, e.getMessage());
+            }
+        }
+    }
+
+    public void start() {
+        transport.bind(self, this::receive);
+    }
+
+    // Ask an existing member to add this node; it sends everyone the new list
+    public void join(String member) {
+        transport.send(member, addressMessage(MSG_JOIN, self));
+    }
+
+    // Hand every game to the remaining members and drop out of the ring
+    @PreDestroy
+    public void leave() {
+        if (!enabled || ring.getMembers().size() < 2) {
+            return;
+        }
+        changeMembers(self, false);
+        transport.unbind(self);
+    }
+
+    // Drop a member that cannot leave by itself (crashed); its games are lost
+    // unless it comes back with them
+    public void remove(String member) {
+        changeMembers(member, false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public List<String> getMembers() {
+        return enabled ? ring.getMembers() : List.of();
+    }
+
+    @Override
+    public boolean isLocal(String gameId) {
+        return self.equals(ownerOf(gameId));
+    }
+
+    // Where requests for the game go: here while this node holds it, else
+    // its owner; for a game this node should own but has not received, the
+    // owner before the last change, which still holds it if it is on the way
+    @Override
+    public String ownerOf(String gameId) {
+        if (!enabled || sessionStore.contains(gameId)) {
+            return self;
+        }
+        String owner = ring.ownerOf(gameId);
+        if (self.equals(owner)) {
+            owner = previousRing.ownerOf(gameId);
+        }
+        return owner != null ? owner : self;
+    }
+
+    @Override
+    public void addMoveListener(BiConsumer<String, String> listener) {
+        moveListeners.add(listener);
+    }
+
+    void receive(byte[] message) {
+        ByteBuffer in = ByteBuffer.wrap(message);
+        byte type = in.get();
+        switch (type) {
+            case MSG_JOIN:
+                changeMembers(readString(in), true);
+                break;
+            case MSG_MEMBERS:
+                long newEpoch = in.getLong();
+                List<String> members = readStrings(in);
+                List<String> before = readStrings(in);
+                if (applyMembers(newEpoch, members, before)) {
+                    rebalance();
+                }
+                break;
+            case MSG_GAMES:
+                int games = in.getInt();
+                for (int i = 0; i < games; i++) {
+                    int length = in.getInt();
+                    ByteBuffer snapshot = in.slice(in.position(), length);
+                    in.position(in.position() + length);
+                    // A copy held here already is newer (e.g. the sender recovered a stale one)
+                    sessionStore.adopt(GameSnapshotCodec.read(snapshot));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown cluster message " + type);
+        }
+    }
+
+    // Add or remove a member, tell every member (old and new) the result,
+    // then move out the games this node no longer owns
+    private void changeMembers(String member, boolean add) {
+        long sentEpoch;
+        HashRing next;
+        List<String> before;
+        synchronized (this) {
+            Set<String> updated = new LinkedHashSet<>(ring.getMembers());
+            if (add) {
+                updated.add(member);
+            } else {
+                updated.remove(member);
+            }
+            epoch++;
+            sentEpoch = epoch;
+            next = new HashRing(updated, pointsPerMember);
+            before = ring.getMembers();
+        }
+        List<String> members = next.getMembers();
+        byte[] announcement = membersMessage(sentEpoch, members, before);
+
+        // Sent outside the lock: receivers may send games straight back. A
+        // new member hears before this node routes anything to it, and before
+        // any member starts sending it games.
+        if (add && !member.equals(self)) {
+            announce(member, announcement);
+        }
+        synchronized (this) {
+            if (epoch == sentEpoch) {
+                previousRing = ring;
+                ring = next;
+            }
+        }
+        log.info("Cluster members now {}", members);
+
+        // Everyone else, and a removed member so it stops serving
+        Set<String> recipients = new LinkedHashSet<>(members);
+        if (add) {
+            recipients.remove(member);
+        } else {
+            recipients.add(member);
+        }
+        recipients.remove(self);
+        for (String recipient : recipients) {
+            announce(recipient, announcement);
+        }
+        rebalance();
+    }
+
+    private void announce(String recipient, byte[] announcement) {
+        try {
+            transport.send(recipient, announcement);
+        } catch (RuntimeException e) {
+            log.warn("Cannot send member list to {}: {}", recipient, e.getMessage());
+        }
+    }
+
+    // 'before' is the sender's member list before the change: for a node
+    // that just joined it says where the games on their way to it still are
+    private synchronized boolean applyMembers(long newEpoch, List<String> members, List<String> before) {
+        if (newEpoch <= epoch) {
+            return false;
+        }
+        epoch = newEpoch;
+        previousRing = new HashRing(before, pointsPerMember);
+        ring = new HashRing(members, pointsPerMember);
+        log.info("Cluster members now {}", ring.getMembers());
+        return true;
+    }
+
+    // Send each game whose owner is now another node to that node. A game is
+    // snapshotted on its actor and its later requests wait until the new
+    // owner has adopted it; they then answer null here and are sent on (see
+    // ClusterRouting), so no move lands after the snapshot and none is lost.
+    private void rebalance() {
+        HashRing current = ring;
+        Map<String, List<String>> byOwner = new HashMap<>();
+        for (String gameId : sessionStore.gameIds()) {
+            String owner = current.ownerOf(gameId);
+            if (owner != null && !owner.equals(self)) {
+                byOwner.computeIfAbsent(owner, o -> new ArrayList<>()).add(gameId);
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : byOwner.entrySet()) {
+            List<String> gameIds = entry.getValue();
+            for (int from = 0; from < gameIds.size(); from += GAMES_PER_MESSAGE) {
+                handOff(entry.getKey(), gameIds.subList(from, Math.min(from + GAMES_PER_MESSAGE, gameIds.size())));
+            }
+        }
+    }
+
+    private void handOff(String owner, List<String> gameIds) {
+        List<String> moved = new ArrayList<>(gameIds.size());
+        List<byte[]> snapshots = new ArrayList<>(gameIds.size());
+        for (String gameId : gameIds) {
+            byte[] snapshot = sessionStore.beginHandOff(gameId, game -> {
+                ByteBuffer out = ByteBuffer.allocate(GameSnapshotCodec.encodedSize(game));
+                GameSnapshotCodec.write(game, out);
+                return out.array();
+            });
+            if (snapshot != null) {
+                moved.add(gameId);
+                snapshots.add(snapshot);
+            }
+        }
+        if (moved.isEmpty()) {
+            return;
+        }
+
+        int size = 1 + 4;
+        for (byte[] snapshot : snapshots) {
+            size += 4 + snapshot.length;
+        }
+        ByteBuffer message = ByteBuffer.allocate(size);
+        message.put(MSG_GAMES).putInt(snapshots.size());
+        for (byte[] snapshot : snapshots) {
+            message.putInt(snapshot.length).put(snapshot);
+        }
+        boolean sent = false;
+        try {
+            transport.send(owner, message.array());
+            sent = true;
+        } catch (RuntimeException e) {
+            // Keep serving them here; the next membership change retries
+            log.warn("Cannot hand {} games to {}: {}", moved.size(), owner, e.getMessage());
+        } finally {
+            for (String gameId : moved) {
+                sessionStore.endHandOff(gameId, sent);
+            }
+        }
+        if (!sent) {
+            return;
+        }
+        for (String gameId : moved) {
+            for (BiConsumer<String, String> listener : moveListeners) {
+                listener.accept(gameId, owner);
+            }
+        }
+    }
+
+    private static byte[] addressMessage(byte type, String address) {
+        byte[] bytes = address.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + 2 + bytes.length).put(type).putShort((short) bytes.length).put(bytes).array();
+    }
+
+    private static byte[] membersMessage(long epoch, List<String> members, List<String> before) {
+        int size = 1 + 8 + 4 + 4;
+        for (String member : members) {
+            size += 2 + member.getBytes(StandardCharsets.UTF_8).length;
+        }
+        for (String member : before) {
+            size += 2 + member.getBytes(StandardCharsets.UTF_8).length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size).put(MSG_MEMBERS).putLong(epoch);
+        writeStrings(members, out);
+        writeStrings(before, out);
+        return out.array();
+    }
+
+    private static void writeStrings(List<String> strings, ByteBuffer out) {
+        out.putInt(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.putShort((short) bytes.length).put(bytes);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer in) {
+        int count = in.getInt();
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
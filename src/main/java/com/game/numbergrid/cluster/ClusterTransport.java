@@ -0,0 +1,19 @@
+package com.game.numbergrid.cluster;
+
+// Carries cluster messages (membership changes, handed-off games) between
+// nodes. Messages are opaque byte arrays; ClusterNode defines their format.
+public interface ClusterTransport {
+
+    interface Receiver {
+        void receive(byte[] message);
+    }
+
+    // Deliver messages addressed to 'address' to this receiver
+    void bind(String address, Receiver receiver);
+
+    void unbind(String address);
+
+    // Synchronous: returns once the receiver has handled the message.
+    // Throws if the node cannot be reached or rejects it.
+    void send(String address, byte[] message);
+}
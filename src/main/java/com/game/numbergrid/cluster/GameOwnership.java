@@ -0,0 +1,16 @@
+package com.game.numbergrid.cluster;
+
+import java.util.function.BiConsumer;
+
+// Which node holds each game. A single node owns everything; a cluster
+// splits the gameId space between its members.
+public interface GameOwnership {
+
+    boolean isLocal(String gameId);
+
+    // Address of the node holding the game (e.g. http://host:8080)
+    String ownerOf(String gameId);
+
+    // Called with (gameId, new owner address) after a game has been handed off
+    void addMoveListener(BiConsumer<String, String> listener);
+}
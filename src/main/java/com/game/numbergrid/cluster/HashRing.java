@@ -0,0 +1,79 @@
+package com.game.numbergrid.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Consistent hash ring: every member owns the keys that hash between its
+// points and the previous ones. Each member gets many points so ranges stay
+// even, and a join or leave only moves the keys next to that member's points.
+// Immutable; membership changes build a new ring.
+public final class HashRing {
+
+    private final List<String> members;
+    private final long[] points;   // sorted
+    private final String[] owners; // owners[i] holds the range ending at points[i]
+
+    public HashRing(Collection<String> members, int pointsPerMember) {
+        this.members = List.copyOf(members.stream().distinct().sorted().toList());
+        int count = this.members.size() * pointsPerMember;
+        long[] keys = new long[count];
+        String[] byKey = new String[count];
+        int i = 0;
+        for (String member : this.members) {
+            for (int point = 0; point < pointsPerMember; point++) {
+                keys[i] = hash(member + "#" + point);
+                byKey[i] = member;
+                i++;
+            }
+        }
+        // Sort points, carrying their owners along
+        Integer[] order = new Integer[count];
+        for (int j = 0; j < count; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        points = new long[count];
+        owners = new String[count];
+        for (int j = 0; j < count; j++) {
+            points[j] = keys[order[j]];
+            owners[j] = byKey[order[j]];
+        }
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    public String ownerOf(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) {
+            i = -i - 1; // first point after the key
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    // FNV-1a over the UTF-8 bytes, then a 64-bit finalizer to spread
+    // the similar strings (UUIDs, "host#n") across the whole ring
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,88 @@
+package com.game.numbergrid.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+
+// Messages as POSTs of application/octet-stream to <address>/game/cluster/message,
+// where ClusterController hands them to deliver(). Every node shares
+// game.cluster.secret and sends it in the X-Cluster-Secret header; the
+// cluster endpoints refuse requests without it.
+@Component
+public class HttpClusterTransport implements ClusterTransport {
+
+    public static final String MESSAGE_PATH = "/game/cluster/message";
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final byte[] secret;
+    private volatile Receiver receiver;
+
+    public HttpClusterTransport(
+            @Value("${game.cluster.timeout:5s}") Duration timeout,
+            @Value("${game.cluster.secret:}") String secret) {
+        this.timeout = timeout;
+        this.secret = secret.trim().getBytes(StandardCharsets.UTF_8);
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void bind(String address, Receiver receiver) {
+        if (secret.length == 0) {
+            throw new IllegalStateException("game.cluster.secret must be set when game.cluster.enabled=true");
+        }
+        this.receiver = receiver;
+    }
+
+    // Whether a request carried this cluster's secret; never with no secret set
+    public boolean authorized(String presented) {
+        return secret.length > 0 && presented != null
+            && MessageDigest.isEqual(secret, presented.trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void unbind(String address) {
+        this.receiver = null;
+    }
+
+    // A message that arrived over HTTP; false if no node is bound
+    public boolean deliver(byte[] message) {
+        Receiver current = receiver;
+        if (current == null) {
+            return false;
+        }
+        current.receive(message);
+        return true;
+    }
+
+    @Override
+    public void send(String address, byte[] message) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(address + MESSAGE_PATH))
+            .timeout(timeout)
+            .header("Content-Type", "application/octet-stream")
+            .header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(message))
+            .build();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException(address + " answered " + response.statusCode());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot reach " + address, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted sending to " + address, e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.game.numbergrid.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Nodes in one JVM calling each other directly: lets several ClusterNodes,
+// each with its own GameSessionStore, run side by side on one machine.
+// Addresses are any unique names (e.g. "mem://a").
+public class InMemoryClusterTransport implements ClusterTransport {
+
+    private final Map<String, Receiver> receivers = new ConcurrentHashMap<>();
+
+    @Override
+    public void bind(String address, Receiver receiver) {
+        receivers.put(address, receiver);
+    }
+
+    @Override
+    public void unbind(String address) {
+        receivers.remove(address);
+    }
+
+    @Override
+    public void send(String address, byte[] message) {
+        Receiver receiver = receivers.get(address);
+        if (receiver == null) {
+            throw new IllegalStateException("No node at " + address);
+        }
+        // Copy: the receiver must not see later changes to the sender's buffer
+        receiver.receive(message.clone());
+    }
+}
@@ -0,0 +1,95 @@
+package com.game.numbergrid.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.game.numbergrid.model.BoardView;
+
+import java.io.IOException;
+
+// Writes a board as the nested arrays the page expects ("grid": [[...]],
+// "hints": [[...]]). The values and hint bits are copied flat when the
+// response is built, on the game's actor, and nested only while writing, so
+// the reply matches its "version" however the board moves on meanwhile.
+final class BoardJson {
+
+    private BoardJson() {
+    }
+
+    static Values values(BoardView board) {
+        int cells = board.getCellCount();
+        byte[] values = new byte[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            values[cell] = (byte) board.getValue(cell);
+        }
+        return new Values(board.getRows(), board.getCols(), values);
+    }
+
+    static Hints hints(BoardView board) {
+        int cells = board.getCellCount();
+        long[] bits = new long[(cells + 63) >>> 6];
+        for (int cell = 0; cell < cells; cell++) {
+            if (board.isHinted(cell)) {
+                bits[cell >>> 6] |= 1L << cell;
+            }
+        }
+        return new Hints(board.getRows(), board.getCols(), bits);
+    }
+
+    @JsonSerialize(using = ValuesSerializer.class)
+    static final class Values {
+        final int rows;
+        final int cols;
+        final byte[] values; // row-major
+
+        Values(int rows, int cols, byte[] values) {
+            this.rows = rows;
+            this.cols = cols;
+            this.values = values;
+        }
+    }
+
+    @JsonSerialize(using = HintsSerializer.class)
+    static final class Hints {
+        final int rows;
+        final int cols;
+        final long[] bits; // cell i is bit i % 64 of word i / 64
+
+        Hints(int rows, int cols, long[] bits) {
+            this.rows = rows;
+            this.cols = cols;
+            this.bits = bits;
+        }
+    }
+
+    static final class ValuesSerializer extends JsonSerializer<Values> {
+        @Override
+        public void serialize(Values values, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray();
+            for (int row = 0, cell = 0; row < values.rows; row++) {
+                gen.writeStartArray();
+                for (int col = 0; col < values.cols; col++, cell++) {
+                    gen.writeNumber(values.values[cell]);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    static final class HintsSerializer extends JsonSerializer<Hints> {
+        @Override
+        public void serialize(Hints hints, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray();
+            for (int row = 0, cell = 0; row < hints.rows; row++) {
+                gen.writeStartArray();
+                for (int col = 0; col < hints.cols; col++, cell++) {
+                    gen.writeBoolean((hints.bits[cell >>> 6] & 1L << cell) != 0);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
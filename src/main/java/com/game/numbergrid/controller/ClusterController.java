@@ -0,0 +1,88 @@
+package com.game.numbergrid.controller;
+
+import com.game.numbergrid.cluster.ClusterNode;
+import com.game.numbergrid.cluster.HttpClusterTransport;
+import com.game.numbergrid.service.GameSessionStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Node-to-node messages and membership: /game/cluster/... Everything but
+// the status needs the cluster secret (see HttpClusterTransport).
+@Controller
+@RequestMapping("/game/cluster")
+public class ClusterController {
+
+    @Autowired
+    private ClusterNode node;
+
+    @Autowired
+    private HttpClusterTransport transport;
+
+    @Autowired
+    private GameSessionStore sessionStore;
+
+    @GetMapping
+    @ResponseBody
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", node.isEnabled());
+        status.put("self", node.getSelf());
+        status.put("members", node.getMembers());
+        status.put("games", sessionStore.size());
+        return status;
+    }
+
+    // Messages from HttpClusterTransport on other nodes
+    @PostMapping(value = "/message", consumes = "application/octet-stream")
+    @ResponseBody
+    public Map<String, Object> message(
+            @RequestBody byte[] body,
+            @RequestHeader(value = HttpClusterTransport.SECRET_HEADER, required = false) String secret) {
+        checkSecret(secret);
+        if (!transport.deliver(body)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Cluster not started");
+        }
+        return status();
+    }
+
+    // Hand off all games and leave (e.g. before a planned shutdown)
+    @PostMapping("/leave")
+    @ResponseBody
+    public Map<String, Object> leave(
+            @RequestHeader(value = HttpClusterTransport.SECRET_HEADER, required = false) String secret) {
+        checkEnabled();
+        checkSecret(secret);
+        node.leave();
+        return status();
+    }
+
+    // Drop a member that crashed and cannot leave by itself
+    @PostMapping("/remove")
+    @ResponseBody
+    public Map<String, Object> remove(
+            @RequestParam String member,
+            @RequestHeader(value = HttpClusterTransport.SECRET_HEADER, required = false) String secret) {
+        checkEnabled();
+        checkSecret(secret);
+        node.remove(member);
+        return status();
+    }
+
+    private void checkSecret(String secret) {
+        if (!transport.authorized(secret)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Missing or wrong cluster secret");
+        }
+    }
+
+    private void checkEnabled() {
+        if (!node.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Clustering is disabled");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.game.numbergrid.controller;
+
+import com.game.numbergrid.cluster.GameOwnership;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+// Sends requests for a game held by another node to that node: either
+// forwarded (this node relays the request and copies back the answer) or
+// redirected with a 307, per game.cluster.routing. Only requests naming a
+// gameId are routed; anything else is served here. A request that was
+// already waiting on a game when it was handed off is sent on the same way
+// (see GameController).
+@Component
+public class ClusterRouting implements HandlerInterceptor {
+
+    // Set on forwarded requests to the number of hops so far. A game on the
+    // move can take a request two hops (new owner, old owner, new owner);
+    // past MAX_HOPS the receiver serves it whatever it thinks, so nodes that
+    // briefly disagree on membership cannot loop.
+    static final String FORWARDED_HEADER = "X-Game-Forwarded";
+    static final int MAX_HOPS = 3;
+
+    @Autowired
+    private GameOwnership ownership;
+
+    private final boolean redirect;
+    private final Duration timeout;
+    private final HttpClient client;
+
+    public ClusterRouting(
+            @Value("${game.cluster.routing:forward}") String routing,
+            @Value("${game.cluster.timeout:5s}") Duration timeout) {
+        this.redirect = "redirect".equalsIgnoreCase(routing.trim());
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Component
+    static class Registration implements WebMvcConfigurer {
+
+        @Autowired
+        private ClusterRouting routing;
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(routing).addPathPatterns("/game/**").excludePathPatterns("/game/cluster/**");
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        String gameId = request.getParameter("gameId");
+        return gameId == null || gameId.isEmpty() || !reroute(gameId, request, response);
+    }
+
+    // Sends the request to the game's owner unless that is this node or the
+    // request has run out of hops. Also used for requests that were waiting
+    // on a game when it was handed off.
+    boolean reroute(String gameId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        int hops = hops(request);
+        if (ownership.isLocal(gameId) || hops >= MAX_HOPS) {
+            return false;
+        }
+        route(ownership.ownerOf(gameId), hops + 1, request, response);
+        return true;
+    }
+
+    private static int hops(HttpServletRequest request) {
+        String header = request.getHeader(FORWARDED_HEADER);
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(header.trim());
+        } catch (NumberFormatException e) {
+            return MAX_HOPS;
+        }
+    }
+
+    private void route(String owner, int hops, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (redirect) {
+            String query = request.getQueryString();
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader("Location", owner + request.getRequestURI() + (query == null ? "" : "?" + query));
+            return;
+        }
+        forward(owner, hops, request, response);
+    }
+
+    // All endpoints take plain parameters, so the request is rebuilt from
+    // them: as the query for GET, as a form body otherwise
+    private void forward(String owner, int hops, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String form = encodeParameters(request.getParameterMap());
+        boolean get = "GET".equals(request.getMethod());
+        String target = owner + request.getRequestURI() + (get && !form.isEmpty() ? "?" + form : "");
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(URI.create(target))
+            .timeout(timeout)
+            .header(FORWARDED_HEADER, Integer.toString(hops));
+        String accept = request.getHeader("Accept");
+        if (accept != null) {
+            forwarded.header("Accept", accept);
+        }
+        if (get) {
+            forwarded.GET();
+        } else {
+            forwarded.header("Content-Type", "application/x-www-form-urlencoded")
+                .method(request.getMethod(), HttpRequest.BodyPublishers.ofString(form));
+        }
+
+        HttpResponse<byte[]> answer;
+        try {
+            answer = client.send(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            ownerUnreachable(response);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ownerUnreachable(response);
+            return;
+        }
+        response.setStatus(answer.statusCode());
+        answer.headers().firstValue("Content-Type").ifPresent(response::setContentType);
+        response.getOutputStream().write(answer.body());
+    }
+
+    private static void ownerUnreachable(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.BAD_GATEWAY.value());
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"The node holding this game is unreachable\"}");
+    }
+
+    private static String encodeParameters(Map<String, String[]> parameters) {
+        StringBuilder form = new StringBuilder();
+        for (Map.Entry<String, String[]> entry : parameters.entrySet()) {
+            for (String value : entry.getValue()) {
+                if (form.length() > 0) {
+                    form.append('&');
+                }
+                form.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8))
+                    .append('=')
+                    .append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return form.toString();
+    }
+}
@@ -0,0 +1,157 @@
+package com.game.numbergrid.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.numbergrid.metrics.GameMetrics;
+import com.game.numbergrid.model.GameState;
+import jakarta.websocket.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Open WebSocket connections per game. After any change to a game, each of
+// its connections is pushed the cells changed since what it last received.
+@Component
+public class GameChannels {
+
+    // Pushes queued for a client that is not reading before they are replaced
+    // by a single full board
+    private static final int MAX_QUEUED = 32;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GameMetrics metrics;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    static final class Subscriber {
+        final String gameId;
+        final Session session;
+        Integer lastVersion; // only touched by the game's actor; null = send a full board
+        private final Queue<String> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(String gameId, Session session, Integer lastVersion) {
+            this.gameId = gameId;
+            this.session = session;
+            this.lastVersion = lastVersion;
+        }
+
+        // Async sends, one in flight per connection, so a slow client never
+        // holds up the game's actor
+        void send(String text) {
+            outbox.add(text);
+            queued.incrementAndGet();
+            drain();
+        }
+
+        boolean backedUp() {
+            return queued.get() >= MAX_QUEUED;
+        }
+
+        // Drops the pushes not yet handed to the socket
+        void dropQueued() {
+            while (outbox.poll() != null) {
+                queued.decrementAndGet();
+            }
+        }
+
+        private void drain() {
+            while (!outbox.isEmpty() && sending.compareAndSet(false, true)) {
+                String next = outbox.poll();
+                if (next == null) {
+                    sending.set(false);
+                    continue;
+                }
+                queued.decrementAndGet();
+                if (!session.isOpen()) {
+                    dropQueued();
+                    sending.set(false);
+                    return;
+                }
+                session.getAsyncRemote().sendText(next, result -> {
+                    sending.set(false);
+                    drain();
+                });
+                return;
+            }
+        }
+    }
+
+    Subscriber subscribe(String gameId, Session session, Integer since) {
+        Subscriber subscriber = new Subscriber(gameId, session, since);
+        subscribers.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        return subscriber;
+    }
+
+    void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.gameId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    // Call from the game's actor, after changing it
+    public void publish(GameState game) {
+        Set<Subscriber> watching = subscribers.get(game.getGameId());
+        if (watching == null) {
+            return;
+        }
+        for (Subscriber subscriber : watching) {
+            push(subscriber, game);
+        }
+    }
+
+    // Call from the game's actor. A client that has fallen behind gets its
+    // queued deltas replaced by one full board, so its backlog stays bounded.
+    void push(Subscriber subscriber, GameState game) {
+        long start = metrics.start();
+        Integer since = subscriber.lastVersion;
+        if (subscriber.backedUp()) {
+            subscriber.dropQueued();
+            since = null;
+        }
+        Map<String, Object> state = GameResponses.state(game, since);
+        subscriber.lastVersion = game.getBoard().getVersion();
+        try {
+            // Serialized here, on the actor, so the pushed board is consistent
+            String text = objectMapper.writeValueAsString(state);
+            metrics.stop(GameMetrics.Op.RESPONSE, start);
+            subscriber.send(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Open connections watching a game
+    List<Session> sessions(String gameId) {
+        Set<Subscriber> watching = subscribers.get(gameId);
+        List<Session> sessions = new ArrayList<>();
+        if (watching != null) {
+            for (Subscriber subscriber : watching) {
+                sessions.add(subscriber.session);
+            }
+        }
+        return sessions;
+    }
+
+    public int connectionCount() {
+        int count = 0;
+        for (Set<Subscriber> set : subscribers.values()) {
+            count += set.size();
+        }
+        return count;
+    }
+}
@@ -1,253 +1,460 @@
 package com.game.numbergrid.controller;
 
-import com.game.numbergrid.model.Block;
+import com.game.numbergrid.cluster.GameOwnership;
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.BoardVersion;
+import com.game.numbergrid.model.GameHistory;
 import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.model.HintPolicy;
 import com.game.numbergrid.service.GameService;
+import com.game.numbergrid.service.GameSessionStore;
+import com.game.numbergrid.service.ScoreSolver;
+import com.game.numbergrid.service.SolverPool;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
-import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequestMapping("/game")
 public class GameController {
     
+    // Upper limit on the solver's time budget per request
+    private static final long MAX_SOLVE_BUDGET_MS = 5000;
+    
     @Autowired
     private GameService gameService;
     
-    private Map<String, GameState> activeGames = new HashMap<>();
+    @Autowired
+    private GameSessionStore sessionStore;
+    
+    @Autowired
+    private GameChannels channels;
+
+    @Autowired
+    private GamePage gamePage;
+
+    @Autowired
+    private StaticAssets assets;
+
+    @Autowired
+    private SolverPool solverPool;
+
+    @Autowired
+    private GameOwnership ownership;
+
+    @Autowired
+    private ClusterRouting routing;
 
     @GetMapping("/start")
-    public String startGame(Model model) {
-        GameState game = gameService.createNewGame();
-        activeGames.put(game.getGameId(), game);
-        
-        // Convert grid to simple 2D array for Thymeleaf
-        int[][] gridArray = convertGridToArray(game.getGrid());
-        boolean[][] hintArray = convertHintToArray(game.getGrid());
+    public void startGame(
+            HttpServletResponse response,
+            @RequestParam(defaultValue = "" + GameState.DEFAULT_ROWS) int rows,
+            @RequestParam(defaultValue = "" + GameState.DEFAULT_COLS) int cols,
+            @RequestParam(required = false) Long seed) throws IOException {
+        GameState game = newGame(rows, cols, seed);
+        sessionStore.put(game);
         
-        model.addAttribute("gameId", game.getGameId());
-        model.addAttribute("grid", gridArray);
-        model.addAttribute("hints", hintArray);
-        model.addAttribute("score", game.getScore());
-        
-        return "game";
+        // No one else has the ID before this page arrives, so the new game
+        // can be read here rather than on its actor
+        Map<String, Object> state = GameResponses.state(game, null);
+        state.put("gameId", game.getGameId());
+        gamePage.write(state, response);
+    }
+
+    @GetMapping("/assets/{name:.+}")
+    public void asset(@PathVariable String name, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (!assets.write(name, request, response)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
     }
 
     @GetMapping("/api/state")
     @ResponseBody
-    public Map<String, Object> getGameState(@RequestParam(required = false) String gameId) {
-        Map<String, Object> response = new HashMap<>();
-        
+    public CompletableFuture<Object> getGameState(
+            @RequestParam(required = false) String gameId,
+            @RequestParam(defaultValue = "" + GameState.DEFAULT_ROWS) int rows,
+            @RequestParam(defaultValue = "" + GameState.DEFAULT_COLS) int cols,
+            @RequestParam(required = false) Long seed,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean binary = GameWire.accepts(accept);
         if (gameId == null || gameId.isEmpty()) {
             // Create a new game if no gameId provided
-            GameState newGame = gameService.createNewGame();
-            activeGames.put(newGame.getGameId(), newGame);
-            response.put("gameId", newGame.getGameId());
-            response.put("grid", convertGridToArray(newGame.getGrid()));
-            response.put("hints", convertHintToArray(newGame.getGrid()));
-            response.put("score", newGame.getScore());
-            response.put("messages", newGame.getMessages());
-            response.put("gameOver", newGame.isGameOver());
-        } else {
-            GameState game = activeGames.get(gameId);
-            if (game == null) {
-                response.put("error", "Game not found");
-                return response;
-            }
-            
-            response.put("gameId", game.getGameId());
-            response.put("grid", convertGridToArray(game.getGrid()));
-            response.put("hints", convertHintToArray(game.getGrid()));
-            response.put("score", game.getScore());
-            response.put("messages", game.getMessages());
-            response.put("gameOver", game.isGameOver());
+            GameState newGame = newGame(rows, cols, seed);
+            sessionStore.put(newGame);
+            gameId = newGame.getGameId();
         }
         
-        return response;
+        return orNotFoundBody(gameId, sessionStore.submit(gameId, game -> {
+            if (binary) {
+                return GameWire.state(game, null).withGameId(game.getGameId());
+            }
+            Map<String, Object> state = GameResponses.state(game, null);
+            state.put("gameId", game.getGameId());
+            return state;
+        }));
     }
 
     @PostMapping("/select")
     @ResponseBody
-    public Map<String, Object> selectBlock(
+    public CompletableFuture<Object> selectBlock(
             @RequestParam String gameId,
             @RequestParam int row,
-            @RequestParam int col) {
-        
-        Map<String, Object> response = new HashMap<>();
-        
-        GameState game = activeGames.get(gameId);
-        if (game == null) {
-            response.put("error", "Game not found");
-            return response;
-        }
-        
-        game = gameService.selectBlock(game, row, col);
-        activeGames.put(gameId, game);
-        
-        response.put("grid", convertGridToArray(game.getGrid()));
-        response.put("hints", convertHintToArray(game.getGrid()));
-        response.put("score", game.getScore());
-        response.put("messages", game.getMessages());
-        response.put("gameOver", game.isGameOver());
-        
-        return response;
+            @RequestParam int col,
+            @RequestParam(required = false) Integer since,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean binary = GameWire.accepts(accept);
+        return orNotFoundBody(gameId, sessionStore.submit(gameId, game -> {
+            gameService.selectBlock(game, row, col);
+            channels.publish(game);
+            return binary ? GameWire.state(game, since) : GameResponses.state(game, since);
+        }));
     }
 
     // SIMPLE WORKING ENDPOINT FOR MULTIPLE SELECTION
     @PostMapping("/select-multiple")
     @ResponseBody
-    public Map<String, Object> selectMultipleBlocks(
+    public CompletableFuture<Object> selectMultipleBlocks(
             @RequestParam String gameId,
-            @RequestParam String positions) { // Accept as comma-separated string
-        
+            @RequestParam String positions, // Accept as comma-separated string
+            @RequestParam(required = false) Integer since,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean binary = GameWire.accepts(accept);
         Map<String, Object> response = new HashMap<>();
         
-        GameState game = activeGames.get(gameId);
-        if (game == null) {
-            response.put("error", "Game not found");
-            return response;
-        }
-        
-        // Parse positions string like "1,2;3,4;5,6"
-        List<int[]> positionsList = new ArrayList<>();
-        if (positions != null && !positions.isEmpty()) {
-            String[] pairs = positions.split(";");
-            for (String pair : pairs) {
-                String[] coords = pair.split(",");
-                if (coords.length == 2) {
-                    try {
-                        int row = Integer.parseInt(coords[0].trim());
-                        int col = Integer.parseInt(coords[1].trim());
-                        positionsList.add(new int[]{row, col});
-                    } catch (NumberFormatException e) {
-                        response.put("error", "Invalid position format: " + pair);
-                        return response;
-                    }
+        // Parse positions string like "1,2;3,4;5,6" into (row, col) pairs
+        int[] rowCols = new int[positions == null ? 0 : positions.length() + 1];
+        int pairCount = 0;
+        int start = 0;
+        while (positions != null && start < positions.length()) {
+            int end = positions.indexOf(';', start);
+            if (end < 0) {
+                end = positions.length();
+            }
+            int comma = positions.indexOf(',', start);
+            // Pieces without exactly one comma are skipped
+            if (comma >= 0 && comma < end && positions.lastIndexOf(',', end - 1) == comma) {
+                try {
+                    rowCols[2 * pairCount] = parseInt(positions, start, comma);
+                    rowCols[2 * pairCount + 1] = parseInt(positions, comma + 1, end);
+                    pairCount++;
+                } catch (NumberFormatException e) {
+                    response.put("error", "Invalid position format: " + positions.substring(start, end));
+                    return CompletableFuture.<Object>completedFuture(response);
                 }
             }
+            start = end + 1;
         }
         
-        if (positionsList.isEmpty()) {
+        if (pairCount == 0) {
             response.put("error", "No positions provided");
-            return response;
+            return CompletableFuture.<Object>completedFuture(response);
         }
         
-        game = gameService.selectBlocks(game, positionsList);
-        activeGames.put(gameId, game);
-        
-        response.put("grid", convertGridToArray(game.getGrid()));
-        response.put("hints", convertHintToArray(game.getGrid()));
-        response.put("score", game.getScore());
-        response.put("messages", game.getMessages());
-        response.put("gameOver", game.isGameOver());
-        
-        return response;
+        int pairs = pairCount;
+        return orNotFoundBody(gameId, sessionStore.submit(gameId, game -> {
+            gameService.selectPositions(game, rowCols, pairs);
+            channels.publish(game);
+            return binary ? GameWire.state(game, since) : GameResponses.state(game, since);
+        }));
     }
 
     @PostMapping("/hint")
     @ResponseBody
-    public Map<String, Object> getHint(@RequestParam String gameId) {
-        Map<String, Object> response = new HashMap<>();
-        
-        GameState game = activeGames.get(gameId);
-        if (game == null) {
-            response.put("error", "Game not found");
-            return response;
-        }
-        
-        game = gameService.getHint(game);
+    public CompletableFuture<Object> getHint(
+            @RequestParam String gameId,
+            @RequestParam(required = false) String policy,
+            @RequestParam(required = false) Integer since,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        HintPolicy hintPolicy = HintPolicy.fromParam(policy, HintPolicy.NEAREST);
+        boolean binary = GameWire.accepts(accept);
         
-        response.put("grid", convertGridToArray(game.getGrid()));
-        response.put("hints", convertHintToArray(game.getGrid()));
-        response.put("messages", game.getMessages());
-        return response;
+        return orNotFoundBody(gameId, sessionStore.submit(gameId, game -> {
+            gameService.getHint(game, hintPolicy);
+            channels.publish(game);
+            
+            if (binary) {
+                return GameWire.board(game.getBoard(), since).withMessages(game.getMessages());
+            }
+            Map<String, Object> hint = new HashMap<>();
+            GameResponses.putBoard(hint, game.getBoard(), since);
+            hint.put("messages", new ArrayList<>(game.getMessages()));
+            return hint;
+        }));
     }
 
     @PostMapping("/clear-hint")
     @ResponseBody
-    public Map<String, Object> clearHint(@RequestParam String gameId) {
-        Map<String, Object> response = new HashMap<>();
-        
-        GameState game = activeGames.get(gameId);
-        if (game == null) {
-            response.put("error", "Game not found");
-            return response;
-        }
-        
-        game = gameService.clearHint(game);
-        
-        response.put("grid", convertGridToArray(game.getGrid()));
-        response.put("hints", convertHintToArray(game.getGrid()));
-        return response;
+    public CompletableFuture<Object> clearHint(
+            @RequestParam String gameId,
+            @RequestParam(required = false) Integer since,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean binary = GameWire.accepts(accept);
+        return orNotFoundBody(gameId, sessionStore.submit(gameId, game -> {
+            gameService.clearHint(game);
+            channels.publish(game);
+            
+            if (binary) {
+                return GameWire.board(game.getBoard(), since);
+            }
+            Map<String, Object> cleared = new HashMap<>();
+            GameResponses.putBoard(cleared, game.getBoard(), since);
+            return cleared;
+        }));
     }
 
     @PostMapping("/restart")
     @ResponseBody
-    public Map<String, Object> restartGame(@RequestParam String gameId) {
-        Map<String, Object> response = new HashMap<>();
-        
-        // Check if game exists
-        if (!activeGames.containsKey(gameId)) {
-            response.put("error", "Game not found");
-            return response;
-        }
-        
-        // Create a completely new game
-        GameState newGame = gameService.createNewGame();
-        
-        // Replace the existing game with the new one (same ID)
-        activeGames.put(gameId, newGame);
-        newGame.setGameId(gameId); // Keep the same game ID
-        
-        response.put("grid", convertGridToArray(newGame.getGrid()));
-        response.put("hints", convertHintToArray(newGame.getGrid()));
-        response.put("score", newGame.getScore());
-        response.put("messages", newGame.getMessages());
-        response.put("gameOver", newGame.isGameOver());
-        
-        return response;
+    public CompletableFuture<Object> restartGame(
+            @RequestParam String gameId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean binary = GameWire.accepts(accept);
+        // Create a completely new game of the same size and swap it in under the same ID
+        return orNotFoundBody(gameId, sessionStore.submit(gameId, oldGame -> {
+            Board oldBoard = oldGame.getBoard();
+            GameState newGame = gameService.createNewGame(oldBoard.getRows(), oldBoard.getCols());
+            // Old board versions must never match the new board
+            newGame.getBoard().continueVersionFrom(oldGame.getBoard());
+            sessionStore.replace(gameId, newGame);
+            channels.publish(newGame);
+            return binary ? GameWire.state(newGame, null) : GameResponses.state(newGame, null);
+        }));
     }
     
-    // Helper method to convert Block[][] to simple int[][]
-    private int[][] convertGridToArray(Block[][] grid) {
-        int[][] gridArray = new int[10][20];
-        for (int row = 0; row < 10; row++) {
-            for (int col = 0; col < 20; col++) {
-                if (grid[row][col] != null) {
-                    gridArray[row][col] = grid[row][col].getValue();
-                } else {
-                    gridArray[row][col] = 0;
-                }
+    @PostMapping("/undo")
+    @ResponseBody
+    public CompletableFuture<Object> undo(
+            @RequestParam String gameId,
+            @RequestParam(required = false) Integer since,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean binary = GameWire.accepts(accept);
+        return orNotFoundBody(gameId, sessionStore.submit(gameId, game -> {
+            gameService.undo(game);
+            channels.publish(game);
+            return binary ? GameWire.state(game, since) : GameResponses.state(game, since);
+        }));
+    }
+
+    @PostMapping("/redo")
+    @ResponseBody
+    public CompletableFuture<Object> redo(
+            @RequestParam String gameId,
+            @RequestParam(required = false) Integer since,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean binary = GameWire.accepts(accept);
+        return orNotFoundBody(gameId, sessionStore.submit(gameId, game -> {
+            gameService.redo(game);
+            channels.publish(game);
+            return binary ? GameWire.state(game, since) : GameResponses.state(game, since);
+        }));
+    }
+
+    // The board after 'step' valid moves (default: the current one), for
+    // replays and spectators. The actor only hands over an immutable version;
+    // the response is built from it afterwards, off the game's actor.
+    @GetMapping("/api/replay")
+    @ResponseBody
+    public CompletableFuture<Map<String, Object>> replay(
+            @RequestParam String gameId,
+            @RequestParam(required = false) Long step) {
+        return orNotFound(gameId, sessionStore.submit(gameId, game -> {
+            GameHistory history = game.getHistory();
+            Map<String, Object> replay = new HashMap<>();
+            BoardVersion version;
+            if (history == null) {
+                // Nothing played yet
+                version = BoardVersion.of(game.getBoard(), game.getScore(), game.isGameOver());
+                replay.put("step", 0L);
+                replay.put("firstStep", 0L);
+                replay.put("lastStep", 0L);
+            } else {
+                version = step == null ? history.current() : history.at(step);
+                replay.put("step", step == null ? history.getStep() : step);
+                replay.put("firstStep", history.getFirstStep());
+                replay.put("lastStep", history.getLastStep());
             }
+            replay.put("version", version);
+            return replay;
+        }).thenApply(replay -> {
+            if (replay == null) {
+                return null;
+            }
+            BoardVersion version = (BoardVersion) replay.remove("version");
+            if (version == null) {
+                replay.put("error", "Step " + replay.get("step") + " is not in the kept history");
+                return replay;
+            }
+            replay.put("rows", version.getRows());
+            replay.put("cols", version.getCols());
+            replay.put("grid", BoardJson.values(version));
+            replay.put("score", version.getScore());
+            replay.put("gameOver", version.isGameOver());
+            return replay;
+        }));
+    }
+    
+    // Highest-scoring plan for the rest of the board; with autoplay it is also played.
+    // maxCombo limits combo size (0 = no limit); budgetMs bounds the search.
+    @PostMapping("/solve")
+    @ResponseBody
+    public CompletableFuture<Map<String, Object>> solve(
+            @RequestParam String gameId,
+            @RequestParam(defaultValue = "0") int maxCombo,
+            @RequestParam(defaultValue = "200") long budgetMs,
+            @RequestParam(defaultValue = "false") boolean autoplay,
+            @RequestParam(required = false) Integer since) {
+        if (maxCombo != 0 && (maxCombo < 2 || maxCombo > ScoreSolver.MAX_SEARCH_COMBO)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "maxCombo must be 0 (no limit) or 2 to " + ScoreSolver.MAX_SEARCH_COMBO);
         }
-        return gridArray;
-    }
-    
-    // Helper method to convert hint flags to boolean[][]
-    private boolean[][] convertHintToArray(Block[][] grid) {
-        boolean[][] hintArray = new boolean[10][20];
-        for (int row = 0; row < 10; row++) {
-            for (int col = 0; col < 20; col++) {
-                if (grid[row][col] != null) {
-                    hintArray[row][col] = grid[row][col].isHinted();
-                } else {
-                    hintArray[row][col] = false;
+        long budget = Math.max(1, Math.min(budgetMs, MAX_SOLVE_BUDGET_MS));
+        
+        // Only the value counts are read on the game's actor; the search runs
+        // off it so other requests for the game are not held up
+        return sessionStore.submit(gameId, game -> game.isGameOver() ? new int[10] : game.getValueCounts().clone())
+            .thenCompose(counts -> {
+                if (counts == null) {
+                    return CompletableFuture.completedFuture(gameNotFound());
+                }
+                CompletableFuture<ScoreSolver.Plan> search =
+                    solverPool.submit(() -> gameService.solve(counts, maxCombo, budget));
+                if (search == null) {
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Solver busy, try again");
                 }
+                return search
+                    .thenCompose(plan -> orNotFound(gameId, sessionStore.submit(gameId, game -> {
+                        if (!game.isGameOver() && !Arrays.equals(counts, game.getValueCounts())) {
+                            Map<String, Object> changed = new HashMap<>();
+                            changed.put("error", "Board changed while solving, try again");
+                            return changed;
+                        }
+                        Board board = game.getBoard();
+                        List<List<int[]>> moves = gameService.planPositions(board, plan);
+                        Map<String, Object> response;
+                        if (autoplay) {
+                            gameService.autoPlay(game, moves);
+                            channels.publish(game);
+                            response = GameResponses.state(game, since);
+                        } else {
+                            response = new HashMap<>();
+                        }
+                        response.put("solution", solution(plan, moves, board));
+                        return response;
+                    })));
+            });
+    }
+    
+    // Moves as lists of cell indices (row * cols + col)
+    private static Map<String, Object> solution(ScoreSolver.Plan plan, List<List<int[]>> moves, Board board) {
+        List<int[]> cells = new ArrayList<>(moves.size());
+        for (List<int[]> positions : moves) {
+            int[] move = new int[positions.size()];
+            for (int i = 0; i < move.length; i++) {
+                move[i] = board.cellIndex(positions.get(i)[0], positions.get(i)[1]);
             }
+            cells.add(move);
         }
-        return hintArray;
+        Map<String, Object> solution = new HashMap<>();
+        solution.put("moves", cells);
+        solution.put("points", plan.getPoints());
+        solution.put("exact", plan.isExact());
+        solution.put("nodes", plan.getNodes());
+        return solution;
+    }
+    
+    // Session store size, hit rate and evictions
+    @GetMapping("/api/sessions")
+    @ResponseBody
+    public Map<String, Object> getSessionStats() {
+        Map<String, Object> stats = sessionStore.getStats();
+        stats.put("connections", channels.connectionCount());
+        return stats;
+    }
+    
+    // Integer.parseInt over s[begin, end) with surrounding whitespace ignored
+    private static int parseInt(String s, int begin, int end) {
+        while (begin < end && Character.isWhitespace(s.charAt(begin))) {
+            begin++;
+        }
+        while (end > begin && Character.isWhitespace(s.charAt(end - 1))) {
+            end--;
+        }
+        return Integer.parseInt(s, begin, end, 10);
+    }
+
+    // A given seed rebuilds that exact board; otherwise a fresh one
+    private GameState newGame(int rows, int cols, Long seed) {
+        try {
+            return seed == null
+                ? gameService.createNewGame(rows, cols)
+                : gameService.createNewGame(rows, cols, seed);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    // Handlers queue their work on the game's actor and return; the request
+    // thread is released until the game gets to it
+    private CompletableFuture<Map<String, Object>> orNotFound(
+            String gameId, CompletableFuture<Map<String, Object>> response) {
+        return response.thenApply(body -> body != null ? body : notFoundOrMoved(gameId));
+    }
+    
+    // Same, for handlers answering in JSON or, when the client accepts it, GameWire
+    private CompletableFuture<Object> orNotFoundBody(String gameId, CompletableFuture<?> response) {
+        return response.thenApply(body -> body != null ? body : notFoundOrMoved(gameId));
+    }
+    
+    // A game handed to another node while the request waited for it is
+    // answered by that node (see movedAway)
+    private Map<String, Object> notFoundOrMoved(String gameId) {
+        if (gameId != null && !ownership.isLocal(gameId)) {
+            throw new GameMovedException(gameId);
+        }
+        return gameNotFound();
+    }
+    
+    @ExceptionHandler(GameMovedException.class)
+    @ResponseBody
+    public Map<String, Object> movedAway(GameMovedException moved, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        return routing.reroute(moved.gameId, request, response) ? null : gameNotFound();
+    }
+    
+    static final class GameMovedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        final String gameId;
+        
+        GameMovedException(String gameId) {
+            super(null, null, false, false);
+            this.gameId = gameId;
+        }
+    }
+    
+    private Map<String, Object> gameNotFound() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "Game not found");
+        return response;
     }
     
     // Test endpoint
     @GetMapping("/test")
     @ResponseBody
     public String test() {
-        return "Enhanced Game Controller is working! Active games: " + activeGames.size();
+        return "Enhanced Game Controller is working! Active games: " + sessionStore.size();
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.game.numbergrid.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.numbergrid.metrics.GameMetrics;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// The game page. game.html has nothing per game except its initial state, so
+// it is rendered by Thymeleaf once, at startup, and kept as the bytes before
+// and after the state. Each /game/start writes those two byte arrays around
+// the state, serialized straight to the response as a JSON island that the
+// page's script reads instead of fetching /game/api/state.
+@Component
+class GamePage {
+
+    // Stands in for the state while the shell is rendered
+    private static final String STATE_MARKER = "@@GAME_STATE@@";
+
+    private final byte[] head;
+    private final byte[] tail;
+    private final ObjectMapper islandMapper;
+    private final GameMetrics metrics;
+
+    GamePage(ITemplateEngine templateEngine, StaticAssets assets, ObjectMapper objectMapper, GameMetrics metrics) {
+        Context context = new Context();
+        context.setVariable("assets", assets);
+        context.setVariable("state", STATE_MARKER);
+        String shell = templateEngine.process("game", context);
+        int marker = shell.indexOf(STATE_MARKER);
+        if (marker < 0 || shell.indexOf(STATE_MARKER, marker + 1) >= 0) {
+            throw new IllegalStateException("game.html must place ${state} exactly once");
+        }
+        this.head = shell.substring(0, marker).getBytes(StandardCharsets.UTF_8);
+        this.tail = shell.substring(marker + STATE_MARKER.length()).getBytes(StandardCharsets.UTF_8);
+
+        this.islandMapper = objectMapper.copy();
+        // The island sits inside <script>: no message may close it early
+        islandMapper.getFactory().setCharacterEscapes(new ScriptEscapes());
+        islandMapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.metrics = metrics;
+    }
+
+    void write(Map<String, Object> state, HttpServletResponse response) throws IOException {
+        response.setContentType("text/html;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        OutputStream out = response.getOutputStream();
+        out.write(head);
+        long start = metrics.start();
+        try {
+            islandMapper.writeValue(out, state);
+        } finally {
+            metrics.stop(GameMetrics.Op.RESPONSE, start);
+        }
+        out.write(tail);
+    }
+
+    // Standard JSON escaping plus '<', '>' and '&' as \\u escapes
+    private static final class ScriptEscapes extends CharacterEscapes {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] escapes;
+
+        ScriptEscapes() {
+            escapes = standardAsciiEscapesForJSON();
+            escapes['<'] = ESCAPE_STANDARD;
+            escapes['>'] = ESCAPE_STANDARD;
+            escapes['&'] = ESCAPE_STANDARD;
+        }
+
+        @Override
+        public int[] getEscapeCodesForAscii() {
+            return escapes;
+        }
+
+        @Override
+        public SerializableString getEscapeSequence(int ch) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.game.numbergrid.controller;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+// Response bodies shared by the HTTP endpoints and the WebSocket channel.
+// Must be called from the game's actor (inside sessionStore.submit).
+final class GameResponses {
+
+    private GameResponses() {
+    }
+
+    static Map<String, Object> state(GameState game, Integer since) {
+        Map<String, Object> response = new HashMap<>();
+        putBoard(response, game.getBoard(), since);
+        // As a string: JavaScript numbers cannot hold every 64-bit seed
+        response.put("seed", Long.toString(game.getSeed()));
+        response.put("score", game.getScore());
+        response.put("messages", new ArrayList<>(game.getMessages()));
+        response.put("gameOver", game.isGameOver());
+        return response;
+    }
+
+    // Puts either the cells changed since the client's version ("changes" as flat
+    // cell, value, flags triples) or, with no usable version, the full grid and hints.
+    // Everything is copied here, on the actor: Jackson writes the response
+    // after the action returns, when other moves may already have run.
+    static void putBoard(Map<String, Object> response, Board board, Integer since) {
+        response.put("version", board.getVersion());
+        int[] changedCells = since == null ? null : board.changedCellsSince(since);
+        if (changedCells == null) {
+            response.put("rows", board.getRows());
+            response.put("cols", board.getCols());
+            response.put("grid", BoardJson.values(board));
+            response.put("hints", BoardJson.hints(board));
+            return;
+        }
+        int[] changes = new int[changedCells.length * 3];
+        for (int i = 0; i < changedCells.length; i++) {
+            int cell = changedCells[i];
+            changes[i * 3] = cell;
+            changes[i * 3 + 1] = board.getValue(cell);
+            changes[i * 3 + 2] = board.getFlags(cell);
+        }
+        response.put("changes", changes);
+    }
+}
@@ -0,0 +1,228 @@
+package com.game.numbergrid.controller;
+
+import com.game.numbergrid.cluster.GameOwnership;
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.model.HintPolicy;
+import com.game.numbergrid.service.GameService;
+import com.game.numbergrid.service.GameSessionStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.ServletContext;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.ServerContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Consumer;
+
+// WebSocket channel per game: ws://host/game/ws?gameId=...&since=<version>
+//
+// Client -> server: binary frames holding one or more commands back to back,
+// so several drag gestures can be pipelined without waiting for replies:
+//   1 SELECT      varint count, then count varint cell indices (row * cols + col)
+//   2 HINT        1 byte policy (0 first, 1 nearest, 2 largest)
+//   3 CLEAR_HINT
+// Server -> client: JSON text pushes shaped like the HTTP responses, with
+// "changes" relative to the previous push (the first push is a full board).
+// In a cluster a game's socket must be on the node holding it; otherwise, or
+// when the game moves, the socket is closed with code 4000 and the owner's
+// address as the reason, and the client reconnects there.
+@Component
+public class GameSocket extends Endpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(GameSocket.class);
+
+    static final String PATH = "/game/ws";
+
+    private static final byte OP_SELECT = 1;
+    private static final byte OP_HINT = 2;
+    private static final byte OP_CLEAR_HINT = 3;
+
+    private static final String SUBSCRIBER = "subscriber";
+
+    private static final CloseReason.CloseCode MOVED = CloseReason.CloseCodes.getCloseCode(4000);
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private GameSessionStore sessionStore;
+
+    @Autowired
+    private GameChannels channels;
+
+    @Autowired
+    private GameOwnership ownership;
+
+    // Registers the Spring-managed endpoint with Tomcat's WebSocket container.
+    // Kept off the endpoint itself: Tomcat runs the endpoint's lifecycle
+    // annotations again on every connection.
+    @Component
+    static class Registration {
+
+        @Autowired
+        private GameSocket endpoint;
+
+        @Autowired
+        private ServletContext servletContext;
+
+        @Autowired
+        private GameChannels channels;
+
+        @Autowired
+        private GameOwnership ownership;
+
+        @PostConstruct
+        public void register() {
+            ownership.addMoveListener((gameId, owner) -> {
+                for (Session session : channels.sessions(gameId)) {
+                    close(session, MOVED, owner);
+                }
+            });
+
+            ServerContainer container = (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+            if (container == null) {
+                log.warn("No WebSocket container; {} is disabled", PATH);
+                return;
+            }
+            try {
+                container.addEndpoint(ServerEndpointConfig.Builder.create(GameSocket.class, PATH)
+                    .configurator(new ServerEndpointConfig.Configurator() {
+                        @Override
+                        public <T> T getEndpointInstance(Class<T> endpointClass) {
+                            return endpointClass.cast(endpoint);
+                        }
+                    })
+                    .build());
+            } catch (DeploymentException e) {
+                throw new IllegalStateException("Cannot register " + PATH, e);
+            }
+        }
+    }
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+        String gameId = param(session, "gameId");
+        String since = param(session, "since");
+        if (gameId == null) {
+            close(session, CloseReason.CloseCodes.CANNOT_ACCEPT, "Missing gameId");
+            return;
+        }
+        if (!ownership.isLocal(gameId)) {
+            close(session, MOVED, ownership.ownerOf(gameId));
+            return;
+        }
+        Integer sinceVersion = null;
+        try {
+            sinceVersion = since == null ? null : Integer.valueOf(since);
+        } catch (NumberFormatException e) {
+            // treat as no version: full board
+        }
+
+        GameChannels.Subscriber subscriber = channels.subscribe(gameId, session, sinceVersion);
+        session.getUserProperties().put(SUBSCRIBER, subscriber);
+        session.addMessageHandler(ByteBuffer.class, frame -> onFrame(session, gameId, frame));
+        sessionStore.submit(gameId, game -> {
+            channels.push(subscriber, game);
+            return Boolean.TRUE;
+        }).thenAccept(found -> {
+            if (found == null) {
+                close(session, CloseReason.CloseCodes.CANNOT_ACCEPT, "Game not found");
+            }
+        });
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        Object subscriber = session.getUserProperties().get(SUBSCRIBER);
+        if (subscriber != null) {
+            channels.unsubscribe((GameChannels.Subscriber) subscriber);
+        }
+    }
+
+    // Commands are queued on the game's actor in frame order; this thread
+    // never waits for them
+    private void onFrame(Session session, String gameId, ByteBuffer frame) {
+        try {
+            while (frame.hasRemaining()) {
+                byte op = frame.get();
+                Consumer<GameState> command;
+                switch (op) {
+                    case OP_SELECT:
+                        int[] cells = readCells(frame);
+                        command = game -> gameService.selectCells(game, cells, cells.length);
+                        break;
+                    case OP_HINT:
+                        HintPolicy policy = HintPolicy.values()[Math.floorMod(frame.get(), HintPolicy.values().length)];
+                        command = game -> gameService.getHint(game, policy);
+                        break;
+                    case OP_CLEAR_HINT:
+                        command = game -> gameService.clearHint(game);
+                        break;
+                    default:
+                        close(session, CloseReason.CloseCodes.CANNOT_ACCEPT, "Unknown command " + op);
+                        return;
+                }
+                sessionStore.submit(gameId, game -> {
+                    command.accept(game);
+                    channels.publish(game);
+                    return Boolean.TRUE;
+                }).thenAccept(found -> {
+                    if (found == null) {
+                        close(session, CloseReason.CloseCodes.GOING_AWAY, "Game not found");
+                    }
+                });
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            close(session, CloseReason.CloseCodes.CANNOT_ACCEPT, "Malformed frame");
+        }
+    }
+
+    private static int[] readCells(ByteBuffer frame) {
+        int count = readVarint(frame);
+        if (count > frame.remaining()) {
+            throw new IllegalArgumentException("count " + count);
+        }
+        int[] cells = new int[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = readVarint(frame);
+        }
+        return cells;
+    }
+
+    // Unsigned LEB128, at most 5 bytes
+    private static int readVarint(ByteBuffer frame) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = frame.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint too long");
+    }
+
+    private static String param(Session session, String name) {
+        List<String> values = session.getRequestParameterMap().get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static void close(Session session, CloseReason.CloseCode code, String reason) {
+        try {
+            session.close(new CloseReason(code, reason));
+        } catch (IOException e) {
+            log.debug("Closing WebSocket failed", e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.game.numbergrid.controller;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Compact binary form of the JSON game responses, for clients that send
+// "Accept: application/x-numbergrid". A full 10x20 board is 100 bytes of
+// values plus two 25-byte bitmaps, against about 1.5 KB of JSON.
+//
+//   byte    format (1)
+//   varint  fields: FULL_BOARD | SCORE | GAME_OVER | MESSAGES | GAME_ID
+//   varint  board version
+//   FULL_BOARD: varint rows, varint cols, then
+//               values, 4 bits per cell (even cells in the low nibble),
+//               hinted cells and selected cells, 1 bit per cell (cell i is bit i % 8 of byte i / 8)
+//   otherwise:  varint count, then per changed cell: varint cell, byte value | flags << 4
+//   SCORE:      varint score, string seed
+//   MESSAGES:   varint count, then each message as a string
+//   GAME_ID:    string
+//
+// Strings are a varint byte length followed by UTF-8. Varints are unsigned
+// LEB128 (7 bits per byte, low bits first).
+final class GameWire {
+
+    static final String MEDIA_TYPE = "application/x-numbergrid";
+
+    static final int FULL_BOARD = 1;
+    static final int SCORE = 2;
+    static final int GAME_OVER = 4;
+    static final int MESSAGES = 8;
+    static final int GAME_ID = 16;
+
+    private static final int FORMAT = 1;
+
+    private GameWire() {
+    }
+
+    static boolean accepts(String accept) {
+        return accept != null && accept.contains(MEDIA_TYPE);
+    }
+
+    // Same content as GameResponses.state. Must be called from the game's actor.
+    static Frame state(GameState game, Integer since) {
+        Frame frame = board(game.getBoard(), since);
+        frame.fields |= SCORE | MESSAGES | (game.isGameOver() ? GAME_OVER : 0);
+        frame.score = game.getScore();
+        frame.seed = utf8(Long.toString(game.getSeed()));
+        frame.messages = messages(game.getMessages());
+        return frame;
+    }
+
+    // Same content as GameResponses.putBoard: the cells changed since the
+    // client's version or, with no usable version, the whole board. A whole
+    // board is packed here, on the actor, so later moves cannot tear it.
+    static Frame board(Board board, Integer since) {
+        Frame frame = new Frame(board);
+        int[] changedCells = since == null ? null : board.changedCellsSince(since);
+        if (changedCells == null) {
+            frame.fields = FULL_BOARD;
+            frame.values = packValues(board);
+            frame.hinted = packBits(board, Board.FLAG_HINTED);
+            frame.selected = packBits(board, Board.FLAG_SELECTED);
+            return frame;
+        }
+        frame.changes = new int[changedCells.length * 2];
+        for (int i = 0; i < changedCells.length; i++) {
+            int cell = changedCells[i];
+            frame.changes[i * 2] = cell;
+            frame.changes[i * 2 + 1] = board.getValue(cell) | board.getFlags(cell) << 4;
+        }
+        return frame;
+    }
+
+    static final class Frame {
+        final int rows;
+        final int cols;
+        final int version;
+        int fields;
+        byte[] values;   // FULL_BOARD: two cells a byte
+        byte[] hinted;   // FULL_BOARD: one cell a bit
+        byte[] selected;
+        int[] changes; // cell, value | flags << 4
+        long score;
+        byte[] seed;
+        byte[][] messages;
+        byte[] gameId;
+
+        Frame(Board board) {
+            this.rows = board.getRows();
+            this.cols = board.getCols();
+            this.version = board.getVersion();
+        }
+
+        Frame withMessages(List<String> messages) {
+            fields |= MESSAGES;
+            this.messages = GameWire.messages(messages);
+            return this;
+        }
+
+        Frame withGameId(String gameId) {
+            fields |= GAME_ID;
+            this.gameId = utf8(gameId);
+            return this;
+        }
+
+        // Exact encoded length, so the response can carry a Content-Length
+        long size() {
+            long size = 1 + varintSize(fields) + varintSize(version);
+            if ((fields & FULL_BOARD) != 0) {
+                size += varintSize(rows) + varintSize(cols) + values.length + hinted.length + selected.length;
+            } else {
+                size += varintSize(changes.length / 2);
+                for (int i = 0; i < changes.length; i += 2) {
+                    size += varintSize(changes[i]) + 1;
+                }
+            }
+            if ((fields & SCORE) != 0) {
+                size += varintSize(score) + stringSize(seed);
+            }
+            if ((fields & MESSAGES) != 0) {
+                size += varintSize(messages.length);
+                for (byte[] message : messages) {
+                    size += stringSize(message);
+                }
+            }
+            if ((fields & GAME_ID) != 0) {
+                size += stringSize(gameId);
+            }
+            return size;
+        }
+    }
+
+    // Encodes through a small buffer straight into 'out'
+    static void write(Frame frame, OutputStream out) throws IOException {
+        Writer writer = new Writer(out);
+        writer.put(FORMAT);
+        writer.varint(frame.fields);
+        writer.varint(frame.version);
+        if ((frame.fields & FULL_BOARD) != 0) {
+            writer.varint(frame.rows);
+            writer.varint(frame.cols);
+            writer.bytes(frame.values);
+            writer.bytes(frame.hinted);
+            writer.bytes(frame.selected);
+        } else {
+            writer.varint(frame.changes.length / 2);
+            for (int i = 0; i < frame.changes.length; i += 2) {
+                writer.varint(frame.changes[i]);
+                writer.put(frame.changes[i + 1]);
+            }
+        }
+        if ((frame.fields & SCORE) != 0) {
+            writer.varint(frame.score);
+            writer.string(frame.seed);
+        }
+        if ((frame.fields & MESSAGES) != 0) {
+            writer.varint(frame.messages.length);
+            for (byte[] message : frame.messages) {
+                writer.string(message);
+            }
+        }
+        if ((frame.fields & GAME_ID) != 0) {
+            writer.string(frame.gameId);
+        }
+        writer.flush();
+    }
+
+    private static byte[] packValues(Board board) {
+        byte[] packed = new byte[Board.packedSize(board.getCellCount())];
+        board.packValues(ByteBuffer.wrap(packed));
+        return packed;
+    }
+
+    private static byte[] packBits(Board board, int flag) {
+        int cells = board.getCellCount();
+        byte[] bits = new byte[(cells + 7) / 8];
+        for (int cell = 0; cell < cells; cell++) {
+            if ((board.getFlags(cell) & flag) != 0) {
+                bits[cell / 8] |= (byte) (1 << (cell % 8));
+            }
+        }
+        return bits;
+    }
+
+    private static byte[][] messages(List<String> messages) {
+        byte[][] encoded = new byte[messages.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = utf8(messages.get(i));
+        }
+        return encoded;
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static long stringSize(byte[] bytes) {
+        return varintSize(bytes.length) + bytes.length;
+    }
+
+    private static final class Writer {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void put(int b) throws IOException {
+            if (position == buffer.length) {
+                flush();
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        void varint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                put((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            put((int) value);
+        }
+
+        void string(byte[] bytes) throws IOException {
+            varint(bytes.length);
+            bytes(bytes);
+        }
+
+        void bytes(byte[] bytes) throws IOException {
+            flush();
+            out.write(bytes);
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.game.numbergrid.controller;
+
+import com.game.numbergrid.metrics.GameMetrics;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+// Writes GameWire frames (application/x-numbergrid) straight to the response
+// body; timed as the "response" operation like the JSON converter
+@Component
+class GameWireConverter extends AbstractHttpMessageConverter<GameWire.Frame> {
+
+    private final GameMetrics metrics;
+
+    GameWireConverter(GameMetrics metrics) {
+        super(MediaType.parseMediaType(GameWire.MEDIA_TYPE));
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return GameWire.Frame.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected GameWire.Frame readInternal(Class<? extends GameWire.Frame> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Game frames are only sent, not received", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(GameWire.Frame frame, MediaType contentType) {
+        return frame.size();
+    }
+
+    @Override
+    protected void writeInternal(GameWire.Frame frame, HttpOutputMessage outputMessage) throws IOException {
+        long start = metrics.start();
+        try {
+            GameWire.write(frame, outputMessage.getBody());
+        } finally {
+            metrics.stop(GameMetrics.Op.RESPONSE, start);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.game.numbergrid.controller;
+
+import com.game.numbergrid.leaderboard.Leaderboard;
+import com.game.numbergrid.leaderboard.LeaderboardEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Leaderboard queries. window = all (default), daily (date=YYYY-MM-DD, default
+// today, UTC) or size (rows, cols).
+@Controller
+@RequestMapping("/game")
+public class LeaderboardController {
+
+    @Autowired
+    private Leaderboard leaderboard;
+
+    // Top entries: /game/api/leaderboard?window=daily&limit=10
+    @GetMapping("/api/leaderboard")
+    @ResponseBody
+    public Map<String, Object> top(
+            @RequestParam(defaultValue = "all") String window,
+            @RequestParam(required = false) String date,
+            @RequestParam(defaultValue = "0") int rows,
+            @RequestParam(defaultValue = "0") int cols,
+            @RequestParam(defaultValue = "10") int limit) {
+        Leaderboard.Window which = window(window);
+        LocalDate day = date(date);
+        Map<String, Object> response = describe(which, day, rows, cols);
+
+        List<Map<String, Object>> entries = new ArrayList<>();
+        long rank = 0;
+        long lastScore = Long.MIN_VALUE;
+        List<LeaderboardEntry> top = leaderboard.top(which, day, rows, cols, limit);
+        for (int i = 0; i < top.size(); i++) {
+            LeaderboardEntry entry = top.get(i);
+            if (entry.getScore() != lastScore) {
+                rank = i + 1; // equal scores share a rank
+                lastScore = entry.getScore();
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("rank", rank);
+            row.put("gameId", entry.getGameId());
+            row.put("score", entry.getScore());
+            row.put("rows", entry.getRows());
+            row.put("cols", entry.getCols());
+            row.put("finishedAt", entry.getFinishedAt());
+            entries.add(row);
+        }
+        response.put("entries", entries);
+        return response;
+    }
+
+    // Rank of a finished game (gameId) or of a score (score) in a window
+    @GetMapping("/api/leaderboard/rank")
+    @ResponseBody
+    public Map<String, Object> rank(
+            @RequestParam(required = false) String gameId,
+            @RequestParam(required = false) Long score,
+            @RequestParam(defaultValue = "all") String window,
+            @RequestParam(required = false) String date,
+            @RequestParam(defaultValue = "0") int rows,
+            @RequestParam(defaultValue = "0") int cols) {
+        Leaderboard.Window which = window(window);
+        LocalDate day = date(date);
+        if (gameId != null) {
+            LeaderboardEntry entry = leaderboard.entryOf(gameId);
+            if (entry == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("error", "Game not on the leaderboard (not finished yet?)");
+                return response;
+            }
+            score = entry.getScore();
+            if (which == Leaderboard.Window.SIZE && rows == 0 && cols == 0) {
+                rows = entry.getRows();
+                cols = entry.getCols();
+            }
+        } else if (score == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Give gameId or score");
+        }
+        Map<String, Object> response = describe(which, day, rows, cols);
+        response.put("score", score);
+        response.put("rank", leaderboard.rankOf(score, which, day, rows, cols));
+        return response;
+    }
+
+    private Map<String, Object> describe(Leaderboard.Window which, LocalDate day, int rows, int cols) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("window", which.name().toLowerCase(Locale.ROOT));
+        if (which == Leaderboard.Window.DAILY) {
+            response.put("date", (day != null ? day : leaderboard.today()).toString());
+        } else if (which == Leaderboard.Window.SIZE) {
+            response.put("rows", rows);
+            response.put("cols", cols);
+        }
+        response.put("total", leaderboard.size(which, day, rows, cols));
+        return response;
+    }
+
+    private static Leaderboard.Window window(String window) {
+        try {
+            return Leaderboard.Window.valueOf(window.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "window must be all, daily or size");
+        }
+    }
+
+    private static LocalDate date(String date) {
+        try {
+            return date == null || date.isEmpty() ? null : LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "date must be YYYY-MM-DD");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.game.numbergrid.controller;
+
+import com.game.numbergrid.leaderboard.Leaderboard;
+import com.game.numbergrid.metrics.GameMetrics;
+import com.game.numbergrid.service.GameSessionStore;
+import com.game.numbergrid.service.HibernatedGames;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+// Prometheus scrape endpoint: GET /game/api/metrics
+@Controller
+@RequestMapping("/game")
+public class MetricsController {
+
+    private static final String PROMETHEUS_TEXT = "text/plain;version=0.0.4;charset=utf-8";
+
+    @Autowired
+    private GameMetrics metrics;
+
+    @Autowired
+    private GameSessionStore sessionStore;
+
+    @Autowired
+    private HibernatedGames hibernatedGames;
+
+    @Autowired
+    private GameChannels channels;
+
+    @Autowired
+    private Leaderboard leaderboard;
+
+    @PostConstruct
+    public void registerGauges() {
+        metrics.gauge("game_sessions_active", "Games held in memory", sessionStore::size);
+        metrics.gauge("game_board_bytes", "Approximate heap used by the boards of active games",
+            sessionStore::boardBytes);
+        metrics.gauge("game_sessions_hibernated", "Idle games held off the heap", hibernatedGames::count);
+        metrics.gauge("game_offheap_bytes", "Direct memory allocated for hibernated games",
+            hibernatedGames::slabBytes);
+        metrics.gauge("game_websocket_connections", "Open WebSocket connections", channels::connectionCount);
+        metrics.gauge("game_leaderboard_entries", "Games finished in the kept days, remembered for their best score",
+            leaderboard::entryCount);
+    }
+
+    @GetMapping(value = "/api/metrics", produces = PROMETHEUS_TEXT)
+    @ResponseBody
+    public String scrape() {
+        if (!metrics.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Metrics are disabled");
+        }
+        StringBuilder out = new StringBuilder(8192);
+        metrics.writePrometheus(out);
+        return out.toString();
+    }
+}
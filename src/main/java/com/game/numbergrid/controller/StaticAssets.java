@@ -0,0 +1,123 @@
+package com.game.numbergrid.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// The page's stylesheet and script (classpath:assets), loaded and gzipped
+// once at startup and served from memory. Each encoding has a strong ETag
+// derived from the content, and page URLs carry the content hash, so a
+// browser fetches an asset once per release and revalidates it for free.
+@Component
+public class StaticAssets {
+
+    static final String PATH = "/game/assets/";
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+        "game.css", "text/css;charset=UTF-8",
+        "game.js", "text/javascript;charset=UTF-8");
+
+    private final Map<String, Asset> assets;
+
+    public StaticAssets() {
+        Map<String, Asset> loaded = new HashMap<>();
+        CONTENT_TYPES.forEach((name, contentType) -> loaded.put(name, load(name, contentType)));
+        this.assets = Map.copyOf(loaded);
+    }
+
+    static final class Asset {
+        final String contentType;
+        final String hash;
+        final byte[] plain;
+        final byte[] gzipped; // null when gzip does not make it smaller
+
+        Asset(String contentType, String hash, byte[] plain, byte[] gzipped) {
+            this.contentType = contentType;
+            this.hash = hash;
+            this.plain = plain;
+            this.gzipped = gzipped;
+        }
+    }
+
+    // URL of an asset for the page; changes whenever its content does
+    public String url(String name) {
+        Asset asset = assets.get(name);
+        if (asset == null) {
+            throw new IllegalArgumentException("Unknown asset " + name);
+        }
+        return PATH + name + "?v=" + asset.hash;
+    }
+
+    // Writes the asset (gzipped when the client accepts it), or 304 when the
+    // client's copy is current; false if there is no such asset
+    boolean write(String name, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Asset asset = assets.get(name);
+        if (asset == null) {
+            return false;
+        }
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        boolean gzip = asset.gzipped != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        // Each encoding is a different byte stream, so each gets its own strong tag
+        String etag = "\"" + asset.hash + (gzip ? "-gz" : "") + "\"";
+
+        response.setHeader("ETag", etag);
+        response.setHeader("Vary", "Accept-Encoding");
+        // Versioned URLs never change content; anything else is revalidated
+        response.setHeader("Cache-Control", asset.hash.equals(request.getParameter("v"))
+            ? "public, max-age=31536000, immutable" : "no-cache");
+        if (matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        byte[] body = gzip ? asset.gzipped : asset.plain;
+        response.setContentType(asset.contentType);
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        return true;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Asset load(String name, String contentType) {
+        try (InputStream in = new ClassPathResource("assets/" + name).getInputStream()) {
+            byte[] plain = in.readAllBytes();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(plain);
+            }
+            byte[] gzipped = buffer.size() < plain.length ? buffer.toByteArray() : null;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(plain);
+            return new Asset(contentType, HexFormat.of().formatHex(digest, 0, 10), plain, gzipped);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load asset " + name, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.game.numbergrid.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.numbergrid.metrics.GameMetrics;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+// Replaces Boot's JSON converter so that writing response bodies (where the
+// board grids are actually serialized) is timed as the "response" operation
+@Component
+class TimedJsonConverter extends MappingJackson2HttpMessageConverter {
+
+    private final GameMetrics metrics;
+
+    TimedJsonConverter(ObjectMapper objectMapper, GameMetrics metrics) {
+        super(objectMapper);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = metrics.start();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            metrics.stop(GameMetrics.Op.RESPONSE, start);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.game.numbergrid.leaderboard;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Final scores of finished games, ranked over all time, per UTC day and per
+// board size. A game that finishes again (after undo or restart) keeps its
+// best score. Games are remembered for that as long as the daily windows
+// are (game.leaderboard.days); one that finishes again after that is ranked
+// as a new entry.
+//
+// The move path only appends to a lock-free queue; one ingest thread drains
+// it into the windows, so each window has a single writer and readers never
+// wait for it. Results show up within a few microseconds of the game ending.
+@Component
+public class Leaderboard {
+
+    public enum Window {
+        ALL, DAILY, SIZE
+    }
+
+    // Most entries a top-K query returns
+    public static final int MAX_LIMIT = 100;
+
+    // Entries kept per window for top-K. Removed entries are not replaced
+    // (see ScoreWindow), so this leaves a margin of 900 removals above
+    // MAX_LIMIT before a page can come up short.
+    private static final int TOP_CAPACITY = 1000;
+
+    private final boolean enabled;
+    private final int keptDays;
+    private final int maxSizeWindows;
+    private final Clock clock;
+
+    private final Queue<LeaderboardEntry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final ExecutorService ingest;
+
+    // Written only by the ingest thread
+    private final Map<String, LeaderboardEntry> bestByGame = new ConcurrentHashMap<>();
+    private final ScoreWindow allTime = new ScoreWindow(TOP_CAPACITY);
+    private final Map<Long, ScoreWindow> byDay = new ConcurrentHashMap<>();
+    private final Map<String, ScoreWindow> bySize = new ConcurrentHashMap<>();
+    private long newestDay = Long.MIN_VALUE;
+
+    @Autowired
+    public Leaderboard(
+            @Value("${game.leaderboard.enabled:true}") boolean enabled,
+            @Value("${game.leaderboard.days:7}") int keptDays,
+            @Value("${game.leaderboard.max-size-windows:64}") int maxSizeWindows) {
+        this(enabled, keptDays, maxSizeWindows, Clock.systemUTC());
+    }
+
+    // Built by hand (benchmarks, tests with a fixed clock)
+    public Leaderboard(boolean enabled, int keptDays, int maxSizeWindows, Clock clock) {
+        this.enabled = enabled;
+        this.keptDays = keptDays;
+        this.maxSizeWindows = maxSizeWindows;
+        this.clock = clock;
+        this.ingest = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        ingest.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Call when a game ends; returns at once
+    public void gameOver(GameState game) {
+        if (!enabled) {
+            return;
+        }
+        Board board = game.getBoard();
+        long now = clock.millis();
+        submit(new LeaderboardEntry(game.getGameId(), game.getScore(), board.getRows(), board.getCols(),
+            now, Math.floorDiv(now, 86_400_000L)));
+    }
+
+    public void submit(LeaderboardEntry entry) {
+        pending.add(entry);
+        if (draining.compareAndSet(false, true)) {
+            ingest.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            LeaderboardEntry entry;
+            while ((entry = pending.poll()) != null) {
+                record(entry);
+            }
+            draining.set(false);
+            // An entry added after the last poll but before the flag was cleared
+            if (pending.isEmpty() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void record(LeaderboardEntry entry) {
+        LeaderboardEntry previous = bestByGame.get(entry.getGameId());
+        if (previous != null) {
+            if (previous.getScore() >= entry.getScore()) {
+                return;
+            }
+            allTime.remove(previous);
+            ScoreWindow day = byDay.get(previous.getDay());
+            if (day != null) {
+                day.remove(previous);
+            }
+            ScoreWindow size = bySize.get(previous.sizeKey());
+            if (size != null) {
+                size.remove(previous);
+            }
+        }
+        bestByGame.put(entry.getGameId(), entry);
+
+        allTime.add(entry);
+        // Old days are dropped from the daily windows and from bestByGame
+        // once a day (all-time keeps their entries)
+        if (entry.getDay() > newestDay) {
+            newestDay = entry.getDay();
+            long expired = newestDay - keptDays;
+            byDay.keySet().removeIf(day -> day <= expired);
+            bestByGame.values().removeIf(best -> best.getDay() <= expired);
+        }
+        if (entry.getDay() > newestDay - keptDays) {
+            byDay.computeIfAbsent(entry.getDay(), d -> new ScoreWindow(TOP_CAPACITY)).add(entry);
+        }
+
+        ScoreWindow size = bySize.get(entry.sizeKey());
+        if (size == null && bySize.size() < maxSizeWindows) {
+            size = new ScoreWindow(TOP_CAPACITY);
+            bySize.put(entry.sizeKey(), size);
+        }
+        if (size != null) {
+            size.add(entry);
+        }
+    }
+
+    // Best entries of a window, highest first. 'date' picks the day for
+    // DAILY (null = today); 'rows' x 'cols' picks the board size for SIZE.
+    public List<LeaderboardEntry> top(Window window, LocalDate date, int rows, int cols, int limit) {
+        ScoreWindow scores = window(window, date, rows, cols);
+        return scores == null ? List.of() : scores.top(Math.min(Math.max(limit, 0), MAX_LIMIT));
+    }
+
+    // 1 + the number of higher scores in the window; 1 for an empty window
+    public long rankOf(long score, Window window, LocalDate date, int rows, int cols) {
+        ScoreWindow scores = window(window, date, rows, cols);
+        return scores == null ? 1 : scores.rankOf(score);
+    }
+
+    public long size(Window window, LocalDate date, int rows, int cols) {
+        ScoreWindow scores = window(window, date, rows, cols);
+        return scores == null ? 0 : scores.size();
+    }
+
+    // The recorded (best) entry of a game, or null if it has not finished
+    public LeaderboardEntry entryOf(String gameId) {
+        return bestByGame.get(gameId);
+    }
+
+    public long entryCount() {
+        return bestByGame.size();
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(clock.withZone(ZoneOffset.UTC));
+    }
+
+    private ScoreWindow window(Window window, LocalDate date, int rows, int cols) {
+        switch (window) {
+            case DAILY:
+                return byDay.get((date != null ? date : today()).toEpochDay());
+            case SIZE:
+                return bySize.get(rows + "x" + cols);
+            default:
+                return allTime;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.game.numbergrid.leaderboard;
+
+import java.time.LocalDate;
+
+// A finished game's final score. Immutable.
+public final class LeaderboardEntry {
+
+    private final String gameId;
+    private final long score;
+    private final int rows;
+    private final int cols;
+    private final long finishedAt; // epoch millis
+    private final long day;        // UTC epoch day of finishedAt
+
+    public LeaderboardEntry(String gameId, long score, int rows, int cols, long finishedAt, long day) {
+        this.gameId = gameId;
+        this.score = score;
+        this.rows = rows;
+        this.cols = cols;
+        this.finishedAt = finishedAt;
+        this.day = day;
+    }
+
+    public String getGameId() { return gameId; }
+    public long getScore() { return score; }
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public long getFinishedAt() { return finishedAt; }
+    public String getDate() { return LocalDate.ofEpochDay(day).toString(); }
+
+    long getDay() { return day; }
+
+    String sizeKey() {
+        return rows + "x" + cols;
+    }
+}
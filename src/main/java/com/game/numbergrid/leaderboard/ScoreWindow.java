@@ -0,0 +1,148 @@
+package com.game.numbergrid.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// One ranked set of scores (all time, one day, one board size).
+//
+// Ranks come from a Fenwick tree of counts over log-linear score buckets
+// (128 per power of two), which gives the number of scores in higher buckets
+// in ~12 steps, plus a skip list of the distinct scores with their counts,
+// which settles the order inside the score's own bucket. The best entries
+// are kept in a capped skip list for top-K.
+//
+// Only counts are kept for the rest, so an entry pushed out of the capped
+// list cannot come back. The list therefore only takes entries ranked above
+// the best one it ever pushed out: it is always the exact top of the window,
+// and removals can leave it shorter than its capacity, never out of order.
+//
+// One writer (the leaderboard's ingest thread); any number of readers.
+final class ScoreWindow {
+
+    private static final int SUB_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    // Highest score first; ties go to whoever finished first
+    static final Comparator<LeaderboardEntry> RANKING = Comparator
+        .comparingLong(LeaderboardEntry::getScore).reversed()
+        .thenComparingLong(LeaderboardEntry::getFinishedAt)
+        .thenComparing(LeaderboardEntry::getGameId);
+
+    private final int topCapacity;
+    private final AtomicLongArray tree = new AtomicLongArray(BUCKETS + 1); // Fenwick, 1-based
+    private final ConcurrentSkipListMap<Long, LongAdder> counts = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<LeaderboardEntry> top = new ConcurrentSkipListSet<>(RANKING);
+    private final AtomicInteger topSize = new AtomicInteger(); // the set's size() is O(n)
+    private LeaderboardEntry cutoff; // best entry pushed out of top, null if none; writer only
+    private final LongAdder total = new LongAdder();
+
+    ScoreWindow(int topCapacity) {
+        this.topCapacity = topCapacity;
+    }
+
+    void add(LeaderboardEntry entry) {
+        long score = entry.getScore();
+        counts.computeIfAbsent(score, s -> new LongAdder()).increment();
+        addToTree(bucketOf(score), 1);
+        total.increment();
+
+        if (cutoff != null && RANKING.compare(entry, cutoff) > 0) {
+            return;
+        }
+        if (topSize.get() < topCapacity || RANKING.compare(entry, top.last()) < 0) {
+            top.add(entry);
+            if (topSize.incrementAndGet() > topCapacity) {
+                cutoff = top.pollLast();
+                topSize.decrementAndGet();
+            }
+        } else {
+            cutoff = entry;
+        }
+    }
+
+    void remove(LeaderboardEntry entry) {
+        long score = entry.getScore();
+        LongAdder count = counts.get(score);
+        if (count == null) {
+            return;
+        }
+        count.decrement();
+        if (count.sum() == 0) {
+            counts.remove(score, count);
+        }
+        addToTree(bucketOf(score), -1);
+        total.decrement();
+        if (top.remove(entry)) {
+            topSize.decrementAndGet();
+        }
+    }
+
+    long size() {
+        return total.sum();
+    }
+
+    // 1 + the number of scores strictly higher
+    long rankOf(long score) {
+        int bucket = bucketOf(score);
+        long higher = total.sum() - prefixSum(bucket + 1);
+        // Same bucket, higher score
+        for (Map.Entry<Long, LongAdder> e : counts.subMap(score, false, upperBoundOf(bucket), false).entrySet()) {
+            higher += e.getValue().sum();
+        }
+        return 1 + higher;
+    }
+
+    List<LeaderboardEntry> top(int limit) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.min(limit, topCapacity));
+        Iterator<LeaderboardEntry> it = top.iterator();
+        while (entries.size() < limit && it.hasNext()) {
+            entries.add(it.next());
+        }
+        return entries;
+    }
+
+    private void addToTree(int bucket, long delta) {
+        for (int i = bucket + 1; i <= BUCKETS; i += i & -i) {
+            tree.addAndGet(i, delta);
+        }
+    }
+
+    // Count in buckets [0, buckets)
+    private long prefixSum(int buckets) {
+        long sum = 0;
+        for (int i = buckets; i > 0; i -= i & -i) {
+            sum += tree.get(i);
+        }
+        return sum;
+    }
+
+    // Exact below 128, then 128 buckets per power of two
+    static int bucketOf(long score) {
+        if (score < SUB_BUCKETS) {
+            return (int) Math.max(score, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(score);
+        int sub = (int) (score >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Exclusive upper bound of a bucket's scores
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        long upper = (mantissa + 1) << shift;
+        return upper <= 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,129 @@
+package com.game.numbergrid.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Timers, counters and gauges for the game hot paths, written out in the
+// Prometheus text format. With game.metrics.enabled=false every call is a
+// branch on a final field and nothing is recorded.
+@Component
+public class GameMetrics {
+
+    // For services built by hand (benchmarks, tools): records nothing
+    public static final GameMetrics DISABLED = new GameMetrics(false);
+
+    public enum Op {
+        SELECT, GAME_OVER_CHECK, HINT, RESPONSE
+    }
+
+    public enum Counter {
+        COMBO_VALID, COMBO_INVALID, SOLVER_NODES
+    }
+
+    private final boolean enabled;
+    private final Map<Op, LatencyHistogram> timers = new EnumMap<>(Op.class);
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+    private final List<Gauge> gauges = new ArrayList<>();
+
+    private static final class Gauge {
+        final String name;
+        final String help;
+        final LongSupplier value;
+
+        Gauge(String name, String help, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.value = value;
+        }
+    }
+
+    public GameMetrics(@Value("${game.metrics.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        for (Op op : Op.values()) {
+            timers.put(op, new LatencyHistogram());
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Start of a timed section; pass the result to stop()
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void stop(Op op, long start) {
+        if (enabled) {
+            timers.get(op).record(System.nanoTime() - start);
+        }
+    }
+
+    public void increment(Counter counter) {
+        add(counter, 1);
+    }
+
+    public void add(Counter counter, long amount) {
+        if (enabled) {
+            counters.get(counter).add(amount);
+        }
+    }
+
+    // Sampled when metrics are scraped
+    public synchronized void gauge(String name, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, help, value));
+    }
+
+    public void writePrometheus(StringBuilder out) {
+        out.append("# HELP game_operation_seconds Time spent in game operations\n");
+        out.append("# TYPE game_operation_seconds histogram\n");
+        for (Map.Entry<Op, LatencyHistogram> entry : timers.entrySet()) {
+            String op = entry.getKey().name().toLowerCase(Locale.ROOT);
+            LatencyHistogram histogram = entry.getValue();
+            long[] counts = histogram.bucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+                cumulative += counts[i];
+                out.append("game_operation_seconds_bucket{op=\"").append(op).append("\",le=\"")
+                    .append(LatencyHistogram.upperBoundSeconds(i)).append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += counts[LatencyHistogram.BUCKETS];
+            out.append("game_operation_seconds_bucket{op=\"").append(op).append("\",le=\"+Inf\"} ")
+                .append(cumulative).append('\n');
+            out.append("game_operation_seconds_sum{op=\"").append(op).append("\"} ")
+                .append(histogram.sumSeconds()).append('\n');
+            out.append("game_operation_seconds_count{op=\"").append(op).append("\"} ")
+                .append(cumulative).append('\n');
+        }
+
+        out.append("# HELP game_combos_total Multi-block selections by outcome\n");
+        out.append("# TYPE game_combos_total counter\n");
+        out.append("game_combos_total{result=\"valid\"} ").append(counters.get(Counter.COMBO_VALID).sum()).append('\n');
+        out.append("game_combos_total{result=\"invalid\"} ").append(counters.get(Counter.COMBO_INVALID).sum()).append('\n');
+
+        out.append("# HELP game_solver_nodes_total Search steps taken by the game-over solver\n");
+        out.append("# TYPE game_solver_nodes_total counter\n");
+        out.append("game_solver_nodes_total ").append(counters.get(Counter.SOLVER_NODES).sum()).append('\n');
+
+        List<Gauge> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(gauges);
+        }
+        for (Gauge gauge : snapshot) {
+            out.append("# HELP ").append(gauge.name).append(' ').append(gauge.help).append('\n');
+            out.append("# TYPE ").append(gauge.name).append(" gauge\n");
+            out.append(gauge.name).append(' ').append(gauge.value.getAsLong()).append('\n');
+        }
+    }
+}
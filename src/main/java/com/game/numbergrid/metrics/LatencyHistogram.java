@@ -0,0 +1,49 @@
+package com.game.numbergrid.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed log2 buckets from 1 nanosecond to about 17 seconds, so sub-microsecond
+// operations (a select on a small board) still spread over several buckets.
+// Recording is a few adds on striped counters, cheap enough for every move.
+public final class LatencyHistogram {
+
+    // Bucket i counts durations up to 2^(MIN_SHIFT + i) nanoseconds
+    private static final int MIN_SHIFT = 0;
+    static final int BUCKETS = 35;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS + 1]; // last one is +Inf
+    private final LongAdder sumNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int shift = nanos <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(nanos - 1); // ceil(log2(nanos))
+        int bucket = Math.min(Math.max(shift - MIN_SHIFT, 0), BUCKETS);
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    static double upperBoundSeconds(int bucket) {
+        return (1L << (MIN_SHIFT + bucket)) / 1e9;
+    }
+
+    // Counts per bucket, not cumulative
+    long[] bucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+}
@@ -0,0 +1,282 @@
+package com.game.numbergrid.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Packed game board: one byte per cell for the value and one bit per cell for
+// each flag, about 500 bytes for a 10x20 game.
+public class Board implements BoardView {
+    // Recent cell changes kept for delta responses; must be a power of two
+    private static final int CHANGE_LOG_SIZE = 64;
+
+    // Largest board any game may have (e.g. 1000 x 1000)
+    public static final int MAX_CELLS = 1_000_000;
+
+    // Flag bits reported with each changed cell
+    public static final int FLAG_SELECTED = 1;
+    public static final int FLAG_HINTED = 2;
+
+    private final int rows;
+    private final int cols;
+    private final byte[] values;
+    private final long[] selected;
+    private final long[] hinted;
+    private final long[] empty;
+    private final long[] marks; // scratch bits for callers (duplicate checks), left clear
+    private final int[] valueCounts = new int[10]; // live cells per value 1-9
+    private int liveCount;
+    private int hintedCount;
+
+    // Bumped on every cell change. changeLog[v % size] = (v << 32) | cell.
+    private int version;
+    private final long[] changeLog = new long[CHANGE_LOG_SIZE];
+
+    public Board(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        int cells = rows * cols;
+        int words = (cells + 63) >>> 6;
+        this.values = new byte[cells];
+        this.selected = new long[words];
+        this.hinted = new long[words];
+        this.empty = new long[words];
+        this.marks = new long[words];
+        fillEmpty();
+    }
+
+    // Every cell empty; the bits past the last cell stay clear
+    private void fillEmpty() {
+        Arrays.fill(empty, -1L);
+        int tail = values.length & 63;
+        if (tail != 0) {
+            empty[empty.length - 1] = (1L << tail) - 1;
+        }
+    }
+
+    @Override public int getRows() { return rows; }
+    @Override public int getCols() { return cols; }
+    @Override public int getValue(int cell) { return values[cell]; }
+    @Override public boolean isEmpty(int cell) { return test(empty, cell); }
+    @Override public boolean isSelected(int cell) { return test(selected, cell); }
+    @Override public boolean isHinted(int cell) { return test(hinted, cell); }
+
+    public int getLiveCount() { return liveCount; }
+
+    // Approximate heap footprint: the arrays plus object headers
+    public long getMemoryBytes() {
+        return 6 * 16L + values.length + 4L * 8 * empty.length + 8L * CHANGE_LOG_SIZE + 4 * valueCounts.length;
+    }
+    public int getVersion() { return version; }
+
+    // A replacement board (restart, recovery) keeps counting from the old one
+    // so that clients holding an old version always get a full snapshot
+    public void continueVersionFrom(Board previous) {
+        continueVersionFrom(previous.version);
+    }
+
+    public void continueVersionFrom(int previousVersion) {
+        version = Math.max(version, previousVersion + CHANGE_LOG_SIZE + 1);
+    }
+
+    // The same board restored from a snapshot (recovery, another node): it
+    // keeps its version, so clients up to date stay so, and forgets the
+    // change log, so every older version gets a full snapshot
+    public void restoreVersion(int savedVersion) {
+        version = savedVersion;
+        Arrays.fill(changeLog, 0L);
+    }
+    public int[] getValueCounts() { return valueCounts; }
+
+    // Values at 4 bits per cell, two cells a byte with the even cell in the
+    // low nibble. Shared by the wire frames and the snapshots.
+    public static int packedSize(int cells) {
+        return (cells + 1) / 2;
+    }
+
+    public void packValues(ByteBuffer out) {
+        int cells = values.length;
+        for (int cell = 0; cell < cells; cell += 2) {
+            int high = cell + 1 < cells ? values[cell + 1] : 0;
+            out.put((byte) (values[cell] | high << 4));
+        }
+    }
+
+    public void unpackValues(ByteBuffer in) {
+        int cells = values.length;
+        for (int cell = 0; cell < cells; cell += 2) {
+            int packed = in.get() & 0xFF;
+            setPackedValue(cell, packed & 0x0F);
+            if (cell + 1 < cells) {
+                setPackedValue(cell + 1, packed >>> 4);
+            }
+        }
+    }
+
+    private void setPackedValue(int cell, int value) {
+        if (value > 9) {
+            throw new IllegalStateException("Cell " + cell + " has value " + value);
+        }
+        setValue(cell, value);
+    }
+
+    public void setValue(int cell, int value) {
+        int old = values[cell];
+        if (old == value) {
+            return;
+        }
+        if (old != 0) {
+            valueCounts[old]--;
+            liveCount--;
+        }
+        values[cell] = (byte) value;
+        if (value != 0) {
+            valueCounts[value]++;
+            liveCount++;
+            empty[cell >>> 6] &= ~(1L << cell);
+        } else {
+            empty[cell >>> 6] |= 1L << cell;
+        }
+        changed(cell);
+    }
+
+    // Empty every cell and drop all flags, keeping the arrays (boards reused by
+    // simulations). Versions jump past the change log so no old delta applies.
+    public void reset() {
+        Arrays.fill(values, (byte) 0);
+        Arrays.fill(selected, 0L);
+        Arrays.fill(hinted, 0L);
+        Arrays.fill(marks, 0L);
+        fillEmpty();
+        Arrays.fill(valueCounts, 0);
+        liveCount = 0;
+        hintedCount = 0;
+        version += CHANGE_LOG_SIZE + 1;
+    }
+
+    // Empty a cell and drop its selection
+    public void clear(int cell) {
+        setValue(cell, 0);
+        setSelected(cell, false);
+    }
+
+    public void setSelected(int cell, boolean on) {
+        if (isSelected(cell) != on) {
+            set(selected, cell, on);
+            changed(cell);
+        }
+    }
+
+    public void setHinted(int cell, boolean on) {
+        if (isHinted(cell) != on) {
+            set(hinted, cell, on);
+            hintedCount += on ? 1 : -1;
+            changed(cell);
+        }
+    }
+
+    public void clearSelections() {
+        clearFlags(selected, Integer.MAX_VALUE);
+    }
+
+    // A hint lights only a few cells, so stop as soon as they are all cleared
+    public void clearHints() {
+        if (hintedCount > 0) {
+            clearFlags(hinted, hintedCount);
+            hintedCount = 0;
+        }
+    }
+
+    // Marks a cell in the scratch bits; false if it was already marked.
+    // Callers unmark every cell they marked before returning.
+    public boolean mark(int cell) {
+        if (test(marks, cell)) {
+            return false;
+        }
+        set(marks, cell, true);
+        return true;
+    }
+
+    public void unmark(int cell) {
+        set(marks, cell, false);
+    }
+
+    public int getFlags(int cell) {
+        return (isSelected(cell) ? FLAG_SELECTED : 0) | (isHinted(cell) ? FLAG_HINTED : 0);
+    }
+
+    // Cells changed after version 'since', each listed once, or null when the
+    // change log does not hold every version since then (caller sends a full
+    // snapshot): too old, negative, or skipped by a reset
+    public int[] changedCellsSince(int since) {
+        if (since < 0 || since > version || version - since > CHANGE_LOG_SIZE) {
+            return null;
+        }
+        int[] cells = new int[version - since];
+        int count = 0;
+        for (int v = since + 1; v <= version; v++) {
+            long entry = changeLog[v & (CHANGE_LOG_SIZE - 1)];
+            if ((int) (entry >>> 32) != v) {
+                return null;
+            }
+            int cell = (int) entry;
+            boolean seen = false;
+            for (int i = 0; i < count && !seen; i++) {
+                seen = cells[i] == cell;
+            }
+            if (!seen) {
+                cells[count++] = cell;
+            }
+        }
+        return Arrays.copyOf(cells, count);
+    }
+
+    private void changed(int cell) {
+        version++;
+        changeLog[version & (CHANGE_LOG_SIZE - 1)] = ((long) version << 32) | cell;
+    }
+
+    // Clear set bits, logging each cell that changed, until 'remaining' are cleared
+    private void clearFlags(long[] bits, int remaining) {
+        for (int word = 0; word < bits.length && remaining > 0; word++) {
+            long set = bits[word];
+            bits[word] = 0L;
+            while (set != 0) {
+                changed((word << 6) + Long.numberOfTrailingZeros(set));
+                set &= set - 1;
+                remaining--;
+            }
+        }
+    }
+
+    // Next live cell at or after 'from', or -1
+    public int nextLiveCell(int from) {
+        int cells = values.length;
+        if (from >= cells) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long live = ~empty[word] & (-1L << from);
+        while (true) {
+            if (live != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(live);
+                return cell < cells ? cell : -1;
+            }
+            if (++word == empty.length) {
+                return -1;
+            }
+            live = ~empty[word];
+        }
+    }
+
+    private static boolean test(long[] bits, int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private static void set(long[] bits, int cell, boolean on) {
+        if (on) {
+            bits[cell >>> 6] |= 1L << cell;
+        } else {
+            bits[cell >>> 6] &= ~(1L << cell);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.game.numbergrid.model;
+
+import java.util.Arrays;
+
+// Immutable snapshot of a game after some move: cell values, score and
+// game-over flag. Values sit in a trie (leaves of 64 cells, 32-way inner
+// nodes), and the next version copies only the nodes on the paths to the
+// cells a move cleared, sharing everything else with this one. A move on a
+// 1M-cell board therefore costs a few hundred bytes, not a megabyte.
+// Being immutable, a version can be read from any thread.
+public final class BoardVersion implements BoardView {
+
+    private static final int LEAF_BITS = 6;   // 64 cells per leaf
+    private static final int BRANCH_BITS = 5; // 32 children per inner node
+    private static final int LEAF_SIZE = 1 << LEAF_BITS;
+    private static final int BRANCH = 1 << BRANCH_BITS;
+
+    private final int rows;
+    private final int cols;
+    private final int depth;    // inner levels above the leaves
+    private final Object root;  // byte[] leaf when depth == 0, else Object[]
+    private final int[] cleared; // cells this version cleared relative to the previous one
+    private final long score;
+    private final boolean gameOver;
+
+    private BoardVersion(int rows, int cols, int depth, Object root, int[] cleared, long score, boolean gameOver) {
+        this.rows = rows;
+        this.cols = cols;
+        this.depth = depth;
+        this.root = root;
+        this.cleared = cleared;
+        this.score = score;
+        this.gameOver = gameOver;
+    }
+
+    // Full copy of a board's values (O(cells), once per game)
+    public static BoardVersion of(BoardView board, long score, boolean gameOver) {
+        int cells = board.getCellCount();
+        int leaves = (cells + LEAF_SIZE - 1) / LEAF_SIZE;
+        int depth = 0;
+        for (long reach = 1; reach < leaves; reach <<= BRANCH_BITS) {
+            depth++;
+        }
+        return new BoardVersion(board.getRows(), board.getCols(), depth, build(board, depth, 0), new int[0],
+            score, gameOver);
+    }
+
+    private static Object build(BoardView board, int level, int firstCell) {
+        int cells = board.getCellCount();
+        if (level == 0) {
+            byte[] leaf = new byte[LEAF_SIZE];
+            for (int i = 0; i < LEAF_SIZE && firstCell + i < cells; i++) {
+                leaf[i] = (byte) board.getValue(firstCell + i);
+            }
+            return leaf;
+        }
+        int span = LEAF_SIZE << (BRANCH_BITS * (level - 1)); // cells under each child
+        Object[] node = new Object[BRANCH];
+        for (int child = 0; child < BRANCH && firstCell + child * span < cells; child++) {
+            node[child] = build(board, level - 1, firstCell + child * span);
+        }
+        return node;
+    }
+
+    // The version after a move emptied cells[0 .. count)
+    public BoardVersion withCleared(int[] cells, int count, long newScore, boolean newGameOver) {
+        int[] sorted = Arrays.copyOf(cells, count);
+        Arrays.sort(sorted);
+        return new BoardVersion(rows, cols, depth, clear(root, depth, 0, sorted, 0, count), sorted,
+            newScore, newGameOver);
+    }
+
+    // Copies this node once, then descends into each child holding some of
+    // sorted[from .. to) (all of which lie under this node)
+    private static Object clear(Object node, int level, int firstCell, int[] sorted, int from, int to) {
+        if (level == 0) {
+            byte[] leaf = ((byte[]) node).clone();
+            for (int i = from; i < to; i++) {
+                leaf[sorted[i] - firstCell] = 0;
+            }
+            return leaf;
+        }
+        int span = LEAF_SIZE << (BRANCH_BITS * (level - 1));
+        Object[] copy = ((Object[]) node).clone();
+        int i = from;
+        while (i < to) {
+            int child = (sorted[i] - firstCell) / span;
+            int end = i + 1;
+            while (end < to && (sorted[end] - firstCell) / span == child) {
+                end++;
+            }
+            copy[child] = clear(copy[child], level - 1, firstCell + child * span, sorted, i, end);
+            i = end;
+        }
+        return copy;
+    }
+
+    @Override public int getRows() { return rows; }
+    @Override public int getCols() { return cols; }
+    @Override public boolean isEmpty(int cell) { return getValue(cell) == 0; }
+    @Override public boolean isSelected(int cell) { return false; }
+    @Override public boolean isHinted(int cell) { return false; }
+
+    @Override
+    public int getValue(int cell) {
+        Object node = root;
+        for (int level = depth; level > 0; level--) {
+            node = ((Object[]) node)[(cell >>> (LEAF_BITS + BRANCH_BITS * (level - 1))) & (BRANCH - 1)];
+        }
+        return ((byte[]) node)[cell & (LEAF_SIZE - 1)];
+    }
+
+    // Sorted cells emptied by the move that led here (none for the first version)
+    public int[] getClearedCells() { return cleared; }
+    public long getScore() { return score; }
+    public boolean isGameOver() { return gameOver; }
+}
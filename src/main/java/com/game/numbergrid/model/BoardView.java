@@ -0,0 +1,20 @@
+package com.game.numbergrid.model;
+
+// Read-only access to a board. Cells can be addressed by (row, col) or by
+// their index row * cols + col.
+public interface BoardView {
+    int getRows();
+    int getCols();
+
+    int getValue(int cell); // 0 = empty, 1-9 = number
+    boolean isEmpty(int cell);
+    boolean isSelected(int cell);
+    boolean isHinted(int cell);
+
+    default int getCellCount() { return getRows() * getCols(); }
+    default int cellIndex(int row, int col) { return row * getCols() + col; }
+    default int getValue(int row, int col) { return getValue(cellIndex(row, col)); }
+    default boolean isEmpty(int row, int col) { return isEmpty(cellIndex(row, col)); }
+    default boolean isSelected(int row, int col) { return isSelected(cellIndex(row, col)); }
+    default boolean isHinted(int row, int col) { return isHinted(cellIndex(row, col)); }
+}
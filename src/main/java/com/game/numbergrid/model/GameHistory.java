@@ -0,0 +1,75 @@
+package com.game.numbergrid.model;
+
+// The last few versions of a game, for undo, redo and replay. Steps count
+// valid moves from the start of the game; once more than 'capacity' versions
+// exist the oldest are dropped, so memory per game stays bounded. Playing a
+// new move after an undo drops the versions that could have been redone.
+// Only touched by the game's actor; the versions it hands out are immutable.
+public class GameHistory {
+
+    private final BoardVersion[] versions; // ring buffer
+    private int oldest;    // ring slot of the oldest kept version
+    private int size;      // versions kept
+    private int current;   // offset of the current version from the oldest
+    private long firstStep; // step of the oldest kept version
+
+    public GameHistory(int capacity, BoardVersion initial) {
+        this.versions = new BoardVersion[Math.max(2, capacity)];
+        this.versions[0] = initial;
+        this.size = 1;
+    }
+
+    public BoardVersion current() {
+        return get(current);
+    }
+
+    // Record the version a move produced
+    public void record(BoardVersion next) {
+        for (int offset = current + 1; offset < size; offset++) {
+            versions[(oldest + offset) % versions.length] = null;
+        }
+        size = current + 1;
+        if (size == versions.length) {
+            versions[oldest] = null;
+            oldest = (oldest + 1) % versions.length;
+            firstStep++;
+            size--;
+            current--;
+        }
+        versions[(oldest + size) % versions.length] = next;
+        size++;
+        current++;
+    }
+
+    public boolean canUndo() { return current > 0; }
+    public boolean canRedo() { return current < size - 1; }
+
+    // Step back; returns the new current version
+    public BoardVersion undo() {
+        if (!canUndo()) {
+            throw new IllegalStateException("Nothing to undo");
+        }
+        return get(--current);
+    }
+
+    public BoardVersion redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("Nothing to redo");
+        }
+        return get(++current);
+    }
+
+    // The version after 'step' moves, or null if it was dropped or not played
+    public BoardVersion at(long step) {
+        long offset = step - firstStep;
+        return offset < 0 || offset >= size ? null : get((int) offset);
+    }
+
+    public long getStep() { return firstStep + current; }
+    public long getFirstStep() { return firstStep; }
+    public long getLastStep() { return firstStep + size - 1; }
+
+    private BoardVersion get(int offset) {
+        return versions[(oldest + offset) % versions.length];
+    }
+}
@@ -2,48 +2,151 @@ package com.game.numbergrid.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class GameState {
+    public static final int DEFAULT_ROWS = 10;
+    public static final int DEFAULT_COLS = 20;
+
     private String gameId;
-    private Block[][] grid;
-    private int score;
+    private long seed; // same seed and size always give the same board
+    private Board board;
+    private long score;
     private List<String> messages;
     private boolean gameOver;
+    private HintIndex hintIndex; // built on first hint, then kept in step with the board
+    private GameHistory history; // null until the first move is recorded
+
+    // Move messages not yet formatted (see MoveMessage); a move leaves at most two
+    private final MoveMessage[] pending = new MoveMessage[2];
+    private final long[] pendingArgs = new long[6];
+    private int pendingCount;
 
     public GameState() {
-        this.grid = new Block[10][20];
+        this(DEFAULT_ROWS, DEFAULT_COLS);
+    }
+
+    public GameState(int rows, int cols) {
+        this(rows, cols, ThreadLocalRandom.current().nextLong());
+    }
+
+    public GameState(int rows, int cols, long seed) {
+        this.seed = seed;
+        this.board = new Board(rows, cols);
+        this.score = 0;
+        this.messages = new ArrayList<>();
+        this.gameOver = false;
+        initializeGrid();
+    }
+
+    // Wrap an existing board (e.g. one restored from disk); nothing is generated
+    public GameState(Board board, long seed) {
+        this.seed = seed;
+        this.board = board;
         this.score = 0;
         this.messages = new ArrayList<>();
         this.gameOver = false;
+    }
+
+    // Start over with a new seed, reusing this board and hint index
+    public void reset(long seed) {
+        this.seed = seed;
+        this.board.reset();
+        this.score = 0;
+        clearMessages();
+        this.gameOver = false;
+        this.history = null;
         initializeGrid();
+        if (hintIndex != null) {
+            hintIndex.rebuild();
+        }
     }
 
+    // SplittableRandom is per game, so concurrent starts never contend
     private void initializeGrid() {
-        for (int row = 0; row < 10; row++) {
-            for (int col = 0; col < 20; col++) {
-                grid[row][col] = new Block(row, col);
-                grid[row][col].setValue((int) (Math.random() * 9) + 1);
-            }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            board.setValue(cell, random.nextInt(1, 10));
         }
     }
 
+    // Empty a cell and keep the hint index in step (O(1))
+    public void clearCell(int cell) {
+        int value = board.getValue(cell);
+        if (value != 0 && hintIndex != null) {
+            hintIndex.remove(cell, value);
+        }
+        board.clear(cell);
+    }
+
+    // Put a value back into an empty cell (undo), keeping the hint index in step
+    public void restoreCell(int cell, int value) {
+        if (hintIndex != null && board.isEmpty(cell)) {
+            hintIndex.restore(cell, value);
+        }
+        board.setValue(cell, value);
+    }
+
     // Getters and Setters
     public String getGameId() { return gameId; }
     public void setGameId(String gameId) { this.gameId = gameId; }
-    public Block[][] getGrid() { return grid; }
-    public void setGrid(Block[][] grid) { this.grid = grid; }
-    public int getScore() { return score; }
-    public void setScore(int score) { this.score = score; }
-    public List<String> getMessages() { return messages; }
-    public void setMessages(List<String> messages) { this.messages = messages; }
+    public long getSeed() { return seed; }
+    public Board getBoard() { return board; }
+    public void setBoard(Board board) {
+        this.board = board;
+        this.hintIndex = null;
+        this.history = null;
+    }
+    public long getScore() { return score; }
+    public void setScore(long score) { this.score = score; }
+    public List<String> getMessages() {
+        formatPending();
+        return messages;
+    }
+    public void setMessages(List<String> messages) {
+        this.messages = messages;
+        this.pendingCount = 0;
+    }
     public boolean isGameOver() { return gameOver; }
     public void setGameOver(boolean gameOver) { this.gameOver = gameOver; }
+    public int[] getValueCounts() { return board.getValueCounts(); }
+    public GameHistory getHistory() { return history; }
+    public void setHistory(GameHistory history) { this.history = history; }
+
+    public HintIndex getHintIndex() {
+        if (hintIndex == null) {
+            hintIndex = new HintIndex(board);
+        }
+        return hintIndex;
+    }
 
     public void addMessage(String message) {
+        formatPending();
         this.messages.add(message);
     }
 
+    // Record a move message without building its text
+    public void addMessage(MoveMessage message, long a, long b, long c) {
+        if (pendingCount == pending.length) {
+            formatPending();
+        }
+        pending[pendingCount] = message;
+        pendingArgs[3 * pendingCount] = a;
+        pendingArgs[3 * pendingCount + 1] = b;
+        pendingArgs[3 * pendingCount + 2] = c;
+        pendingCount++;
+    }
+
     public void clearMessages() {
         this.messages.clear();
+        this.pendingCount = 0;
+    }
+
+    private void formatPending() {
+        for (int i = 0; i < pendingCount; i++) {
+            messages.add(pending[i].format(pendingArgs[3 * i], pendingArgs[3 * i + 1], pendingArgs[3 * i + 2]));
+        }
+        pendingCount = 0;
     }
 }
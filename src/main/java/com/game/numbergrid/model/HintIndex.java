@@ -0,0 +1,303 @@
+package com.game.numbergrid.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Live cells bucketed by value, so hints can be answered from the buckets
+// instead of scanning the grid. Cells are stored as row * cols + col.
+public class HintIndex {
+
+    // Every multiset of 2 or 3 values (1-9) summing to a multiple of 10,
+    // ordered pairs first, each sorted ascending
+    private static final int[][] COMBOS = buildCombos();
+
+    // How many cells of the rarest value are tried as anchors for NEAREST
+    private static final int NEAREST_ANCHORS = 8;
+
+    // Buckets up to this size are scanned for the nearest cell; larger ones
+    // are searched by walking outwards from the anchor on the board
+    private static final int NEAREST_SCAN_LIMIT = 16;
+
+    private final BoardView board;
+    private final int rows;
+    private final int cols;
+    private final int[][] buckets = new int[10][];
+    private final int[] bucketSizes = new int[10];
+    private final int[] slotOf; // position of each cell in its bucket
+
+    // Last combo found, reused between calls (larger combos come from
+    // pickValues and never need more than 10 blocks)
+    private final int[] combo = new int[10];
+    private int comboSize;
+    private final int[] candidate = new int[3];
+
+    public HintIndex(BoardView board) {
+        this.board = board;
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+        this.slotOf = new int[board.getCellCount()];
+        rebuild();
+    }
+
+    // Refill from the board, e.g. after it was regenerated in place. Buckets
+    // are kept when big enough, otherwise sized exactly (cells mostly leave
+    // the index between rebuilds; restore grows a bucket when needed).
+    public void rebuild() {
+        int cells = board.getCellCount();
+        int[] counts = new int[10];
+        for (int cell = 0; cell < cells; cell++) {
+            counts[board.getValue(cell)]++;
+        }
+        for (int value = 1; value <= 9; value++) {
+            if (buckets[value] == null || buckets[value].length < counts[value]) {
+                buckets[value] = new int[counts[value]];
+            }
+            bucketSizes[value] = 0;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (!board.isEmpty(cell)) {
+                add(cell, board.getValue(cell));
+            }
+        }
+        comboSize = 0;
+    }
+
+    private void add(int cell, int value) {
+        slotOf[cell] = bucketSizes[value];
+        buckets[value][bucketSizes[value]++] = cell;
+    }
+
+    // Called when a live cell is cleared (O(1) swap-remove)
+    public void remove(int cell, int value) {
+        int[] bucket = buckets[value];
+        int slot = slotOf[cell];
+        int last = bucket[--bucketSizes[value]];
+        bucket[slot] = last;
+        slotOf[last] = slot;
+    }
+
+    // Called when an empty cell gets its value back (undo)
+    public void restore(int cell, int value) {
+        if (bucketSizes[value] == buckets[value].length) {
+            buckets[value] = Arrays.copyOf(buckets[value], Math.max(4, 2 * bucketSizes[value]));
+        }
+        add(cell, value);
+    }
+
+    // Finds a 2- or 3-block combo; returns its size, or 0 if there is none
+    public int findCombo(HintPolicy policy) {
+        comboSize = 0;
+        int bestSpread = Integer.MAX_VALUE;
+
+        for (int[] values : COMBOS) {
+            if (!available(values)) {
+                continue;
+            }
+            switch (policy) {
+                case FIRST:
+                    pickFirst(values);
+                    return comboSize;
+                case LARGEST:
+                    if (values.length == 3) {
+                        pickFirst(values);
+                        return comboSize;
+                    }
+                    if (comboSize == 0) {
+                        pickFirst(values);
+                    }
+                    break;
+                case NEAREST:
+                    bestSpread = pickNearest(values, bestSpread);
+                    // Two touching blocks cannot be beaten
+                    if (bestSpread <= 1) {
+                        return comboSize;
+                    }
+                    break;
+            }
+        }
+        return comboSize;
+    }
+
+    // Hold a combo given as counts per value (e.g. one too large for
+    // findCombo); takes the first cells of each bucket. Returns its size.
+    public int pickValues(int[] valueCounts) {
+        comboSize = 0;
+        for (int value = 1; value <= 9; value++) {
+            for (int i = 0; i < valueCounts[value]; i++) {
+                combo[comboSize++] = buckets[value][i];
+            }
+        }
+        return comboSize;
+    }
+
+    public int getComboSize() { return comboSize; }
+    public int getComboCell(int i) { return combo[i]; }
+
+    private boolean available(int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            int needed = 1;
+            for (int j = 0; j < i; j++) {
+                if (values[j] == values[i]) {
+                    needed++;
+                }
+            }
+            if (bucketSizes[values[i]] < needed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Take the first unused cells of each bucket
+    private void pickFirst(int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            int used = 0;
+            for (int j = 0; j < i; j++) {
+                if (values[j] == values[i]) {
+                    used++;
+                }
+            }
+            combo[i] = buckets[values[i]][used];
+        }
+        comboSize = values.length;
+    }
+
+    // Greedy: from a few anchors, add the closest cell of each remaining value.
+    // Keeps the result if its bounding box is tighter than bestSpread.
+    private int pickNearest(int[] values, int bestSpread) {
+        int anchorValue = values[0];
+        for (int value : values) {
+            if (bucketSizes[value] < bucketSizes[anchorValue]) {
+                anchorValue = value;
+            }
+        }
+        int anchors = Math.min(bucketSizes[anchorValue], NEAREST_ANCHORS);
+
+        for (int a = 0; a < anchors; a++) {
+            int anchor = buckets[anchorValue][a];
+            int size = 0;
+            boolean anchorPlaced = false;
+            for (int value : values) {
+                if (value == anchorValue && !anchorPlaced) {
+                    candidate[size++] = anchor;
+                    anchorPlaced = true;
+                } else {
+                    candidate[size] = nearest(value, anchor, size);
+                    size++;
+                }
+            }
+            int spread = spread(size);
+            if (spread < bestSpread) {
+                bestSpread = spread;
+                System.arraycopy(candidate, 0, combo, 0, size);
+                comboSize = size;
+                if (spread <= 1) {
+                    break;
+                }
+            }
+        }
+        return bestSpread;
+    }
+
+    // Closest cell of 'value' to 'anchor' not already in candidate[0..taken)
+    private int nearest(int value, int anchor, int taken) {
+        if (bucketSizes[value] > NEAREST_SCAN_LIMIT) {
+            return nearestOnBoard(value, anchor, taken);
+        }
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        int[] bucket = buckets[value];
+        for (int i = 0; i < bucketSizes[value]; i++) {
+            int cell = bucket[i];
+            if (cell == anchor || contains(cell, taken)) {
+                continue;
+            }
+            int distance = Math.abs(cell / cols - anchor / cols) + Math.abs(cell % cols - anchor % cols);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    // Walk rings of increasing Manhattan distance around the anchor. Only used
+    // for large buckets, where a match is normally a few rings away.
+    private int nearestOnBoard(int value, int anchor, int taken) {
+        int anchorRow = anchor / cols;
+        int anchorCol = anchor % cols;
+        for (int radius = 1; radius < rows + cols; radius++) {
+            for (int dr = -radius; dr <= radius; dr++) {
+                int row = anchorRow + dr;
+                if (row < 0 || row >= rows) {
+                    continue;
+                }
+                int dc = radius - Math.abs(dr);
+                int cell = matchAt(row, anchorCol + dc, value, taken);
+                if (cell < 0 && dc != 0) {
+                    cell = matchAt(row, anchorCol - dc, value, taken);
+                }
+                if (cell >= 0) {
+                    return cell;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int matchAt(int row, int col, int value, int taken) {
+        if (col < 0 || col >= cols) {
+            return -1;
+        }
+        int cell = row * cols + col;
+        if (board.getValue(cell) != value || contains(cell, taken)) {
+            return -1;
+        }
+        return cell;
+    }
+
+    private boolean contains(int cell, int taken) {
+        for (int i = 0; i < taken; i++) {
+            if (candidate[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Half-perimeter of the bounding box around candidate[0..size)
+    private int spread(int size) {
+        int minRow = Integer.MAX_VALUE, maxRow = -1, minCol = Integer.MAX_VALUE, maxCol = -1;
+        for (int i = 0; i < size; i++) {
+            int row = candidate[i] / cols;
+            int col = candidate[i] % cols;
+            minRow = Math.min(minRow, row);
+            maxRow = Math.max(maxRow, row);
+            minCol = Math.min(minCol, col);
+            maxCol = Math.max(maxCol, col);
+        }
+        return (maxRow - minRow) + (maxCol - minCol);
+    }
+
+    private static int[][] buildCombos() {
+        List<int[]> combos = new ArrayList<>();
+        for (int a = 1; a <= 9; a++) {
+            for (int b = a; b <= 9; b++) {
+                if ((a + b) % 10 == 0) {
+                    combos.add(new int[]{a, b});
+                }
+            }
+        }
+        for (int a = 1; a <= 9; a++) {
+            for (int b = a; b <= 9; b++) {
+                for (int c = b; c <= 9; c++) {
+                    if ((a + b + c) % 10 == 0) {
+                        combos.add(new int[]{a, b, c});
+                    }
+                }
+            }
+        }
+        return combos.toArray(new int[0][]);
+    }
+}
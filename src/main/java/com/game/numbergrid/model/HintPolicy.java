@@ -0,0 +1,18 @@
+package com.game.numbergrid.model;
+
+public enum HintPolicy {
+    FIRST,   // first combo found, cheapest to answer
+    NEAREST, // blocks closest together on the board
+    LARGEST; // most blocks; score is 10 x n x n, so this is also the highest score
+
+    public static HintPolicy fromParam(String value, HintPolicy fallback) {
+        if (value == null || value.isEmpty()) {
+            return fallback;
+        }
+        try {
+            return HintPolicy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.game.numbergrid.model;
+
+// Messages a move can produce, kept as a kind plus up to three numbers and
+// only formatted when someone reads the game's messages
+public enum MoveMessage {
+    GAME_ALREADY_OVER,   // -
+    NO_BLOCKS,           // -
+    INVALID_POSITION,    // row, col
+    INVALID_CELL,        // cell
+    EMPTY_BLOCK,         // row, col
+    DUPLICATE_BLOCK,     // row, col
+    SELECTED,            // value
+    DESELECTED,          // -
+    PERFECT_COMBO,       // blocks, sum, points
+    NOT_MULTIPLE_OF_TEN, // sum
+    GAME_OVER;           // final score
+
+    String format(long a, long b, long c) {
+        switch (this) {
+            case GAME_ALREADY_OVER: return "Game over! Start a new game.";
+            case NO_BLOCKS: return "No positions provided";
+            case INVALID_POSITION: return "Invalid position at (" + a + "," + b + ")!";
+            case INVALID_CELL: return "Invalid cell " + a + "!";
+            case EMPTY_BLOCK: return "Cannot select empty block at (" + a + "," + b + ")!";
+            case DUPLICATE_BLOCK: return "Block at (" + a + "," + b + ") is selected twice!";
+            case SELECTED: return "Selected: " + a;
+            case DESELECTED: return "Deselected block";
+            case PERFECT_COMBO: return "Perfect combo! " + a + " blocks sum to " + b + ". +" + c + " points!";
+            case NOT_MULTIPLE_OF_TEN: return "Sum is " + a + ", not a multiple of 10! Try again.";
+            case GAME_OVER: return "Game Over! Final Score: " + a;
+            default: throw new IllegalStateException(name());
+        }
+    }
+}
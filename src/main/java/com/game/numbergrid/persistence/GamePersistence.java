@@ -0,0 +1,252 @@
+package com.game.numbergrid.persistence;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Keeps games across restarts: a periodic snapshot file of every game plus an
+// append-only journal of what changed since (new games, cleared combos, and
+// games that left this node: evicted, removed or moved to another node).
+// Recovery loads the snapshot and replays the journal. Journal records carry
+// absolute values (score after the move, cells now empty), so replaying a
+// record that the snapshot already contains is harmless.
+@Component
+public class GamePersistence {
+
+    private static final Logger log = LoggerFactory.getLogger(GamePersistence.class);
+
+    private static final byte RECORD_GAME = 1;  // full game snapshot (new game, restart)
+    private static final byte RECORD_CLEAR = 2; // cells cleared by a valid combo
+    private static final byte RECORD_END = 3;   // game no longer held here
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private final boolean enabled;
+    private final Path dir;
+    private final long fsyncIntervalMillis;
+    private final MoveJournal journal;
+    private ScheduledExecutorService flusher;
+
+    public GamePersistence(
+            @Value("${game.persistence.enabled:false}") boolean enabled,
+            @Value("${game.persistence.dir:data}") String dir,
+            @Value("${game.persistence.segment-size:67108864}") int segmentSize,
+            @Value("${game.persistence.fsync-interval:50}") long fsyncIntervalMillis) {
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.journal = new MoveJournal(this.dir, segmentSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        journal.open();
+        // Batched fsync: requests only copy into the mapped journal
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(journal::force, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        if (enabled) {
+            journal.close();
+        }
+    }
+
+    // Call from the game's actor (new game or restart)
+    public void gameStarted(GameState game) {
+        if (!enabled) {
+            return;
+        }
+        journal.append(1 + GameSnapshotCodec.encodedSize(game), out -> {
+            out.put(RECORD_GAME);
+            GameSnapshotCodec.write(game, out);
+        });
+    }
+
+    // Call from the game's actor, after a valid combo cleared 'cells'
+    public void cellsCleared(GameState game, int[] cells, int count) {
+        if (!enabled) {
+            return;
+        }
+        String gameId = game.getGameId();
+        int size = 1 + GameSnapshotCodec.idSize(gameId) + 8 + 1 + 4 + 4 * count;
+        journal.append(size, out -> {
+            out.put(RECORD_CLEAR);
+            GameSnapshotCodec.writeId(gameId, out);
+            out.putLong(game.getScore());
+            out.put((byte) (game.isGameOver() ? 1 : 0));
+            out.putInt(count);
+            for (int i = 0; i < count; i++) {
+                out.putInt(cells[i]);
+            }
+        });
+    }
+
+    // Call when a game leaves the store for good, after its last journaled
+    // change, so recovery does not bring it back
+    public void gameEnded(String gameId) {
+        if (!enabled) {
+            return;
+        }
+        journal.append(1 + GameSnapshotCodec.idSize(gameId), out -> {
+            out.put(RECORD_END);
+            GameSnapshotCodec.writeId(gameId, out);
+        });
+    }
+
+    // Rebuild every game from the last snapshot plus the journal after it
+    public Collection<GameState> recover() {
+        Map<String, GameState> games = new LinkedHashMap<>();
+        if (!enabled) {
+            return games.values();
+        }
+        long started = System.nanoTime();
+        try {
+            long firstSegment = readSnapshot(games);
+            journal.replay(firstSegment, payload -> apply(payload, games));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Recovered {} games in {} ms", games.size(), (System.nanoTime() - started) / 1_000_000);
+        return games.values();
+    }
+
+    private void apply(ByteBuffer payload, Map<String, GameState> games) {
+        byte type = payload.get();
+        if (type == RECORD_GAME) {
+            GameState game = GameSnapshotCodec.read(payload);
+            games.put(game.getGameId(), game);
+        } else if (type == RECORD_CLEAR) {
+            GameState game = games.get(GameSnapshotCodec.readId(payload));
+            long score = payload.getLong();
+            boolean gameOver = payload.get() != 0;
+            int count = payload.getInt();
+            if (game == null) {
+                return;
+            }
+            Board board = game.getBoard();
+            for (int i = 0; i < count; i++) {
+                int cell = payload.getInt();
+                if (cell >= 0 && cell < board.getCellCount()) {
+                    game.clearCell(cell);
+                }
+            }
+            game.setScore(score);
+            game.setGameOver(gameOver);
+        } else if (type == RECORD_END) {
+            games.remove(GameSnapshotCodec.readId(payload));
+        }
+    }
+
+    // Returns the first journal segment not covered by the snapshot
+    private long readSnapshot(Map<String, GameState> games) throws IOException {
+        Path file = dir.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            long firstSegment = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                GameState game = GameSnapshotCodec.read(ByteBuffer.wrap(bytes));
+                games.put(game.getGameId(), game);
+            }
+            return firstSegment;
+        }
+    }
+
+    public Checkpoint beginCheckpoint() {
+        return new Checkpoint(journal.roll());
+    }
+
+    // Writes a new snapshot file. Records appended after the roll land in the
+    // new segment and are replayed on top of this snapshot.
+    public class Checkpoint {
+        private final long firstSegment;
+        private final Path temp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        private final DataOutputStream out;
+        private int count;
+
+        private Checkpoint(long firstSegment) {
+            this.firstSegment = firstSegment;
+            try {
+                this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+                out.writeLong(firstSegment);
+                out.writeInt(0); // count, patched in commit()
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Call from the game's actor
+        public void add(GameState game) {
+            ByteBuffer buffer = ByteBuffer.allocate(GameSnapshotCodec.encodedSize(game));
+            GameSnapshotCodec.write(game, buffer);
+            try {
+                out.writeInt(buffer.position());
+                out.write(buffer.array(), 0, buffer.position());
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void commit() {
+            try {
+                out.close();
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.write(ByteBuffer.allocate(4).putInt(0, count), 8);
+                    channel.force(true);
+                }
+                Files.move(temp, dir.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            journal.deleteSegmentsBefore(firstSegment);
+            log.info("Checkpointed {} games", count);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.game.numbergrid.persistence;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Compact binary form of a game: header plus 4 bits per cell (about 130 bytes
+// for a 10x20 board). Selection and hint flags are transient and not kept.
+// Format 2 packs cells like the wire frames (Board.packValues); format 1,
+// with the even cell in the high nibble, is still read from older files.
+public final class GameSnapshotCodec {
+
+    private static final byte FORMAT = 2;
+    private static final byte FORMAT_HIGH_NIBBLE_FIRST = 1;
+
+    private GameSnapshotCodec() {
+    }
+
+    public static int encodedSize(GameState game) {
+        Board board = game.getBoard();
+        return 1 + idSize(game.getGameId()) + 8 + 8 + 1 + 4 + 4 + 4 + Board.packedSize(board.getCellCount());
+    }
+
+    public static void write(GameState game, ByteBuffer out) {
+        Board board = game.getBoard();
+        out.put(FORMAT);
+        writeId(game.getGameId(), out);
+        out.putLong(game.getSeed());
+        out.putLong(game.getScore());
+        out.put((byte) (game.isGameOver() ? 1 : 0));
+        out.putInt(board.getVersion());
+        out.putInt(board.getRows());
+        out.putInt(board.getCols());
+        board.packValues(out);
+    }
+
+    public static GameState read(ByteBuffer in) {
+        byte format = in.get();
+        if (format != FORMAT && format != FORMAT_HIGH_NIBBLE_FIRST) {
+            throw new IllegalStateException("Unknown snapshot format " + format);
+        }
+        String gameId = readId(in);
+        long seed = in.getLong();
+        long score = in.getLong();
+        boolean gameOver = in.get() != 0;
+        int version = in.getInt();
+        int rows = in.getInt();
+        int cols = in.getInt();
+        // Checked before allocating: the bytes may come from another node or a damaged file
+        long cells = (long) rows * cols;
+        if (rows < 1 || cols < 1 || cells > Board.MAX_CELLS) {
+            throw new IllegalStateException("Snapshot of game " + gameId + " has a " + rows + "x" + cols + " board");
+        }
+        if (in.remaining() < Board.packedSize((int) cells)) {
+            throw new IllegalStateException("Snapshot of game " + gameId + " is truncated");
+        }
+
+        Board board = new Board(rows, cols);
+        if (format == FORMAT) {
+            board.unpackValues(in);
+        } else {
+            // Swap each byte's nibbles into the current order
+            ByteBuffer swapped = ByteBuffer.allocate(Board.packedSize((int) cells));
+            while (swapped.hasRemaining()) {
+                int packed = in.get() & 0xFF;
+                swapped.put((byte) (packed << 4 | packed >>> 4));
+            }
+            board.unpackValues(swapped.flip());
+        }
+        board.restoreVersion(version);
+
+        GameState game = new GameState(board, seed);
+        game.setGameId(gameId);
+        game.setScore(score);
+        game.setGameOver(gameOver);
+        return game;
+    }
+
+    // Game IDs are short ASCII strings (UUIDs): 1-byte length + bytes
+    static int idSize(String gameId) {
+        return 1 + gameId.length();
+    }
+
+    static void writeId(String gameId, ByteBuffer out) {
+        byte[] bytes = gameId.getBytes(StandardCharsets.US_ASCII);
+        out.put((byte) bytes.length);
+        out.put(bytes);
+    }
+
+    static String readId(ByteBuffer in) {
+        byte[] bytes = new byte[in.get() & 0xFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,211 @@
+package com.game.numbergrid.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Append-only journal in memory-mapped segment files (journal-<n>.log).
+// A record is [int length][int crc32c][payload]; a zero length marks the end
+// of the written part of a segment. Appends are a memory copy under a short
+// lock; force() pushes them to disk and is called in batches by the owner.
+// The lock only covers noting which bytes are unforced: the msync itself
+// runs outside it, so appends never wait for the disk.
+class MoveJournal {
+
+    private static final int HEADER = 8;
+
+    interface RecordHandler {
+        void onRecord(ByteBuffer payload);
+    }
+
+    interface RecordWriter {
+        void write(ByteBuffer out);
+    }
+
+    private final Path dir;
+    private final int segmentSize;
+
+    private long segment;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int forcedTo; // bytes of 'mapped' already forced
+
+    // Unforced tails of segments retired since the last force(); their
+    // buffers stay mapped (and valid) until forced, even with the file closed
+    private final List<Unforced> retired = new ArrayList<>();
+
+    // One force() at a time, so a return means everything before it is on disk
+    private final Object forceLock = new Object();
+
+    private static final class Unforced {
+        final MappedByteBuffer buffer;
+        final int from;
+        final int to;
+
+        Unforced(MappedByteBuffer buffer, int from, int to) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    MoveJournal(Path dir, int segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    // Appends go to a fresh segment after the newest one on disk
+    synchronized void open() {
+        try {
+            Files.createDirectories(dir);
+            List<Long> existing = segments();
+            segment = existing.isEmpty() ? 0 : existing.get(existing.size() - 1) + 1;
+            map(segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized void append(int payloadSize, RecordWriter writer) {
+        int needed = HEADER + payloadSize + 4; // room for the next zero length marker
+        if (mapped.remaining() < needed) {
+            startSegment(segment + 1, Math.max(segmentSize, needed));
+        }
+        int start = mapped.position();
+        mapped.position(start + HEADER);
+        writer.write(mapped);
+        int end = mapped.position();
+
+        CRC32C crc = new CRC32C();
+        crc.update(mapped.slice(start + HEADER, end - start - HEADER));
+        mapped.putInt(start + 4, (int) crc.getValue());
+        // Length last, so a reader never sees a record before it is complete
+        mapped.putInt(start, end - start - HEADER);
+    }
+
+    // Flush appended records to disk; cheap when nothing was written
+    void force() {
+        synchronized (forceLock) {
+            List<Unforced> pending;
+            synchronized (this) {
+                pending = new ArrayList<>(retired);
+                retired.clear();
+                if (mapped != null && mapped.position() > forcedTo) {
+                    pending.add(new Unforced(mapped, forcedTo, mapped.position()));
+                    forcedTo = mapped.position();
+                }
+            }
+            for (Unforced range : pending) {
+                range.buffer.force(range.from, range.to - range.from);
+            }
+        }
+    }
+
+    // Start a new segment and return its number; earlier segments are complete
+    synchronized long roll() {
+        startSegment(segment + 1, segmentSize);
+        return segment;
+    }
+
+    synchronized void deleteSegmentsBefore(long first) {
+        try {
+            for (long number : segments()) {
+                if (number < first) {
+                    Files.deleteIfExists(segmentPath(number));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void close() {
+        force();
+        synchronized (this) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Replays every intact record from segment 'first' onwards, oldest first.
+    // Stops a segment at the first torn or corrupt record.
+    void replay(long first, RecordHandler handler) throws IOException {
+        for (long number : segments()) {
+            if (number < first) {
+                continue;
+            }
+            try (FileChannel in = FileChannel.open(segmentPath(number), StandardOpenOption.READ)) {
+                MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                CRC32C crc = new CRC32C();
+                while (data.remaining() >= HEADER) {
+                    int length = data.getInt();
+                    int expected = data.getInt();
+                    if (length <= 0 || length > data.remaining()) {
+                        break;
+                    }
+                    ByteBuffer payload = data.slice(data.position(), length);
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != expected) {
+                        break;
+                    }
+                    handler.onRecord(payload);
+                    data.position(data.position() + length);
+                }
+            }
+        }
+    }
+
+    // The old segment's unforced tail is left for the next force()
+    private void startSegment(long number, int size) {
+        try {
+            if (mapped != null && mapped.position() > forcedTo) {
+                retired.add(new Unforced(mapped, forcedTo, mapped.position()));
+            }
+            if (channel != null) {
+                channel.close();
+            }
+            segment = number;
+            map(size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void map(int size) throws IOException {
+        channel = FileChannel.open(segmentPath(segment),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        forcedTo = 0;
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                numbers.add(Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length())));
+            }
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private Path segmentPath(long number) {
+        return dir.resolve(String.format("journal-%06d.log", number));
+    }
+}
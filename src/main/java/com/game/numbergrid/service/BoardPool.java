@@ -0,0 +1,98 @@
+package com.game.numbergrid.service;
+
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.model.HintIndex;
+import com.game.numbergrid.model.HintPolicy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Default-size boards generated ahead of time on a background thread, so a
+// burst of /game/start or /restart only has to take one off the queue.
+@Component
+public class BoardPool {
+
+    private final boolean enabled;
+    private final int minValidMoves;
+    private final BlockingQueue<GameState> ready;
+    private Thread filler;
+
+    public BoardPool(
+            @Value("${game.pool.enabled:true}") boolean enabled,
+            @Value("${game.pool.size:256}") int size,
+            @Value("${game.pool.min-valid-moves:0}") int minValidMoves) {
+        this.enabled = enabled && size > 0;
+        this.minValidMoves = minValidMoves;
+        this.ready = new ArrayBlockingQueue<>(Math.max(size, 1));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        filler = new Thread(this::fill, "board-pool");
+        filler.setDaemon(true);
+        filler.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (filler != null) {
+            filler.interrupt();
+        }
+    }
+
+    // A pre-generated default-size board, or null if the pool is empty or disabled
+    public GameState poll() {
+        return enabled ? ready.poll() : null;
+    }
+
+    public int available() {
+        return ready.size();
+    }
+
+    private void fill() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                ready.put(generate());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private GameState generate() {
+        while (true) {
+            long seed = ThreadLocalRandom.current().nextLong();
+            if (hasValidMoves(seed, minValidMoves)) {
+                return new GameState(GameState.DEFAULT_ROWS, GameState.DEFAULT_COLS, seed);
+            }
+        }
+    }
+
+    // Plays first-found hints on a throwaway copy of the board; the seed is
+    // only accepted if at least 'moves' combos can be cleared in a row
+    static boolean hasValidMoves(long seed, int moves) {
+        if (moves <= 0) {
+            return true;
+        }
+        GameState trial = new GameState(GameState.DEFAULT_ROWS, GameState.DEFAULT_COLS, seed);
+        HintIndex index = trial.getHintIndex();
+        for (int played = 0; played < moves; played++) {
+            int comboSize = index.findCombo(HintPolicy.FIRST);
+            if (comboSize < 2) {
+                return false;
+            }
+            for (int i = 0; i < comboSize; i++) {
+                trial.clearCell(index.getComboCell(i));
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package com.game.numbergrid.service;
+
+// Answers "is there a combo of 2..maxComboSize blocks summing to a multiple of 10"
+// from the per-value block counts alone, without walking the grid.
+public final class ComboSolver {
+
+    private static final int ALL_RESIDUES = (1 << 10) - 1;
+
+    // Up to this size the masks for every combo size fit side by side in one
+    // long, 10 bits per size, so the check needs no array
+    private static final int PACKED_MAX_SIZE = 5;
+    private static final long LANE_ONES = 1L | 1L << 10 | 1L << 20 | 1L << 30 | 1L << 40 | 1L << 50;
+
+    private ComboSolver() {
+    }
+
+    // valueCounts[v] = number of live blocks holding value v (index 0 is ignored)
+    public static boolean hasValidCombo(int[] valueCounts, int maxComboSize) {
+        if (maxComboSize < 2) {
+            return false;
+        }
+        if (maxComboSize <= PACKED_MAX_SIZE) {
+            return hasValidComboPacked(valueCounts, maxComboSize);
+        }
+
+        // reachable[size] is a 10-bit mask of the sums (mod 10) that some
+        // combo of exactly 'size' blocks can reach
+        int[] reachable = new int[maxComboSize + 1];
+        reachable[0] = 1;
+
+        for (int value = 1; value <= 9; value++) {
+            // More than maxComboSize copies of one value never opens up a new sum
+            int copies = Math.min(valueCounts[value], maxComboSize);
+            for (int copy = 0; copy < copies; copy++) {
+                for (int size = maxComboSize; size >= 1; size--) {
+                    reachable[size] |= rotate(reachable[size - 1], value);
+                }
+            }
+        }
+
+        for (int size = 2; size <= maxComboSize; size++) {
+            if ((reachable[size] & 1) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Same DP with reachable[size] held in bits [10 * size, 10 * size + 10)
+    private static boolean hasValidComboPacked(int[] valueCounts, int maxComboSize) {
+        int lanes = 10 * (maxComboSize + 1);
+        long live = (1L << lanes) - 1;
+        long reachable = 1;
+        for (int value = 1; value <= 9; value++) {
+            int copies = Math.min(valueCounts[value], maxComboSize);
+            long low = LANE_ONES * ((1 << value) - 1);
+            for (int copy = 0; copy < copies; copy++) {
+                // Rotate every lane by 'value', then move it up one size
+                long rotated = ((reachable << value) & ~low) | ((reachable >>> (10 - value)) & low);
+                reachable |= (rotated << 10) & live;
+            }
+        }
+        // Residue 0 in any lane from size 2 up
+        return (reachable & LANE_ONES & live & ~((1L << 20) - 1)) != 0;
+    }
+
+    // Number of mask updates hasValidCombo makes for these counts (for metrics)
+    public static int steps(int[] valueCounts, int maxComboSize) {
+        int copies = 0;
+        for (int value = 1; value <= 9; value++) {
+            copies += Math.min(valueCounts[value], maxComboSize);
+        }
+        return copies * maxComboSize;
+    }
+
+    // Shift a residue mask by 'value' positions, wrapping around mod 10
+    private static int rotate(int mask, int value) {
+        return ((mask << value) | (mask >>> (10 - value))) & ALL_RESIDUES;
+    }
+}
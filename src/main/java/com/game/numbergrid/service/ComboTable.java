@@ -0,0 +1,175 @@
+package com.game.numbergrid.service;
+
+import java.util.Arrays;
+
+// Which combo sizes can reach a multiple of 10, precomputed for every board
+// with fewer than 10 live blocks (as counts per value 1-9): C(18, 9) = 48,620
+// count vectors, two bytes each, built once when the class loads.
+//
+// Boards with 10 or more live blocks need no table: of the prefix sums of any
+// 10 blocks two agree mod 10, and the blocks between them are a combo of at
+// most 10. So with a size limit of 10 or more, "is there a move" is one count
+// and at most one lookup, for combos of any length.
+public final class ComboTable {
+
+    // A limit at or above this is no limit: every board that has a combo has
+    // one of at most this many blocks
+    public static final int MAX_SIZE = 10;
+
+    private static final int MAX_LIVE = MAX_SIZE - 1;
+
+    // WAYS[m][r] = number of count vectors over m values with total <= r,
+    // i.e. C(r + m, m); used to rank a vector in the table
+    private static final int[][] WAYS = buildWays();
+
+    // SIZES[rank(counts)] has bit k set when some k blocks sum to a multiple of 10
+    private static final short[] SIZES = buildSizes();
+
+    private ComboTable() {
+    }
+
+    // valueCounts[v] = number of live blocks holding value v (index 0 is ignored)
+    public static boolean hasCombo(int[] valueCounts, int maxComboSize) {
+        if (maxComboSize < 2) {
+            return false;
+        }
+        int live = live(valueCounts);
+        if (live > MAX_LIVE) {
+            return maxComboSize >= MAX_SIZE || ComboSolver.hasValidCombo(valueCounts, maxComboSize);
+        }
+        return (SIZES[rank(valueCounts)] & upTo(maxComboSize)) != 0;
+    }
+
+    // Bit k set when a combo of exactly k blocks exists; only for boards with
+    // fewer than 10 live blocks
+    public static int comboSizes(int[] valueCounts) {
+        if (live(valueCounts) > MAX_LIVE) {
+            throw new IllegalArgumentException("Only boards with fewer than " + MAX_SIZE + " live blocks are tabled");
+        }
+        return SIZES[rank(valueCounts)];
+    }
+
+    // Fills 'combo' with the counts per value of a smallest combo of at most
+    // maxComboSize blocks; returns its size, or 0 if there is none
+    public static int smallestCombo(int[] valueCounts, int maxComboSize, int[] combo) {
+        Arrays.fill(combo, 0);
+        int live = live(valueCounts);
+        int limit = Math.min(Math.min(maxComboSize, MAX_SIZE), live);
+        int sizes = live > MAX_LIVE ? (2 << limit) - 4 : SIZES[rank(valueCounts)] & upTo(limit);
+        for (int size = 2; size <= limit; size++) {
+            if ((sizes & (1 << size)) != 0 && find(valueCounts, 1, size, 0, combo)) {
+                return size;
+            }
+        }
+        return 0;
+    }
+
+    // Number of mask updates hasCombo makes for these counts (for metrics)
+    public static int steps(int[] valueCounts, int maxComboSize) {
+        if (live(valueCounts) > MAX_LIVE && maxComboSize < MAX_SIZE) {
+            return ComboSolver.steps(valueCounts, maxComboSize);
+        }
+        return 1;
+    }
+
+    // Take 'left' more blocks from values 'value'..9 so the total ends on a multiple of 10
+    private static boolean find(int[] valueCounts, int value, int left, int sum, int[] combo) {
+        if (left == 0) {
+            return sum % 10 == 0;
+        }
+        if (value > 9) {
+            return false;
+        }
+        for (int take = Math.min(valueCounts[value], left); take >= 0; take--) {
+            combo[value] = take;
+            if (find(valueCounts, value + 1, left - take, sum + take * value, combo)) {
+                return true;
+            }
+        }
+        combo[value] = 0;
+        return false;
+    }
+
+    private static int live(int[] valueCounts) {
+        int live = 0;
+        for (int value = 1; value <= 9; value++) {
+            live += valueCounts[value];
+        }
+        return live;
+    }
+
+    // Sizes 2..maxComboSize
+    private static int upTo(int maxComboSize) {
+        int top = Math.min(maxComboSize, MAX_LIVE);
+        return top < 2 ? 0 : (2 << top) - 4;
+    }
+
+    // Position of a vector with total <= 9 among all such vectors, ordered by
+    // the count of 1s, then 2s, and so on (at most 9 additions in all).
+    // Package-private for tests.
+    static int rank(int[] valueCounts) {
+        int index = 0;
+        int left = MAX_LIVE;
+        for (int value = 1; value <= 9; value++) {
+            for (int copies = 0; copies < valueCounts[value]; copies++) {
+                // Vectors that hold fewer copies of this value come first
+                index += WAYS[9 - value][left - copies];
+            }
+            left -= valueCounts[value];
+        }
+        return index;
+    }
+
+    private static int[][] buildWays() {
+        int[][] ways = new int[10][MAX_LIVE + 1];
+        for (int left = 0; left <= MAX_LIVE; left++) {
+            ways[0][left] = 1;
+        }
+        for (int values = 1; values <= 9; values++) {
+            for (int left = 0; left <= MAX_LIVE; left++) {
+                ways[values][left] = ways[values - 1][left] + (left > 0 ? ways[values][left - 1] : 0);
+            }
+        }
+        return ways;
+    }
+
+    private static short[] buildSizes() {
+        short[] sizes = new short[WAYS[9][MAX_LIVE]];
+        fill(sizes, new int[10], 1, MAX_LIVE);
+        return sizes;
+    }
+
+    // Every vector with counts[1..value) already set and at most 'left' blocks to come
+    private static void fill(short[] sizes, int[] counts, int value, int left) {
+        if (value > 9) {
+            sizes[rank(counts)] = (short) sizesOf(counts);
+            return;
+        }
+        for (int copies = 0; copies <= left; copies++) {
+            counts[value] = copies;
+            fill(sizes, counts, value + 1, left - copies);
+        }
+        counts[value] = 0;
+    }
+
+    // Same DP as ComboSolver, keeping every size that reaches residue 0
+    private static int sizesOf(int[] counts) {
+        int[] reachable = new int[MAX_LIVE + 1]; // per size, a 10-bit mask of sums mod 10
+        reachable[0] = 1;
+        for (int value = 1; value <= 9; value++) {
+            for (int copy = 0; copy < counts[value]; copy++) {
+                for (int size = MAX_LIVE; size >= 1; size--) {
+                    int mask = reachable[size - 1];
+                    reachable[size] |= ((mask << value) | (mask >>> (10 - value))) & 0x3FF;
+                }
+            }
+        }
+        int sizes = 0;
+        for (int size = 2; size <= MAX_LIVE; size++) {
+            if ((reachable[size] & 1) != 0) {
+                sizes |= 1 << size;
+            }
+        }
+        return sizes;
+    }
+}
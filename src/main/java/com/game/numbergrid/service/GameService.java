@@ -1,210 +1,406 @@
 package com.game.numbergrid.service;
 
-import com.game.numbergrid.model.Block;
+import com.game.numbergrid.cluster.GameOwnership;
+import com.game.numbergrid.leaderboard.Leaderboard;
+import com.game.numbergrid.metrics.GameMetrics;
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.BoardVersion;
+import com.game.numbergrid.model.GameHistory;
 import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.model.HintIndex;
+import com.game.numbergrid.model.HintPolicy;
+import com.game.numbergrid.model.MoveMessage;
+import com.game.numbergrid.persistence.GamePersistence;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Service
 public class GameService {
+
+    // Largest board accepted from a client
+    public static final int MAX_CELLS = Board.MAX_CELLS;
+
+    // Optional: not present when the service is built by hand (benchmarks)
+    @Autowired(required = false)
+    private BoardPool boardPool;
+
+    @Autowired(required = false)
+    private GamePersistence persistence;
+
+    @Autowired(required = false)
+    private GameMetrics metrics = GameMetrics.DISABLED;
+
+    @Autowired(required = false)
+    private GameOwnership ownership;
+
+    @Autowired(required = false)
+    private Leaderboard leaderboard;
+
+    // Versions kept per game for undo, redo and replay; 0 = no history
+    // (the default when the service is built by hand, e.g. simulations)
+    @Value("${game.history.size:64}")
+    private int historySize;
+
+    // Game over when no combo of up to this many blocks is left, and the
+    // largest combo a hint suggests. 10 or more covers every combo size.
+    @Value("${game.combo.max-size:10}")
+    private int maxComboSize = ComboTable.MAX_SIZE;
     
     public GameState createNewGame() {
-        GameState game = new GameState();
-        game.setGameId(java.util.UUID.randomUUID().toString());
+        return createNewGame(GameState.DEFAULT_ROWS, GameState.DEFAULT_COLS);
+    }
+
+    public GameState createNewGame(int rows, int cols) {
+        checkSize(rows, cols);
+        GameState game = null;
+        if (boardPool != null && rows == GameState.DEFAULT_ROWS && cols == GameState.DEFAULT_COLS) {
+            game = boardPool.poll();
+        }
+        if (game == null) {
+            game = new GameState(rows, cols);
+        }
+        game.setGameId(newGameId());
+        return game;
+    }
+
+    // In a cluster, draw IDs until one lands in this node's range, so a
+    // new game never has to move (about one draw per member)
+    private String newGameId() {
+        while (true) {
+            String gameId = java.util.UUID.randomUUID().toString();
+            if (ownership == null || ownership.isLocal(gameId)) {
+                return gameId;
+            }
+        }
+    }
+
+    // Rebuild a specific board, e.g. to reproduce a reported game
+    public GameState createNewGame(int rows, int cols, long seed) {
+        checkSize(rows, cols);
+        GameState game = new GameState(rows, cols, seed);
+        game.setGameId(newGameId());
         return game;
     }
 
+    private void checkSize(int rows, int cols) {
+        if (rows < 1 || cols < 1 || (long) rows * cols < 2 || (long) rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("Board must have 2 to " + MAX_CELLS
+                + " cells, got " + rows + "x" + cols);
+        }
+    }
+
     // New: Handle multiple block selection (drag combo)
     public GameState selectBlocks(GameState game, List<int[]> selectedPositions) {
+        int[] rowCols = new int[2 * selectedPositions.size()];
+        for (int i = 0; i < selectedPositions.size(); i++) {
+            rowCols[2 * i] = selectedPositions.get(i)[0];
+            rowCols[2 * i + 1] = selectedPositions.get(i)[1];
+        }
+        return selectPositions(game, rowCols, selectedPositions.size());
+    }
+
+    // Original single block selection (kept for backward compatibility)
+    public GameState selectBlock(GameState game, int row, int col) {
+        return selectPositions(game, new int[]{row, col}, 1);
+    }
+
+    // Positions as (row, col) pairs in rowCols[0 .. 2 * count). The array is
+    // reused: its first 'count' slots are overwritten with cell indices.
+    public GameState selectPositions(GameState game, int[] rowCols, int count) {
+        Board board = game.getBoard();
+        for (int i = 0; i < count; i++) {
+            int row = rowCols[2 * i];
+            int col = rowCols[2 * i + 1];
+            if (row < 0 || row >= board.getRows() || col < 0 || col >= board.getCols()) {
+                game.clearMessages();
+                game.addMessage(game.isGameOver() ? MoveMessage.GAME_ALREADY_OVER : MoveMessage.INVALID_POSITION,
+                    row, col, 0);
+                return game;
+            }
+            rowCols[i] = board.cellIndex(row, col);
+        }
+        return selectCells(game, rowCols, count);
+    }
+
+    // The move itself, on cell indices (row * cols + col) in cells[0 .. count).
+    // Checks, scoring and clearing take one pass and allocate nothing; messages
+    // are only formatted if they are read.
+    public GameState selectCells(GameState game, int[] cells, int count) {
+        long start = metrics.start();
+        try {
+            return select(game, cells, count);
+        } finally {
+            metrics.stop(GameMetrics.Op.SELECT, start);
+        }
+    }
+
+    private GameState select(GameState game, int[] cells, int count) {
         game.clearMessages();
         
         if (game.isGameOver()) {
-            game.addMessage("Game over! Start a new game.");
+            game.addMessage(MoveMessage.GAME_ALREADY_OVER, 0, 0, 0);
+            return game;
+        }
+        if (count < 1) {
+            game.addMessage(MoveMessage.NO_BLOCKS, 0, 0, 0);
             return game;
         }
 
-        Block[][] grid = game.getGrid();
-        
-        // Validate all positions
-        for (int[] pos : selectedPositions) {
-            int row = pos[0];
-            int col = pos[1];
-            if (row < 0 || row >= 10 || col < 0 || col >= 20) {
-                game.addMessage("Invalid position at (" + row + "," + col + ")!");
-                return game;
+        Board board = game.getBoard();
+        int cellCount = board.getCellCount();
+
+        // Validate all positions and add them up; the scratch marks catch a
+        // block listed twice, which would otherwise score twice
+        MoveMessage problem = null;
+        int badCell = 0;
+        int marked = 0;
+        int totalSum = 0;
+        for (int i = 0; i < count; i++) {
+            int cell = cells[i];
+            if (cell < 0 || cell >= cellCount) {
+                problem = MoveMessage.INVALID_CELL;
+            } else if (board.isEmpty(cell)) {
+                problem = MoveMessage.EMPTY_BLOCK;
+            } else if (!board.mark(cell)) {
+                problem = MoveMessage.DUPLICATE_BLOCK;
             }
-            if (grid[row][col].isEmpty()) {
-                game.addMessage("Cannot select empty block at (" + row + "," + col + ")!");
-                return game;
+            if (problem != null) {
+                badCell = cell;
+                break;
             }
+            marked++;
+            totalSum += board.getValue(cell);
+        }
+        for (int i = 0; i < marked; i++) {
+            board.unmark(cells[i]);
+        }
+        if (problem == MoveMessage.INVALID_CELL) {
+            game.addMessage(problem, badCell, 0, 0);
+            return game;
+        }
+        if (problem != null) {
+            game.addMessage(problem, badCell / board.getCols(), badCell % board.getCols(), 0);
+            return game;
         }
 
         // If only one block selected, just select it
-        if (selectedPositions.size() == 1) {
-            int[] pos = selectedPositions.get(0);
-            Block block = grid[pos[0]][pos[1]];
-            block.setSelected(!block.isSelected()); // Toggle selection
-            if (block.isSelected()) {
-                game.addMessage("Selected: " + block.getValue());
+        if (count == 1) {
+            int cell = cells[0];
+            board.setSelected(cell, !board.isSelected(cell)); // Toggle selection
+            if (board.isSelected(cell)) {
+                game.addMessage(MoveMessage.SELECTED, board.getValue(cell), 0, 0);
             } else {
-                game.addMessage("Deselected block");
+                game.addMessage(MoveMessage.DESELECTED, 0, 0, 0);
             }
             return game;
         }
 
-        // Calculate sum of all selected blocks
-        int totalSum = 0;
-        List<Block> selectedBlocks = new ArrayList<>();
-        for (int[] pos : selectedPositions) {
-            Block block = grid[pos[0]][pos[1]];
-            totalSum += block.getValue();
-            selectedBlocks.add(block);
-        }
+        int comboSize = count;
 
         // Check if sum is a multiple of 10
         if (totalSum % 10 == 0) {
             // Valid combo! Clear all selected blocks
-            for (Block block : selectedBlocks) {
-                block.setValue(0);
-                block.setSelected(false);
+            metrics.increment(GameMetrics.Counter.COMBO_VALID);
+            GameHistory history = history(game);
+            for (int i = 0; i < count; i++) {
+                game.clearCell(cells[i]);
             }
             
             // Calculate score: 10 points per block × combo multiplier
-            int baseScore = 10 * selectedBlocks.size();
-            int comboMultiplier = selectedBlocks.size(); // More blocks = higher multiplier
-            int scoreEarned = baseScore * comboMultiplier;
+            // (long: a combo on a large board can pass Integer.MAX_VALUE)
+            long baseScore = 10L * comboSize;
+            long comboMultiplier = comboSize; // More blocks = higher multiplier
+            long scoreEarned = baseScore * comboMultiplier;
             
             game.setScore(game.getScore() + scoreEarned);
-            game.addMessage("Perfect combo! " + selectedBlocks.size() + 
-                " blocks sum to " + totalSum + ". +" + scoreEarned + " points!");
+            game.addMessage(MoveMessage.PERFECT_COMBO, comboSize, totalSum, scoreEarned);
             
-            // Clear all hints
-            clearHints(grid);
+            // Clear all hints (returns at once when none are lit)
+            board.clearHints();
             
             // Check if game is over
-            if (isGameComplete(grid)) {
+            if (isGameComplete(game)) {
                 game.setGameOver(true);
-                game.addMessage("Game Over! Final Score: " + game.getScore());
+                game.addMessage(MoveMessage.GAME_OVER, game.getScore(), 0, 0);
+                if (leaderboard != null) {
+                    leaderboard.gameOver(game);
+                }
+            }
+            
+            if (history != null) {
+                history.record(history.current().withCleared(cells, count, game.getScore(), game.isGameOver()));
+            }
+            
+            if (persistence != null && persistence.isEnabled()) {
+                persistence.cellsCleared(game, cells, count);
             }
         } else {
             // Invalid combo
-            game.addMessage("Sum is " + totalSum + ", not a multiple of 10! Try again.");
+            metrics.increment(GameMetrics.Counter.COMBO_INVALID);
+            game.addMessage(MoveMessage.NOT_MULTIPLE_OF_TEN, totalSum, 0, 0);
             // Deselect all blocks
-            for (Block block : selectedBlocks) {
-                block.setSelected(false);
+            for (int i = 0; i < count; i++) {
+                board.setSelected(cells[i], false);
             }
         }
         
         return game;
     }
 
-    // Original single block selection (kept for backward compatibility)
-    public GameState selectBlock(GameState game, int row, int col) {
-        List<int[]> positions = new ArrayList<>();
-        positions.add(new int[]{row, col});
-        return selectBlocks(game, positions);
+    // The game's history, started from the board as it is now (before the
+    // first recorded move); null when history is off
+    private GameHistory history(GameState game) {
+        if (historySize <= 0) {
+            return null;
+        }
+        if (game.getHistory() == null) {
+            game.setHistory(new GameHistory(historySize,
+                BoardVersion.of(game.getBoard(), game.getScore(), game.isGameOver())));
+        }
+        return game.getHistory();
     }
 
-    private List<Block> getSelectedBlocks(Block[][] grid) {
-        List<Block> selected = new ArrayList<>();
-        for (int row = 0; row < 10; row++) {
-            for (int col = 0; col < 20; col++) {
-                if (grid[row][col].isSelected()) {
-                    selected.add(grid[row][col]);
-                }
-            }
+    // Take back the last valid move: its cells get their values back (O(cells in the move))
+    public GameState undo(GameState game) {
+        game.clearMessages();
+        GameHistory history = game.getHistory();
+        if (history == null || !history.canUndo()) {
+            game.addMessage("Nothing to undo");
+            return game;
         }
-        return selected;
+        BoardVersion undone = history.current();
+        BoardVersion previous = history.undo();
+        Board board = game.getBoard();
+        board.clearSelections();
+        board.clearHints();
+        for (int cell : undone.getClearedCells()) {
+            game.restoreCell(cell, previous.getValue(cell));
+        }
+        game.setScore(previous.getScore());
+        game.setGameOver(previous.isGameOver());
+        game.addMessage("Undid " + undone.getClearedCells().length + " blocks (step " + history.getStep() + ")");
+        gameChanged(game);
+        return game;
     }
 
-    private void clearSelections(Block[][] grid) {
-        for (int row = 0; row < 10; row++) {
-            for (int col = 0; col < 20; col++) {
-                grid[row][col].setSelected(false);
-            }
+    public GameState redo(GameState game) {
+        game.clearMessages();
+        GameHistory history = game.getHistory();
+        if (history == null || !history.canRedo()) {
+            game.addMessage("Nothing to redo");
+            return game;
         }
+        BoardVersion next = history.redo();
+        Board board = game.getBoard();
+        board.clearSelections();
+        board.clearHints();
+        for (int cell : next.getClearedCells()) {
+            game.clearCell(cell);
+        }
+        game.setScore(next.getScore());
+        game.setGameOver(next.isGameOver());
+        if (next.isGameOver() && leaderboard != null) {
+            leaderboard.gameOver(game);
+        }
+        game.addMessage("Redid " + next.getClearedCells().length + " blocks (step " + history.getStep() + ")");
+        gameChanged(game);
+        return game;
     }
 
-    private void clearHints(Block[][] grid) {
-        for (int row = 0; row < 10; row++) {
-            for (int col = 0; col < 20; col++) {
-                grid[row][col].setHinted(false);
-            }
+    // The journal only knows cleared cells, so log the whole game after undo or redo
+    private void gameChanged(GameState game) {
+        if (persistence != null && persistence.isEnabled()) {
+            persistence.gameStarted(game);
+        }
+    }
+
+    public boolean isGameComplete(GameState game) {
+        long start = metrics.start();
+        // Constant-time check over the live value counts
+        int[] valueCounts = game.getValueCounts();
+        boolean complete = !ComboTable.hasCombo(valueCounts, maxComboSize);
+        if (metrics.isEnabled()) {
+            metrics.add(GameMetrics.Counter.SOLVER_NODES, ComboTable.steps(valueCounts, maxComboSize));
         }
+        metrics.stop(GameMetrics.Op.GAME_OVER_CHECK, start);
+        return complete;
     }
 
-    private boolean isGameComplete(Block[][] grid) {
+    // Reference implementation: full recursive scan of the board.
+    // Kept so the residue-count solver can be checked against it.
+    boolean isGameCompleteByScan(Board board) {
         // Check if there are any combos that sum to a multiple of 10
-        List<Block> availableBlocks = new ArrayList<>();
-        for (int row = 0; row < 10; row++) {
-            for (int col = 0; col < 20; col++) {
-                if (!grid[row][col].isEmpty()) {
-                    availableBlocks.add(grid[row][col]);
-                }
-            }
+        List<Integer> availableValues = new ArrayList<>();
+        for (int cell = board.nextLiveCell(0); cell >= 0; cell = board.nextLiveCell(cell + 1)) {
+            availableValues.add(board.getValue(cell));
         }
         
-        // Check all possible combos (up to 4 blocks for performance)
-        return !hasValidCombo(availableBlocks, 0, new ArrayList<>(), 0, 4);
+        // Check all possible combos (up to the configured size)
+        return !hasValidCombo(availableValues, 0, 0, 0, maxComboSize);
     }
 
     // Recursive method to check for valid combos
-    private boolean hasValidCombo(List<Block> blocks, int startIndex, 
-                                 List<Block> currentCombo, int currentSum, int maxComboSize) {
+    private boolean hasValidCombo(List<Integer> values, int startIndex, 
+                                 int comboSize, int currentSum, int maxComboSize) {
         // If we have at least 2 blocks and sum is multiple of 10, return true
-        if (currentCombo.size() >= 2 && currentSum % 10 == 0) {
+        if (comboSize >= 2 && currentSum % 10 == 0) {
             return true;
         }
         
         // If combo size limit reached, stop
-        if (currentCombo.size() >= maxComboSize) {
+        if (comboSize >= maxComboSize) {
             return false;
         }
         
         // Try adding more blocks
-        for (int i = startIndex; i < blocks.size(); i++) {
-            Block block = blocks.get(i);
-            currentCombo.add(block);
-            int newSum = currentSum + block.getValue();
+        for (int i = startIndex; i < values.size(); i++) {
+            int newSum = currentSum + values.get(i);
             
-            if (hasValidCombo(blocks, i + 1, currentCombo, newSum, maxComboSize)) {
+            if (hasValidCombo(values, i + 1, comboSize + 1, newSum, maxComboSize)) {
                 return true;
             }
-            
-            currentCombo.remove(currentCombo.size() - 1);
         }
         
         return false;
     }
 
     public GameState getHint(GameState game) {
-        game.clearMessages();
-        Block[][] grid = game.getGrid();
-        clearHints(grid);
-        
-        List<Block> availableBlocks = new ArrayList<>();
-        for (int row = 0; row < 10; row++) {
-            for (int col = 0; col < 20; col++) {
-                if (!grid[row][col].isEmpty()) {
-                    availableBlocks.add(grid[row][col]);
-                }
-            }
+        return getHint(game, HintPolicy.NEAREST);
+    }
+
+    public GameState getHint(GameState game, HintPolicy policy) {
+        long start = metrics.start();
+        try {
+            return hint(game, policy);
+        } finally {
+            metrics.stop(GameMetrics.Op.HINT, start);
         }
+    }
+
+    private GameState hint(GameState game, HintPolicy policy) {
+        game.clearMessages();
+        Board board = game.getBoard();
+        board.clearHints();
         
-        // Find first valid combo for hint (up to 3 blocks for simplicity)
-        List<Block> hintCombo = findHintCombo(availableBlocks, 0, new ArrayList<>(), 0, 3);
+        // Answered from the per-value buckets, no grid scan
+        HintIndex index = game.getHintIndex();
+        int comboSize = findCombo(game, policy);
         
-        if (hintCombo != null && hintCombo.size() >= 2) {
+        if (comboSize >= 2) {
             // Highlight the blocks in the hint combo
-            for (Block block : hintCombo) {
-                block.setHinted(true);
+            int totalSum = 0;
+            for (int i = 0; i < comboSize; i++) {
+                int cell = index.getComboCell(i);
+                board.setHinted(cell, true);
+                totalSum += board.getValue(cell);
             }
             
-            // Calculate the sum
-            int totalSum = hintCombo.stream().mapToInt(Block::getValue).sum();
-            game.addMessage("Hint: Try connecting " + hintCombo.size() + 
+            game.addMessage("Hint: Try connecting " + comboSize + 
                 " blocks that sum to " + totalSum + " (multiple of 10)");
         } else {
             game.addMessage("No more valid moves!");
@@ -213,37 +409,82 @@ public class GameService {
         return game;
     }
 
-    private List<Block> findHintCombo(List<Block> blocks, int startIndex,
-                                     List<Block> currentCombo, int currentSum, int maxComboSize) {
-        // Return if we found a valid combo of at least 2 blocks
-        if (currentCombo.size() >= 2 && currentSum % 10 == 0) {
-            return new ArrayList<>(currentCombo);
+    // Finds a combo and leaves its cells in the game's hint index: 2 or 3
+    // blocks picked by 'policy' where possible, else the smallest larger one
+    // within the limit. Returns its size, or 0 if the board has no combo.
+    public int findCombo(GameState game, HintPolicy policy) {
+        HintIndex index = game.getHintIndex();
+        int comboSize = index.findCombo(policy);
+        if (comboSize == 0 && maxComboSize > 3) {
+            int[] values = new int[10];
+            if (ComboTable.smallestCombo(game.getValueCounts(), maxComboSize, values) > 0) {
+                comboSize = index.pickValues(values);
+            }
         }
-        
-        if (currentCombo.size() >= maxComboSize) {
-            return null;
+        return comboSize;
+    }
+
+    public int getMaxComboSize() {
+        return maxComboSize;
+    }
+
+    // For services built by hand (benchmarks, simulations)
+    public void setMaxComboSize(int maxComboSize) {
+        this.maxComboSize = maxComboSize;
+    }
+
+    // Highest-scoring plan for the board (see ScoreSolver). maxComboSize <= 0 means no limit.
+    public ScoreSolver.Plan solve(int[] valueCounts, int maxComboSize, long budgetMillis) {
+        return ScoreSolver.solve(valueCounts, maxComboSize, this.maxComboSize, budgetMillis * 1_000_000L);
+    }
+
+    // Picks board positions for each move of a plan made from this board's counts
+    public List<List<int[]>> planPositions(Board board, ScoreSolver.Plan plan) {
+        // Live cells by value; any cells of the right values will do
+        int[][] cellsByValue = new int[10][];
+        int[] taken = new int[10];
+        int[] counts = board.getValueCounts();
+        for (int value = 1; value <= 9; value++) {
+            cellsByValue[value] = new int[counts[value]];
         }
-        
-        for (int i = startIndex; i < blocks.size(); i++) {
-            Block block = blocks.get(i);
-            currentCombo.add(block);
-            int newSum = currentSum + block.getValue();
-            
-            List<Block> result = findHintCombo(blocks, i + 1, currentCombo, newSum, maxComboSize);
-            if (result != null) {
-                return result;
+        for (int cell = board.nextLiveCell(0); cell >= 0; cell = board.nextLiveCell(cell + 1)) {
+            int value = board.getValue(cell);
+            cellsByValue[value][taken[value]++] = cell;
+        }
+        Arrays.fill(taken, 0);
+
+        List<List<int[]>> moves = new ArrayList<>(plan.getMoves().size());
+        for (int[] move : plan.getMoves()) {
+            List<int[]> positions = new ArrayList<>();
+            for (int value = 1; value <= 9; value++) {
+                for (int i = 0; i < move[value]; i++) {
+                    int cell = cellsByValue[value][taken[value]++];
+                    positions.add(new int[]{cell / board.getCols(), cell % board.getCols()});
+                }
             }
-            
-            currentCombo.remove(currentCombo.size() - 1);
+            moves.add(positions);
         }
-        
-        return null;
+        return moves;
+    }
+
+    // Plays the moves in order; stops early if one is not accepted
+    public GameState autoPlay(GameState game, List<List<int[]>> moves) {
+        List<String> played = new ArrayList<>();
+        for (List<int[]> positions : moves) {
+            long before = game.getScore();
+            selectBlocks(game, positions);
+            played.addAll(game.getMessages());
+            if (game.getScore() == before || game.isGameOver()) {
+                break;
+            }
+        }
+        game.setMessages(played);
+        return game;
     }
 
     // Method to clear hint after it's been viewed
     public GameState clearHint(GameState game) {
-        Block[][] grid = game.getGrid();
-        clearHints(grid);
+        game.getBoard().clearHints();
         return game;
     }
-}
\ No newline at end of file
+}
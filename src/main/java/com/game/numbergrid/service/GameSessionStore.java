@@ -0,0 +1,521 @@
+package com.game.numbergrid.service;
+
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.persistence.GamePersistence;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Active games shared by all request threads. Lookups are lock-free and idle
+// or excess games are evicted. Each game is a single-writer actor: actions on
+// it are queued to its mailbox and run one at a time, in arrival order, on a
+// small shared pool, so callers never block on a contended game. Games idle
+// past game.sessions.hibernate-after are moved off the heap (HibernatedGames)
+// and brought back by the next action on them.
+@Component
+public class GameSessionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(GameSessionStore.class);
+
+    // How many entries are sampled to pick a victim when the store is full
+    private static final int EVICTION_SAMPLE = 8;
+
+    // Actions run per turn before a busy game yields its pool thread
+    private static final int MAILBOX_BATCH = 32;
+
+    // The session whose mailbox the current thread is draining
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // Sessions between beginHandOff and endHandOff (kept even if evicted meanwhile)
+    private final ConcurrentHashMap<String, Session> handOffs = new ConcurrentHashMap<>();
+
+    // Every held session once, in no particular order, so eviction can sample
+    // at random (the map's iterator always starts from the same buckets).
+    // Sessions join before they enter the map and leave after they leave it.
+    private final Object ringLock = new Object();
+    private Session[] ring = new Session[16];
+    private int ringSize;
+
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long hibernateAfterNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder idleEvictions = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder hibernations = new LongAdder();
+    private final LongAdder rehydrations = new LongAdder();
+    private final ExecutorService actors;
+
+    @Autowired(required = false)
+    private GamePersistence persistence;
+
+    @Autowired(required = false)
+    private HibernatedGames hibernated;
+
+    public GameSessionStore(
+            @Value("${game.sessions.max-size:100000}") int maxSize,
+            @Value("${game.sessions.idle-timeout:30m}") Duration idleTimeout,
+            @Value("${game.sessions.actor-threads:0}") int actorThreads,
+            @Value("${game.sessions.hibernate-after:10m}") Duration hibernateAfter) {
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.hibernateAfterNanos = hibernateAfter.toNanos();
+        int threads = actorThreads > 0 ? actorThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.actors = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "game-actor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final class Session {
+        final String gameId;
+        final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        GameState game; // only touched by the thread draining the mailbox; null while hibernated
+        volatile long slot = HibernatedGames.NONE; // off-heap copy while hibernated
+        volatile long boardBytes; // read by metrics without entering the actor
+        volatile long lastAccess = System.nanoTime();
+        volatile boolean handingOff; // later actions wait until endHandOff
+        int ringIndex = -1; // guarded by ringLock
+
+        Session(String gameId, GameState game) {
+            this.gameId = gameId;
+            setGame(game);
+        }
+
+        void setGame(GameState game) {
+            this.game = game;
+            this.boardBytes = game.getBoard().getMemoryBytes();
+        }
+
+        void enqueue(Runnable action) {
+            mailbox.add(action);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                actors.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            CURRENT.set(this);
+            try {
+                for (int i = 0; i < MAILBOX_BATCH && !handingOff; i++) {
+                    Runnable action = mailbox.poll();
+                    if (action == null) {
+                        break;
+                    }
+                    try {
+                        action.run();
+                    } catch (RuntimeException e) {
+                        // Requests complete their own futures; this is housekeeping
+                        log.warn("Action on game {} failed", gameId, e);
+                    }
+                }
+            } finally {
+                CURRENT.remove();
+                scheduled.set(false);
+                // Work arrived after the last poll, or the batch ran out
+                // (endHandOff reschedules a held mailbox)
+                if (!handingOff && !mailbox.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        // 'touch' marks the game as used, bringing it back if hibernated;
+        // without it a hibernated game is read from a throwaway copy
+        <R> void run(Function<GameState, R> action, CompletableFuture<R> result, boolean touch) {
+            // Evicted while the action was queued
+            if (sessions.get(gameId) != this) {
+                result.complete(null);
+                return;
+            }
+            try {
+                GameState target = game;
+                if (touch) {
+                    lastAccess = System.nanoTime();
+                    target = wake();
+                } else if (target == null) {
+                    target = hibernated.read(slot);
+                }
+                result.complete(action.apply(target));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private GameState wake() {
+            if (game == null) {
+                setGame(hibernated.read(slot));
+                release();
+                rehydrations.increment();
+            }
+            return game;
+        }
+
+        // Queued by the sweep; skipped if the game was used in the meantime
+        void hibernate() {
+            if (game == null || sessions.get(gameId) != this
+                    || System.nanoTime() - lastAccess <= hibernateAfterNanos) {
+                return;
+            }
+            long handle = hibernated.store(game);
+            if (handle != HibernatedGames.NONE) {
+                slot = handle;
+                game = null;
+                boardBytes = 0;
+                hibernations.increment();
+            }
+        }
+
+        // Frees the off-heap copy; queued once the session has left the map
+        void release() {
+            if (slot != HibernatedGames.NONE) {
+                hibernated.free(slot);
+                slot = HibernatedGames.NONE;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        actors.shutdown();
+    }
+
+    // Reload games saved before the last shutdown or crash
+    @PostConstruct
+    public void recover() {
+        if (persistence == null || !persistence.isEnabled()) {
+            return;
+        }
+        for (GameState game : persistence.recover()) {
+            Session session = new Session(game.getGameId(), game);
+            addToRing(session);
+            sessions.put(game.getGameId(), session);
+        }
+    }
+
+    public void put(GameState game) {
+        Session session = new Session(game.getGameId(), game);
+        if (persistence != null) {
+            persistence.gameStarted(game);
+        }
+        addToRing(session);
+        Session previous = sessions.put(game.getGameId(), session);
+        if (previous != null) {
+            removed(previous, false);
+        }
+        if (sessions.size() > maxSize) {
+            evictOldestSampled();
+        }
+    }
+
+    // Take over a game moved from another node, unless one with its ID is
+    // already held here. Returns false if it was already held.
+    public boolean adopt(GameState game) {
+        Session session = new Session(game.getGameId(), game);
+        addToRing(session);
+        if (sessions.putIfAbsent(game.getGameId(), session) != null) {
+            removeFromRing(session);
+            return false;
+        }
+        if (persistence != null) {
+            withGame(game.getGameId(), adopted -> {
+                persistence.gameStarted(adopted);
+                return null;
+            });
+        }
+        if (sessions.size() > maxSize) {
+            evictOldestSampled();
+        }
+        return true;
+    }
+
+    // Queues the action on the game's mailbox. The future completes with its
+    // result, or with null if the game is unknown or evicted before it ran.
+    public <R> CompletableFuture<R> submit(String gameId, Function<GameState, R> action) {
+        Session session = gameId == null ? null : sessions.get(gameId);
+        if (session == null) {
+            misses.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        hits.increment();
+        return submit(session, action);
+    }
+
+    private <R> CompletableFuture<R> submit(Session session, Function<GameState, R> action) {
+        return submit(session, action, true);
+    }
+
+    private <R> CompletableFuture<R> submit(Session session, Function<GameState, R> action, boolean touch) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        if (CURRENT.get() == session) {
+            // Already this game's actor (e.g. restart replacing its own game)
+            session.run(action, result, touch);
+        } else {
+            session.enqueue(() -> session.run(action, result, touch));
+        }
+        return result;
+    }
+
+    // Blocking form of submit, for callers that are not request handlers.
+    // Must not be called from an action on a different game.
+    public <R> R withGame(String gameId, Function<GameState, R> action) {
+        return join(submit(gameId, action));
+    }
+
+    private static <R> R join(CompletableFuture<R> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Swap in a new game under an existing ID (restart). Returns false if the ID is unknown.
+    // Called from an action on that game, it takes effect before the action returns.
+    public boolean replace(String gameId, GameState newGame) {
+        Boolean replaced = withGame(gameId, oldGame -> {
+            newGame.setGameId(gameId);
+            sessions.get(gameId).setGame(newGame);
+            if (persistence != null) {
+                persistence.gameStarted(newGame);
+            }
+            return Boolean.TRUE;
+        });
+        return replaced != null;
+    }
+
+    // First half of moving a game to another node: runs 'snapshot' on the
+    // game's actor, then holds every later action on the game until
+    // endHandOff. The game stays here, and is served from here, until the
+    // new owner has it. Null (and nothing held) if the game is not here.
+    public <R> R beginHandOff(String gameId, Function<GameState, R> snapshot) {
+        Session session = sessions.get(gameId);
+        if (session == null) {
+            return null;
+        }
+        return join(submit(session, game -> {
+            R result = snapshot.apply(game);
+            session.handingOff = true;
+            handOffs.put(gameId, session);
+            return result;
+        }));
+    }
+
+    // Second half: if the game moved, it is dropped and the held actions
+    // complete with null; otherwise they run here as usual
+    public void endHandOff(String gameId, boolean moved) {
+        Session session = handOffs.remove(gameId);
+        if (session == null) {
+            return;
+        }
+        if (moved && sessions.remove(gameId, session)) {
+            removed(session, true);
+        }
+        session.handingOff = false;
+        session.schedule();
+    }
+
+    public boolean contains(String gameId) {
+        return sessions.containsKey(gameId);
+    }
+
+    public void remove(String gameId) {
+        Session session = sessions.remove(gameId);
+        if (session != null) {
+            removed(session, true);
+        }
+    }
+
+    // Frees a removed session's off-heap copy after any action still queued on
+    // it. 'ended' (the ID is not being reused) also journals the game's end,
+    // on its actor so it follows the game's last journaled move.
+    private void removed(Session session, boolean ended) {
+        removeFromRing(session);
+        if (ended && persistence != null && persistence.isEnabled()) {
+            session.enqueue(() -> {
+                // Skipped if the game came back meanwhile (moved here again)
+                if (!sessions.containsKey(session.gameId)) {
+                    persistence.gameEnded(session.gameId);
+                }
+            });
+        }
+        // Queued even if not hibernated yet: a queued hibernate may still run
+        if (hibernated != null) {
+            session.enqueue(session::release);
+        }
+    }
+
+    // IDs of the held games (a live view)
+    public Set<String> gameIds() {
+        return Collections.unmodifiableSet(sessions.keySet());
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    // Approximate heap used by the boards of all held games (hibernated ones count 0)
+    public long boardBytes() {
+        long bytes = 0;
+        for (Session session : sessions.values()) {
+            bytes += session.boardBytes;
+        }
+        return bytes;
+    }
+
+    @Scheduled(fixedDelayString = "${game.sessions.sweep-interval:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        boolean hibernate = hibernated != null && hibernateAfterNanos > 0;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            long idle = now - session.lastAccess;
+            if (idle > idleTimeoutNanos) {
+                if (sessions.remove(entry.getKey(), session)) {
+                    idleEvictions.increment();
+                    removed(session, true);
+                }
+            } else if (hibernate && idle > hibernateAfterNanos && session.boardBytes != 0) {
+                session.enqueue(session::hibernate);
+            }
+        }
+    }
+
+    // Snapshot every game so the journal can be truncated. Hibernated games
+    // are read without waking them, and no game counts as used by this.
+    @Scheduled(fixedDelayString = "${game.persistence.checkpoint-interval:300000}",
+            initialDelayString = "${game.persistence.checkpoint-interval:300000}")
+    public void checkpoint() {
+        if (persistence == null || !persistence.isEnabled()) {
+            return;
+        }
+        GamePersistence.Checkpoint checkpoint = persistence.beginCheckpoint();
+        for (Session session : sessions.values()) {
+            join(submit(session, game -> {
+                checkpoint.add(game);
+                return null;
+            }, false));
+        }
+        checkpoint.commit();
+    }
+
+    // Approximate LRU: evict the least recently used of a few random entries
+    private void evictOldestSampled() {
+        while (sessions.size() > maxSize) {
+            Session victim = sampleOldest();
+            if (victim == null) {
+                return;
+            }
+            if (sessions.remove(victim.gameId, victim)) {
+                sizeEvictions.increment();
+                removed(victim, true);
+            }
+        }
+    }
+
+    private Session sampleOldest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        synchronized (ringLock) {
+            Session oldest = null;
+            for (int i = 0; i < EVICTION_SAMPLE && ringSize > 0; i++) {
+                Session candidate = ring[random.nextInt(ringSize)];
+                if (oldest == null || candidate.lastAccess < oldest.lastAccess) {
+                    oldest = candidate;
+                }
+            }
+            return oldest;
+        }
+    }
+
+    private void addToRing(Session session) {
+        synchronized (ringLock) {
+            if (ringSize == ring.length) {
+                ring = Arrays.copyOf(ring, ringSize * 2);
+            }
+            session.ringIndex = ringSize;
+            ring[ringSize++] = session;
+        }
+    }
+
+    // Moves the last session into the freed place
+    private void removeFromRing(Session session) {
+        synchronized (ringLock) {
+            int index = session.ringIndex;
+            if (index < 0) {
+                return;
+            }
+            Session last = ring[--ringSize];
+            ring[index] = last;
+            last.ringIndex = index;
+            ring[ringSize] = null;
+            session.ringIndex = -1;
+        }
+    }
+
+    // Games currently held off the heap
+    public int hibernatedCount() {
+        return hibernated == null ? 0 : hibernated.count();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", sessions.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("idleEvictions", idleEvictions.sum());
+        stats.put("sizeEvictions", sizeEvictions.sum());
+        stats.put("evictions", idleEvictions.sum() + sizeEvictions.sum());
+        stats.put("hibernated", hibernatedCount());
+        stats.put("hibernations", hibernations.sum());
+        stats.put("rehydrations", rehydrations.sum());
+        if (hibernated != null) {
+            stats.put("offHeapBytes", hibernated.slabBytes());
+            stats.put("offHeapUsedBytes", hibernated.slotBytes());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,124 @@
+package com.game.numbergrid.service;
+
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.persistence.GameSnapshotCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Idle games kept outside the heap. Each is encoded with GameSnapshotCodec
+// (about 170 bytes for a 10x20 board) into a slot of a direct ByteBuffer
+// slab, so a hibernated game costs the heap one small Session and nothing for
+// the GC to trace. Slots are sized in 64-byte steps up to 16 KB (a 10x20 game
+// takes 192); freed slots are reused by later games of the same size, and
+// slabs are kept once allocated. Larger games are not hibernated.
+//
+// A slot is named by a handle: slab index << 40 | size class << 32 | offset.
+// Only the game's actor reads or frees its slot; allocation is synchronized.
+@Component
+public class HibernatedGames {
+
+    public static final long NONE = -1;
+
+    private static final int SLOT_UNIT = 64;
+    private static final int SIZE_CLASSES = 256; // class n holds n * SLOT_UNIT bytes
+
+    private final int slabSize;
+    private final long maxBytes;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final long[][] freeSlots = new long[SIZE_CLASSES][];
+    private final int[] freeCounts = new int[SIZE_CLASSES];
+    private int bumpOffset; // next unused byte of the last slab
+
+    private long slotBytes;
+    private int count;
+
+    public HibernatedGames(
+            @Value("${game.sessions.hibernate-slab-size:4194304}") int slabSize,
+            @Value("${game.sessions.hibernate-max-bytes:1073741824}") long maxBytes) {
+        this.slabSize = slabSize;
+        this.maxBytes = maxBytes;
+    }
+
+    // Copies the game into a slot; NONE if it does not fit in a slab or the
+    // slabs are at their limit, in which case the game stays on the heap
+    public long store(GameState game) {
+        int size = GameSnapshotCodec.encodedSize(game);
+        long handle = allocate(size);
+        if (handle != NONE) {
+            GameSnapshotCodec.write(game, slot(handle));
+        }
+        return handle;
+    }
+
+    // A fresh copy of the stored game; the slot stays taken
+    public GameState read(long handle) {
+        return GameSnapshotCodec.read(slot(handle));
+    }
+
+    public synchronized void free(long handle) {
+        int sizeClass = (int) (handle >>> 32) & 0xFF;
+        long[] free = freeSlots[sizeClass];
+        if (free == null || freeCounts[sizeClass] == free.length) {
+            free = Arrays.copyOf(free == null ? new long[0] : free, Math.max(16, freeCounts[sizeClass] * 2));
+            freeSlots[sizeClass] = free;
+        }
+        free[freeCounts[sizeClass]++] = handle;
+        slotBytes -= sizeClass * SLOT_UNIT;
+        count--;
+    }
+
+    private synchronized long allocate(int size) {
+        int sizeClass = (size + SLOT_UNIT - 1) / SLOT_UNIT;
+        int slotSize = sizeClass * SLOT_UNIT;
+        if (sizeClass >= SIZE_CLASSES || slotSize > slabSize) {
+            return NONE;
+        }
+        long handle;
+        if (freeCounts[sizeClass] > 0) {
+            handle = freeSlots[sizeClass][--freeCounts[sizeClass]];
+        } else {
+            if (slabs.isEmpty() || bumpOffset + slotSize > slabSize) {
+                if ((long) (slabs.size() + 1) * slabSize > maxBytes) {
+                    return NONE;
+                }
+                slabs.add(ByteBuffer.allocateDirect(slabSize));
+                bumpOffset = 0;
+            }
+            handle = (long) (slabs.size() - 1) << 40 | (long) sizeClass << 32 | bumpOffset;
+            bumpOffset += slotSize;
+        }
+        slotBytes += slotSize;
+        count++;
+        return handle;
+    }
+
+    // A view of the slot; views are independent, so actors use them in parallel
+    private ByteBuffer slot(long handle) {
+        ByteBuffer slab;
+        synchronized (this) {
+            slab = slabs.get((int) (handle >>> 40));
+        }
+        int offset = (int) handle;
+        int sizeClass = (int) (handle >>> 32) & 0xFF;
+        return slab.duplicate().position(offset).limit(offset + sizeClass * SLOT_UNIT);
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    // Off-heap bytes allocated for slabs
+    public synchronized long slabBytes() {
+        return (long) slabs.size() * slabSize;
+    }
+
+    // Bytes of the slots in use
+    public synchronized long slotBytes() {
+        return slotBytes;
+    }
+}
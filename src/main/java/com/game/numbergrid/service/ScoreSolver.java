@@ -0,0 +1,494 @@
+package com.game.numbergrid.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Plans the clears that give the highest total score. A combo of n blocks
+// scores 10 x n x n and any cells may be picked, so only how many blocks of
+// each value are left matters: plans are made over the value counts.
+//
+// With no limit on combo size the answer is closed-form. n^2 is convex, so one
+// combo of every live block except the fewest whose values fix the total's
+// residue beats any sequence of smaller combos (and leaves nothing playable).
+// With a size limit the solver searches count vectors depth-first, memoizing
+// finished states and cutting branches that cannot beat the best plan so far.
+// Run on a fork/join pool (SolverPool), the first moves are searched in
+// parallel on it; elsewhere they run one after another on the calling thread.
+// The search stops at the time budget with the best plan found.
+public final class ScoreSolver {
+
+    // Largest combo size the search accepts; the move table grows ~5x per step
+    public static final int MAX_SEARCH_COMBO = 9;
+
+    // Every multiset of 2..MAX_SEARCH_COMBO values summing to a multiple of
+    // 10, as counts per value, largest first so good plans are found early
+    private static final int[][] MOVES = buildMoves();
+    private static final int[] MOVE_SIZES = sizesOf(MOVES);
+
+    private static final int NO_MOVE = 0xFFFF;
+
+    // Stop adding memo entries past this many states (at most about 130 MB)
+    private static final int MEMO_LIMIT = 1 << 21;
+
+    // Nodes between deadline checks
+    private static final int CLOCK_INTERVAL = 64;
+
+    private ScoreSolver() {
+    }
+
+    public static final class Plan {
+        private final List<int[]> moves;
+        private final long points;
+        private final boolean exact;
+        private final long nodes;
+
+        Plan(List<int[]> moves, long points, boolean exact, long nodes) {
+            this.moves = moves;
+            this.points = points;
+            this.exact = exact;
+            this.nodes = nodes;
+        }
+
+        // Per move, how many blocks of each value (index 1-9) to clear
+        public List<int[]> getMoves() { return moves; }
+        // Points the whole plan scores
+        public long getPoints() { return points; }
+        // False if the time budget ran out before the search finished
+        public boolean isExact() { return exact; }
+        public long getNodes() { return nodes; }
+    }
+
+    // maxComboSize <= 0 means no limit. Play ends when no combo of any size is left.
+    public static Plan solve(int[] valueCounts, int maxComboSize, long budgetNanos) {
+        return solve(valueCounts, maxComboSize, ComboTable.MAX_SIZE, budgetNanos);
+    }
+
+    // As above, with play ending once no combo of up to gameOverCombo blocks
+    // is left (the game's game.combo.max-size)
+    public static Plan solve(int[] valueCounts, int maxComboSize, int gameOverCombo, long budgetNanos) {
+        if (maxComboSize <= 0) {
+            return solveUnlimited(valueCounts);
+        }
+        if (maxComboSize < 2 || maxComboSize > MAX_SEARCH_COMBO) {
+            throw new IllegalArgumentException("Combo size limit must be 2 to " + MAX_SEARCH_COMBO
+                + ", got " + maxComboSize);
+        }
+        return new Search(valueCounts, maxComboSize, gameOverCombo, System.nanoTime() + budgetNanos).run();
+    }
+
+    static Plan solveUnlimited(int[] valueCounts) {
+        int live = 0;
+        int residue = 0;
+        for (int value = 1; value <= 9; value++) {
+            live += valueCounts[value];
+            residue = (residue + value * (valueCounts[value] % 10)) % 10;
+        }
+        int[] move = valueCounts.clone();
+        move[0] = 0;
+        int size = live;
+        if (residue != 0) {
+            int[] drop = fewestWithResidue(valueCounts, residue);
+            for (int value = 1; value <= 9; value++) {
+                move[value] -= drop[value];
+                size -= drop[value];
+            }
+        }
+        if (size < 2) {
+            return new Plan(Collections.emptyList(), 0, true, 1);
+        }
+        return new Plan(Collections.singletonList(move), points(size), true, 1);
+    }
+
+    // Smallest multiset of the available values whose sum is 'residue' mod 10.
+    // A smallest one never holds 10 copies of a value (dropping them keeps the
+    // residue), so each value is tried at most 9 times.
+    private static int[] fewestWithResidue(int[] valueCounts, int residue) {
+        int[][] best = new int[10][];
+        int[] bestSize = new int[10];
+        best[0] = new int[10];
+        for (int value = 1; value <= 9; value++) {
+            int copies = Math.min(valueCounts[value], 9);
+            for (int copy = 0; copy < copies; copy++) {
+                int[][] next = best.clone();
+                int[] nextSize = bestSize.clone();
+                for (int from = 0; from < 10; from++) {
+                    if (best[from] == null) {
+                        continue;
+                    }
+                    int to = (from + value) % 10;
+                    if (next[to] == null || bestSize[from] + 1 < nextSize[to]) {
+                        next[to] = best[from].clone();
+                        next[to][value]++;
+                        nextSize[to] = bestSize[from] + 1;
+                    }
+                }
+                best = next;
+                bestSize = nextSize;
+            }
+        }
+        // The whole board has this residue, so some subset always does
+        return best[residue];
+    }
+
+    static long points(int comboSize) {
+        return 10L * comboSize * comboSize;
+    }
+
+    private static final class Search {
+        final int[] rootCounts;
+        final int maxCombo;
+        final int gameOverCombo;
+        final int firstMove; // MOVES[firstMove..] are the moves within the limit
+        final long deadline;
+        final Memo memo = new Memo();
+        final AtomicLong bestScore = new AtomicLong(); // sum of n^2 over the best plan
+        final LongAdder nodes = new LongAdder();
+        volatile boolean timedOut;
+        int[] bestPath = new int[0]; // guarded by this
+
+        Search(int[] valueCounts, int maxCombo, int gameOverCombo, long deadline) {
+            this.rootCounts = Arrays.copyOf(valueCounts, 10);
+            this.rootCounts[0] = 0;
+            this.maxCombo = maxCombo;
+            this.gameOverCombo = gameOverCombo;
+            this.deadline = deadline;
+            int first = 0;
+            while (first < MOVES.length && MOVE_SIZES[first] > maxCombo) {
+                first++;
+            }
+            this.firstMove = first;
+        }
+
+        Plan run() {
+            List<Worker> workers = new ArrayList<>();
+            // A board that is already over under the game's limit has no plan
+            boolean playable = ComboTable.hasCombo(rootCounts, gameOverCombo);
+            for (int move = firstMove; playable && move < MOVES.length; move++) {
+                if (available(rootCounts, MOVES[move])) {
+                    workers.add(new Worker(this, move));
+                }
+            }
+            if (ForkJoinTask.inForkJoinPool()) {
+                ForkJoinTask.invokeAll(workers);
+            } else {
+                for (Worker worker : workers) {
+                    worker.invoke();
+                }
+            }
+
+            int[] path;
+            synchronized (this) {
+                path = bestPath;
+            }
+            List<int[]> moves = new ArrayList<>(path.length);
+            long total = 0;
+            for (int move : path) {
+                moves.add(MOVES[move].clone());
+                total += points(MOVE_SIZES[move]);
+            }
+            return new Plan(moves, total, !timedOut, nodes.sum() + 1);
+        }
+
+        synchronized void offer(int[] path, int depth, long score) {
+            if (score > bestScore.get()) {
+                bestScore.set(score);
+                bestPath = Arrays.copyOf(path, depth);
+            }
+        }
+
+        // Most sum-of-squares 'live' blocks can give in combos of at most maxCombo
+        long bound(int live) {
+            int full = live / maxCombo;
+            int rest = live % maxCombo;
+            return (long) full * maxCombo * maxCombo + (rest >= 2 ? (long) rest * rest : 0);
+        }
+    }
+
+    // Explores everything below one first move
+    private static final class Worker extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final int rootMove;
+        private final int[] counts;
+        private int[] path;
+        private int[] line; // followMemo's copy of the path
+        private final int[] walk = new int[10];
+        private int depth;
+        private boolean complete; // no cut or timeout below the current node
+        private long localNodes;
+
+        Worker(Search search, int rootMove) {
+            this.search = search;
+            this.rootMove = rootMove;
+            this.counts = search.rootCounts.clone();
+        }
+
+        @Override
+        protected void compute() {
+            int live = 0;
+            for (int value = 1; value <= 9; value++) {
+                live += counts[value];
+            }
+            path = new int[live / 2 + 1];
+            line = new int[path.length];
+            int size = MOVE_SIZES[rootMove];
+            apply(rootMove, -1);
+            path[depth++] = rootMove;
+            complete = true;
+            dfs(live - size, (long) size * size);
+            search.nodes.add(localNodes);
+        }
+
+        // Best sum of n^2 still to be had from 'counts'; pathScore is what the
+        // moves so far have earned
+        private long dfs(int live, long pathScore) {
+            localNodes++;
+            if (search.timedOut || (localNodes % CLOCK_INTERVAL == 0 && System.nanoTime() > search.deadline)) {
+                search.timedOut = true;
+                complete = false;
+                return 0;
+            }
+
+            // Same rule as the game: play stops once no combo within its limit is left
+            if (!ComboTable.hasCombo(counts, search.gameOverCombo)) {
+                search.offer(path, depth, pathScore);
+                return 0;
+            }
+            if (pathScore + search.bound(live) <= search.bestScore.get()) {
+                complete = false;
+                return 0;
+            }
+
+            long key = pack(counts);
+            if (key > 0) {
+                long known = search.memo.get(key);
+                if (known != 0 && followMemo(known, pathScore)) {
+                    return known >>> 16;
+                }
+            }
+
+            boolean completeAbove = complete;
+            complete = true;
+            long best = 0;
+            int bestMove = NO_MOVE;
+            for (int move = search.firstMove; move < MOVES.length; move++) {
+                int[] values = MOVES[move];
+                if (!available(counts, values)) {
+                    continue;
+                }
+                int size = MOVE_SIZES[move];
+                long gain = (long) size * size;
+                apply(move, -1);
+                path[depth++] = move;
+                long total = gain + dfs(live - size, pathScore + gain);
+                depth--;
+                apply(move, 1);
+                if (total > best) {
+                    best = total;
+                    bestMove = move;
+                }
+            }
+            if (bestMove == NO_MOVE) {
+                // The game goes on, but only with combos larger than the limit
+                search.offer(path, depth, pathScore);
+            }
+            if (complete && key > 0 && search.memo.size() < MEMO_LIMIT) {
+                search.memo.put(key, best << 16 | bestMove);
+            }
+            complete &= completeAbove;
+            return best;
+        }
+
+        // A finished state: extend the path along its remembered best moves and
+        // offer that plan. Returns false if the chain is broken (memo full).
+        private boolean followMemo(long known, long pathScore) {
+            if (pathScore + (known >>> 16) <= search.bestScore.get()) {
+                return true;
+            }
+            System.arraycopy(counts, 0, walk, 0, walk.length);
+            System.arraycopy(path, 0, line, 0, depth);
+            int lineDepth = depth;
+            long entry = known;
+            while ((entry & 0xFFFF) != NO_MOVE) {
+                int move = (int) (entry & 0xFFFF);
+                for (int value = 1; value <= 9; value++) {
+                    walk[value] -= MOVES[move][value];
+                }
+                line[lineDepth++] = move;
+                long next = search.memo.get(pack(walk));
+                if (next == 0) {
+                    // Game-over states are not stored; anything else means the memo filled up
+                    if (ComboTable.hasCombo(walk, search.gameOverCombo)) {
+                        return false;
+                    }
+                    break;
+                }
+                entry = next;
+            }
+            search.offer(line, lineDepth, pathScore + (known >>> 16));
+            return true;
+        }
+
+        private void apply(int move, int sign) {
+            int[] values = MOVES[move];
+            for (int value = 1; value <= 9; value++) {
+                counts[value] += sign * values[value];
+            }
+        }
+    }
+
+    // Finished states, packed counts -> best << 16 | move (never 0: a state
+    // with no gain stores NO_MOVE). Open-addressed long arrays in stripes that
+    // lock and grow on their own, so parallel workers share one table without
+    // boxing every entry.
+    private static final class Memo {
+        private static final int STRIPES = 32;
+
+        private final Stripe[] stripes = new Stripe[STRIPES];
+        private final AtomicInteger size = new AtomicInteger();
+
+        Memo() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        // 0 if the state is not stored
+        long get(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return stripes[(int) (hash >>> 59)].get(key, hash);
+        }
+
+        void put(long key, long value) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            if (stripes[(int) (hash >>> 59)].put(key, hash, value)) {
+                size.incrementAndGet();
+            }
+        }
+
+        int size() {
+            return size.get();
+        }
+    }
+
+    // One stripe of Memo: linear probing, key 0 marks a free slot (the
+    // all-zero state is game over and never stored), at most half full
+    private static final class Stripe {
+        private long[] keys = new long[16];
+        private long[] values = new long[16];
+        private int used;
+
+        synchronized long get(long key, long hash) {
+            int mask = keys.length - 1;
+            for (int slot = (int) hash & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return 0;
+        }
+
+        // True if the key is new
+        synchronized boolean put(long key, long hash, long value) {
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            if (++used * 2 > keys.length) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = (int) (oldKeys[i] * 0x9E3779B97F4A7C15L) & mask;
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    private static boolean available(int[] counts, int[] move) {
+        for (int value = 1; value <= 9; value++) {
+            if (move[value] > counts[value]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Counts of values 1-9 in 7 bits each, or -1 if any count is too large
+    private static long pack(int[] counts) {
+        long key = 0;
+        for (int value = 1; value <= 9; value++) {
+            if (counts[value] > 127) {
+                return -1;
+            }
+            key = key << 7 | counts[value];
+        }
+        return key;
+    }
+
+    private static int[][] buildMoves() {
+        List<int[]> moves = new ArrayList<>();
+        collect(new int[10], 1, 0, 0, moves);
+        moves.sort((a, b) -> Integer.compare(b[0], a[0]));
+        for (int[] move : moves) {
+            move[0] = 0;
+        }
+        return moves.toArray(new int[0][]);
+    }
+
+    // Multisets of values >= minValue; size is parked in index 0 while sorting
+    private static void collect(int[] counts, int minValue, int size, int sum, List<int[]> out) {
+        if (size >= 2 && sum % 10 == 0) {
+            int[] move = counts.clone();
+            move[0] = size;
+            out.add(move);
+        }
+        if (size == MAX_SEARCH_COMBO) {
+            return;
+        }
+        for (int value = minValue; value <= 9; value++) {
+            counts[value]++;
+            collect(counts, value, size + 1, sum + value, out);
+            counts[value]--;
+        }
+    }
+
+    private static int[] sizesOf(int[][] moves) {
+        int[] sizes = new int[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            for (int value = 1; value <= 9; value++) {
+                sizes[i] += moves[i][value];
+            }
+        }
+        return sizes;
+    }
+}
@@ -0,0 +1,59 @@
+package com.game.numbergrid.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+// Threads for /solve searches, apart from the common pool and the game
+// actors so a burst of long searches cannot starve either. At most
+// maxPending searches run or wait at once; later ones are turned away.
+@Component
+public class SolverPool {
+
+    private final ForkJoinPool pool;
+    private final Semaphore pending;
+
+    public SolverPool(
+            @Value("${game.solver.threads:0}") int threads,
+            @Value("${game.solver.max-pending:16}") int maxPending) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("solver-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.pending = new Semaphore(Math.max(maxPending, 1));
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    // Runs the search on the pool (ScoreSolver spreads its first moves over
+    // it), or returns null if maxPending searches are already in
+    public <T> CompletableFuture<T> submit(Supplier<T> search) {
+        if (!pending.tryAcquire()) {
+            return null;
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return search.get();
+                } finally {
+                    pending.release();
+                }
+            }, pool);
+        } catch (RuntimeException e) {
+            pending.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.game.numbergrid.simulation;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.model.HintIndex;
+import com.game.numbergrid.model.HintPolicy;
+import com.game.numbergrid.service.GameService;
+import com.game.numbergrid.service.ScoreSolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public enum BuiltInStrategy implements Strategy {
+    FIRST(HintPolicy.FIRST),     // play the hint, by hint policy
+    NEAREST(HintPolicy.NEAREST),
+    LARGEST(HintPolicy.LARGEST),
+    SOLVER(null);                // play the solver's best plan (no combo limit)
+
+    private final HintPolicy policy;
+
+    BuiltInStrategy(HintPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public boolean move(GameState game, GameService gameService) {
+        if (policy != null) {
+            // Straight from the index: no hint flags or messages
+            HintIndex index = game.getHintIndex();
+            int size = gameService.findCombo(game, policy);
+            if (size < 2) {
+                return false;
+            }
+            int[] cells = new int[size];
+            for (int i = 0; i < size; i++) {
+                cells[i] = index.getComboCell(i);
+            }
+            gameService.selectCells(game, cells, size);
+        } else {
+            ScoreSolver.Plan plan = ScoreSolver.solve(game.getValueCounts(), 0, 0);
+            if (plan.getMoves().isEmpty()) {
+                return false;
+            }
+            gameService.selectBlocks(game, gameService.planPositions(game.getBoard(), plan).get(0));
+        }
+        return true;
+    }
+
+    public static BuiltInStrategy fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown strategy '" + name + "', expected one of "
+                + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.game.numbergrid.simulation;
+
+import com.game.numbergrid.model.GameState;
+
+// What to simulate: 'games' boards with seeds firstSeed, firstSeed + 1, ...
+// played by one strategy. Seeds make every run reproducible.
+public class SimulationConfig {
+
+    private final Strategy strategy;
+    private final long firstSeed;
+    private final long games;
+    private int rows = GameState.DEFAULT_ROWS;
+    private int cols = GameState.DEFAULT_COLS;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long reportIntervalMillis = 1000;
+
+    public SimulationConfig(Strategy strategy, long firstSeed, long games) {
+        if (games < 0) {
+            throw new IllegalArgumentException("games must not be negative, got " + games);
+        }
+        this.strategy = strategy;
+        this.firstSeed = firstSeed;
+        this.games = games;
+    }
+
+    public Strategy getStrategy() { return strategy; }
+    public long getFirstSeed() { return firstSeed; }
+    public long getGames() { return games; }
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int getThreads() { return threads; }
+    public long getReportIntervalMillis() { return reportIntervalMillis; }
+
+    public void setSize(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public void setReportIntervalMillis(long reportIntervalMillis) {
+        this.reportIntervalMillis = Math.max(1, reportIntervalMillis);
+    }
+}
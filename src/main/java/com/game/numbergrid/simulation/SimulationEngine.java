@@ -0,0 +1,117 @@
+package com.game.numbergrid.simulation;
+
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.service.GameService;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Plays seeded games headlessly on all cores, without the web layer. Threads
+// claim seeds in chunks and each reuses one GameState (board, hint index)
+// for all its games, so the run allocates almost nothing per game.
+//
+//   SimulationStats stats = new SimulationEngine().run(
+//       new SimulationConfig(BuiltInStrategy.NEAREST, 0, 1_000_000), System.out::println);
+public class SimulationEngine {
+
+    // Games a thread claims at a time; also how often it merges its stats
+    private static final int CHUNK = 1024;
+
+    private final GameService gameService;
+
+    public SimulationEngine() {
+        this(new GameService());
+    }
+
+    public SimulationEngine(GameService gameService) {
+        this.gameService = gameService;
+    }
+
+    // Blocks until every game is played. 'progress' (may be null) gets a copy
+    // of the totals so far every report interval, on the calling thread.
+    public SimulationStats run(SimulationConfig config, Consumer<SimulationStats> progress)
+            throws InterruptedException {
+        // Fail on a bad size here rather than on every thread
+        gameService.createNewGame(config.getRows(), config.getCols(), config.getFirstSeed());
+
+        SimulationStats total = new SimulationStats();
+        AtomicLong nextGame = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+
+        Thread[] workers = new Thread[config.getThreads()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    simulate(config, nextGame, total);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    nextGame.set(Long.MAX_VALUE / 2); // stop the others
+                }
+            }, "simulation-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                worker.join(config.getReportIntervalMillis());
+                if (worker.isAlive() && progress != null) {
+                    progress.accept(snapshot(total, start));
+                }
+            }
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Simulation failed", failure.get());
+        }
+        return snapshot(total, start);
+    }
+
+    private void simulate(SimulationConfig config, AtomicLong nextGame, SimulationStats total) {
+        Strategy strategy = config.getStrategy();
+        SimulationStats local = new SimulationStats();
+        GameState game = null;
+        int maxMoves = config.getRows() * config.getCols() / 2; // each move clears at least 2
+
+        while (true) {
+            long from = nextGame.getAndAdd(CHUNK);
+            if (from >= config.getGames()) {
+                return;
+            }
+            long to = Math.min(from + CHUNK, config.getGames());
+            for (long i = from; i < to; i++) {
+                long seed = config.getFirstSeed() + i;
+                if (game == null) {
+                    game = new GameState(config.getRows(), config.getCols(), seed);
+                } else {
+                    game.reset(seed);
+                }
+                play(game, strategy, maxMoves, local);
+            }
+            synchronized (total) {
+                total.add(local);
+            }
+            local.clear();
+        }
+    }
+
+    private void play(GameState game, Strategy strategy, int maxMoves, SimulationStats stats) {
+        int moves = 0;
+        while (!game.isGameOver() && moves < maxMoves) {
+            long before = game.getScore();
+            // A move that scores nothing would repeat forever
+            if (!strategy.move(game, gameService) || game.getScore() == before) {
+                break;
+            }
+            moves++;
+        }
+        stats.record(game.getScore(), moves, game.isGameOver());
+    }
+
+    private static SimulationStats snapshot(SimulationStats total, long start) {
+        synchronized (total) {
+            return total.copy(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.game.numbergrid.simulation;
+
+import java.util.Locale;
+
+// Aggregate results of simulated games. Each simulation thread fills its own
+// and merges it into the shared total; progress reports get copies.
+public final class SimulationStats {
+
+    private long games;
+    private long deadBoards;  // the strategy had no move on the fresh board
+    private long gameOvers;   // ended by the game's own game-over rule
+    private long stuck;       // the strategy gave up before game over
+    private long totalMoves;
+    private long totalScore;
+    private long minScore = Long.MAX_VALUE;
+    private long maxScore = Long.MIN_VALUE;
+    private final ValueHistogram scores = new ValueHistogram();
+    private final ValueHistogram moves = new ValueHistogram();
+    private long elapsedNanos;
+
+    void record(long score, int moveCount, boolean gameOver) {
+        games++;
+        if (moveCount == 0) {
+            deadBoards++;
+        } else if (gameOver) {
+            gameOvers++;
+        } else {
+            stuck++;
+        }
+        totalMoves += moveCount;
+        totalScore += score;
+        minScore = Math.min(minScore, score);
+        maxScore = Math.max(maxScore, score);
+        scores.record(score);
+        moves.record(moveCount);
+    }
+
+    void add(SimulationStats other) {
+        games += other.games;
+        deadBoards += other.deadBoards;
+        gameOvers += other.gameOvers;
+        stuck += other.stuck;
+        totalMoves += other.totalMoves;
+        totalScore += other.totalScore;
+        minScore = Math.min(minScore, other.minScore);
+        maxScore = Math.max(maxScore, other.maxScore);
+        scores.add(other.scores);
+        moves.add(other.moves);
+    }
+
+    void clear() {
+        games = deadBoards = gameOvers = stuck = totalMoves = totalScore = 0;
+        minScore = Long.MAX_VALUE;
+        maxScore = Long.MIN_VALUE;
+        scores.clear();
+        moves.clear();
+    }
+
+    SimulationStats copy(long elapsedNanos) {
+        SimulationStats copy = new SimulationStats();
+        copy.add(this);
+        copy.elapsedNanos = elapsedNanos;
+        return copy;
+    }
+
+    public long getGames() { return games; }
+    public long getDeadBoards() { return deadBoards; }
+    public long getGameOvers() { return gameOvers; }
+    public long getStuck() { return stuck; }
+    public long getTotalMoves() { return totalMoves; }
+    public long getMinScore() { return games == 0 ? 0 : minScore; }
+    public long getMaxScore() { return games == 0 ? 0 : maxScore; }
+    public double getMeanScore() { return games == 0 ? 0 : (double) totalScore / games; }
+    public double getMeanMoves() { return games == 0 ? 0 : (double) totalMoves / games; }
+    public double getDeadBoardRate() { return games == 0 ? 0 : (double) deadBoards / games; }
+    // Percentiles are bucket bounds, within 12.5% of the true value
+    public long getScorePercentile(double fraction) {
+        return Math.max(getMinScore(), Math.min(getMaxScore(), scores.percentile(fraction)));
+    }
+    public long getMovesPercentile(double fraction) { return moves.percentile(fraction); }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public double getGamesPerSecond() { return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos; }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+            "games=%d (%.0f/s) score mean=%.1f p50=%d p90=%d p99=%d min=%d max=%d"
+                + " moves mean=%.2f p50=%d p99=%d dead=%.4f%% gameOver=%d stuck=%d",
+            games, getGamesPerSecond(), getMeanScore(), getScorePercentile(0.5), getScorePercentile(0.9),
+            getScorePercentile(0.99), getMinScore(), getMaxScore(), getMeanMoves(), getMovesPercentile(0.5),
+            getMovesPercentile(0.99), 100 * getDeadBoardRate(), gameOvers, stuck);
+    }
+}
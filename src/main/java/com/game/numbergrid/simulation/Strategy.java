@@ -0,0 +1,12 @@
+package com.game.numbergrid.simulation;
+
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.service.GameService;
+
+// How a simulated player picks its next move
+public interface Strategy {
+
+    // Play one move through the service. Returns false if the strategy has
+    // no move to offer; the game then ends where it is.
+    boolean move(GameState game, GameService gameService);
+}
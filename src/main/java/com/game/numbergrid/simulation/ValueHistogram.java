@@ -0,0 +1,75 @@
+package com.game.numbergrid.simulation;
+
+import java.util.Arrays;
+
+// Counts non-negative longs in log-linear buckets: exact below 8, then 8
+// buckets per power of two (within 12.5%). Not thread-safe; each simulation
+// thread keeps its own and they are merged.
+public final class ValueHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final long[] counts = new long[(65 - SUB_BITS) * SUB_BUCKETS];
+    private long total;
+
+    public void record(long value) {
+        counts[bucketOf(Math.max(value, 0))]++;
+        total++;
+    }
+
+    public void add(ValueHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // Smallest bucket bound with at least 'fraction' of the values at or below it
+    public long percentile(double fraction) {
+        if (total == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= wanted) {
+                return upperBoundOf(i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    // Package-private for tests
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        // The last bucket of 2^62 ends at Long.MAX_VALUE; no value goes past it
+        if (exponent > 62 || (exponent == 62 && sub == SUB_BUCKETS - 1)) {
+            return Long.MAX_VALUE;
+        }
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,865 @@
+// Game state
+let currentGameId = '';
+let isDragging = false;
+let startX = 0;
+let startY = 0;
+let currentX = 0;
+let currentY = 0;
+let selectionRect = null;
+let selectedBlocks = new Set(); // Store selected block positions as strings "row,col"
+let hintTimeout = null;
+let boardOffset = { left: 0, top: 0 };
+let boardVersion = null; // last board version received, sent back as 'since'
+let boardRows = 10;
+let boardCols = 20;
+let socket = null; // live channel; HTTP is used whenever it is not open
+let socketRetry = 500;
+let socketNode = null; // cluster node holding the game, when not this one
+let pendingFrame = []; // commands batched into the next binary frame
+let flushScheduled = false;
+let gameOverShown = false;
+
+// HTTP replies come as compact binary frames (GameWire.java) when the server
+// offers them, JSON otherwise
+const WIRE_TYPE = 'application/x-numbergrid';
+const REPLY_TYPES = WIRE_TYPE + ', application/json;q=0.9';
+
+// Initialize when page loads
+document.addEventListener('DOMContentLoaded', function() {
+    // The page carries the game's state as a JSON island, so the board is
+    // drawn without another request
+    const island = document.getElementById('initialState');
+    const initialState = island && island.textContent ? JSON.parse(island.textContent) : null;
+    currentGameId = initialState && initialState.gameId ? initialState.gameId : '';
+    console.log('Game ID:', currentGameId);
+    
+    if (currentGameId && currentGameId !== '') {
+        showGameData(initialState);
+        connectSocket();
+    } else {
+        showMessage('Error: No game ID found. Please refresh the page.', true);
+    }
+    
+    // Setup event listeners for drag selection
+    setupDragSelection();
+    
+    // Update board offset on resize
+    window.addEventListener('resize', updateBoardOffset);
+    updateBoardOffset();
+});
+
+function updateBoardOffset() {
+    const gameBoard = document.getElementById('gameBoard');
+    if (gameBoard) {
+        const rect = gameBoard.getBoundingClientRect();
+        boardOffset.left = rect.left;
+        boardOffset.top = rect.top;
+    }
+}
+
+function setupDragSelection() {
+    const gameBoard = document.getElementById('gameBoard');
+    
+    // Mouse events
+    gameBoard.addEventListener('mousedown', (e) => {
+        if (e.button !== 0) return; // Only left mouse button
+        startDrag(e.clientX, e.clientY);
+        e.preventDefault();
+    });
+    
+    document.addEventListener('mousemove', (e) => {
+        if (!isDragging) return;
+        updateDrag(e.clientX, e.clientY);
+        e.preventDefault();
+    });
+    
+    document.addEventListener('mouseup', endDrag);
+    
+    // Touch events for mobile
+    gameBoard.addEventListener('touchstart', (e) => {
+        if (e.touches.length !== 1) return;
+        const touch = e.touches[0];
+        startDrag(touch.clientX, touch.clientY);
+        e.preventDefault();
+    });
+    
+    document.addEventListener('touchmove', (e) => {
+        if (!isDragging || e.touches.length !== 1) return;
+        const touch = e.touches[0];
+        updateDrag(touch.clientX, touch.clientY);
+        e.preventDefault();
+    });
+    
+    document.addEventListener('touchend', endDrag);
+    
+    // Prevent context menu on long press
+    gameBoard.addEventListener('contextmenu', (e) => e.preventDefault());
+}
+
+function startDrag(clientX, clientY) {
+    isDragging = true;
+    
+    // Convert to board-relative coordinates
+    startX = clientX - boardOffset.left;
+    startY = clientY - boardOffset.top;
+    currentX = startX;
+    currentY = startY;
+    
+    // Create selection rectangle
+    selectionRect = document.createElement('div');
+    selectionRect.className = 'selection-rect';
+    const gameBoard = document.getElementById('gameBoard');
+    gameBoard.appendChild(selectionRect);
+    updateSelectionRect();
+    
+    // Clear previous selection
+    clearSelection();
+    
+    // Show combo display
+    document.getElementById('comboDisplay').style.display = 'block';
+    updateComboDisplay();
+}
+
+function updateDrag(clientX, clientY) {
+    if (!isDragging) return;
+    
+    // Convert to board-relative coordinates
+    currentX = clientX - boardOffset.left;
+    currentY = clientY - boardOffset.top;
+    
+    // Constrain to board bounds
+    const gameBoard = document.getElementById('gameBoard');
+    const boardWidth = gameBoard.clientWidth;
+    const boardHeight = gameBoard.clientHeight;
+    
+    currentX = Math.max(0, Math.min(currentX, boardWidth));
+    currentY = Math.max(0, Math.min(currentY, boardHeight));
+    
+    updateSelectionRect();
+    updateSelectedBlocks();
+}
+
+function updateSelectionRect() {
+    if (!selectionRect) return;
+    
+    const left = Math.min(startX, currentX);
+    const top = Math.min(startY, currentY);
+    const width = Math.abs(currentX - startX);
+    const height = Math.abs(currentY - startY);
+    
+    selectionRect.style.left = left + 'px';
+    selectionRect.style.top = top + 'px';
+    selectionRect.style.width = width + 'px';
+    selectionRect.style.height = height + 'px';
+}
+
+function updateSelectedBlocks() {
+    if (!selectionRect) return;
+    
+    const gameBoard = document.getElementById('gameBoard');
+    const selectionRectBounds = selectionRect.getBoundingClientRect();
+    
+    selectedBlocks.clear();
+    
+    // Check each block if it's within selection rectangle
+    const blocks = gameBoard.querySelectorAll('.block:not(.block-0)');
+    blocks.forEach(block => {
+        const blockRect = block.getBoundingClientRect();
+        
+        // Check if block intersects with selection rectangle
+        if (rectsIntersect(selectionRectBounds, blockRect)) {
+            const row = parseInt(block.dataset.row);
+            const col = parseInt(block.dataset.col);
+            selectedBlocks.add(`${row},${col}`);
+            block.classList.add('selected');
+        } else {
+            block.classList.remove('selected');
+        }
+    });
+    
+    updateComboDisplay();
+}
+
+function rectsIntersect(rect1, rect2) {
+    return !(rect2.left > rect1.right || 
+             rect2.right < rect1.left || 
+             rect2.top > rect1.bottom ||
+             rect2.bottom < rect1.top);
+}
+
+function endDrag() {
+    if (!isDragging) return;
+    
+    isDragging = false;
+    
+    // Remove selection rectangle
+    if (selectionRect) {
+        selectionRect.remove();
+        selectionRect = null;
+    }
+    
+    // Submit selected blocks if we have any
+    if (selectedBlocks.size > 0) {
+        submitSelectedBlocks();
+    } else {
+        // Hide combo display if no selection
+        setTimeout(() => {
+            document.getElementById('comboDisplay').style.display = 'none';
+        }, 500);
+    }
+}
+
+function clearSelection() {
+    selectedBlocks.clear();
+    const blocks = document.querySelectorAll('.block');
+    blocks.forEach(block => {
+        block.classList.remove('selected');
+    });
+    updateComboDisplay();
+}
+
+function updateComboDisplay() {
+    const comboDisplay = document.getElementById('comboDisplay');
+    if (selectedBlocks.size === 0) {
+        comboDisplay.style.display = 'none';
+        return;
+    }
+    
+    // Calculate sum from displayed values
+    let sum = 0;
+    selectedBlocks.forEach(pos => {
+        const [row, col] = pos.split(',').map(Number);
+        const block = document.querySelector(`.block[data-row="${row}"][data-col="${col}"]`);
+        if (block) {
+            const value = parseInt(block.textContent) || 0;
+            sum += value;
+        }
+    });
+    
+    const comboSize = selectedBlocks.size;
+    const multiplier = Math.max(1, comboSize); // At least 1x multiplier
+    const potentialScore = 10 * comboSize * multiplier;
+    
+    document.getElementById('comboSum').textContent = sum;
+    document.getElementById('comboCount').textContent = comboSize;
+    document.getElementById('comboMultiplier').textContent = multiplier + 'x';
+    
+    // Visual feedback for valid/invalid combo
+    if (sum % 10 === 0 && comboSize >= 2) {
+        comboDisplay.classList.remove('combo-invalid');
+        comboDisplay.classList.add('combo-valid');
+        document.getElementById('comboSum').style.color = '#27ae60';
+    } else {
+        comboDisplay.classList.remove('combo-valid');
+        comboDisplay.classList.add('combo-invalid');
+        document.getElementById('comboSum').style.color = '#e74c3c';
+    }
+    
+    comboDisplay.style.display = 'block';
+}
+
+function submitSelectedBlocks() {
+    if (selectedBlocks.size === 0) return;
+    
+    // Convert selected blocks to string format: "row,col;row,col;..."
+    const positionsString = Array.from(selectedBlocks).join(';');
+    
+    console.log('Submitting combo - Game ID:', currentGameId, 'Positions:', positionsString);
+    
+    if (socketOpen()) {
+        sendSelection(Array.from(selectedBlocks));
+        clearSelection();
+        return;
+    }
+    
+    if (selectedBlocks.size === 1) {
+        // Single block - use the simpler endpoint
+        const [row, col] = Array.from(selectedBlocks)[0].split(',').map(Number);
+        selectSingleBlock(row, col);
+        return;
+    }
+    
+    // Create form data for multiple blocks
+    const formData = new URLSearchParams();
+    formData.append('gameId', currentGameId);
+    formData.append('positions', positionsString);
+    appendVersion(formData);
+    
+    fetch('/game/select-multiple', {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/x-www-form-urlencoded;charset=UTF-8',
+            'Accept': REPLY_TYPES,
+        },
+        body: formData.toString()
+    })
+    .then(response => {
+        console.log('Response status:', response.status, response.statusText);
+        if (!response.ok) {
+            // Try to get more error details
+            return response.text().then(text => {
+                console.error('Error response text:', text);
+                throw new Error(`Server error: ${response.status} - ${response.statusText}`);
+            });
+        }
+        return readReply(response);
+    })
+    .then(data => {
+        console.log('Combo response data:', data);
+        
+        if (data.error) {
+            showMessage('Error: ' + data.error, true);
+            return;
+        }
+        
+        updateGameState(data);
+        clearSelection();
+        
+        // Show success message if combo was valid
+        if (data.messages && data.messages.length > 0) {
+            const lastMessage = data.messages[data.messages.length - 1];
+            showMessage(lastMessage, false);
+        }
+    })
+    .catch(error => {
+        console.error('Error submitting combo:', error);
+        showMessage('Error: ' + error.message + '. Try single blocks for now.', true);
+        clearSelection();
+    });
+}
+
+// Full game state, as carried by the page's JSON island
+function showGameData(data) {
+    console.log('Game data received:', data);
+    
+    if (data.error) {
+        showMessage('Error: ' + data.error, true);
+        return;
+    }
+    
+    if (data.grid && Array.isArray(data.grid)) {
+        applyBoard(data);
+        document.getElementById('score').textContent = data.score || 0;
+        showSeed(data);
+        showMessage('Drag to select multiple numbers! Release to submit your combo.');
+    }
+}
+
+function initializeGame(grid, hints) {
+    const gameBoard = document.getElementById('gameBoard');
+    gameBoard.innerHTML = '';
+    
+    // Board size comes from the grid itself (10x20 unless started with ?rows=&cols=)
+    const rows = grid.length;
+    const cols = rows > 0 ? grid[0].length : 0;
+    boardRows = rows;
+    boardCols = cols;
+    gameBoard.style.gridTemplateColumns = `repeat(${cols}, 1fr)`;
+    
+    for (let row = 0; row < rows; row++) {
+        for (let col = 0; col < cols; col++) {
+            const value = grid && grid[row] ? grid[row][col] || 0 : 0;
+            const hinted = !!(hints && hints[row] && hints[row][col]);
+            gameBoard.appendChild(createBlock(row, col, value, hinted));
+        }
+    }
+    
+    // Update board offset after grid is created
+    setTimeout(updateBoardOffset, 100);
+}
+
+function createBlock(row, col, value, hinted) {
+    const block = document.createElement('div');
+    block.className = `block block-${value}`;
+    if (hinted) {
+        block.classList.add('hinted');
+    }
+    block.textContent = value > 0 ? value : '';
+    block.dataset.row = row;
+    block.dataset.col = col;
+    
+    // Make empty blocks non-interactive
+    if (value === 0) {
+        block.style.cursor = 'default';
+    } else {
+        // Add click handler for single block selection (fallback)
+        block.addEventListener('click', (e) => {
+            if (isDragging) return; // Don't interfere with drag
+            e.stopPropagation();
+            selectSingleBlock(row, col);
+        });
+    }
+    return block;
+}
+
+// Apply a board response: either a full grid or a list of changed cells
+function applyBoard(data) {
+    // HTTP replies and socket pushes can arrive out of order; never go backwards
+    if (data.version !== undefined && boardVersion !== null && data.version < boardVersion) {
+        return;
+    }
+    if (data.changes) {
+        applyChanges(data.changes);
+    } else if (data.grid) {
+        initializeGame(data.grid, data.hints || []);
+    }
+    if (data.version !== undefined) {
+        boardVersion = data.version;
+    }
+}
+
+// changes is a flat list of (cell, value, flags) triples; flags bit 2 = hinted
+function applyChanges(changes) {
+    for (let i = 0; i + 2 < changes.length; i += 3) {
+        const row = Math.floor(changes[i] / boardCols);
+        const col = changes[i] % boardCols;
+        const old = document.querySelector(`.block[data-row="${row}"][data-col="${col}"]`);
+        if (old) {
+            old.replaceWith(createBlock(row, col, changes[i + 1], (changes[i + 2] & 2) !== 0));
+        }
+    }
+}
+
+function appendVersion(formData) {
+    if (boardVersion !== null) {
+        formData.append('since', boardVersion);
+    }
+}
+
+function selectSingleBlock(row, col) {
+    if (!currentGameId) {
+        showMessage("Please start a new game first!", true);
+        return;
+    }
+    
+    if (socketOpen()) {
+        sendSelection([row + ',' + col]);
+        return;
+    }
+    
+    const formData = new URLSearchParams();
+    formData.append('gameId', currentGameId);
+    formData.append('row', row);
+    formData.append('col', col);
+    appendVersion(formData);
+    
+    fetch('/game/select', {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/x-www-form-urlencoded;charset=UTF-8',
+            'Accept': REPLY_TYPES,
+        },
+        body: formData.toString()
+    })
+    .then(readReply)
+    .then(data => {
+        if (data.error) {
+            showMessage('Error: ' + data.error, true);
+            return;
+        }
+        
+        updateGameState(data);
+    })
+    .catch(error => {
+        console.error('Error selecting block:', error);
+        showMessage('Error selecting block', true);
+    });
+}
+
+function getHint() {
+    if (!currentGameId) {
+        showMessage("Please start a new game first!", true);
+        return;
+    }
+    
+    const formData = new URLSearchParams();
+    formData.append('gameId', currentGameId);
+    appendVersion(formData);
+    
+    fetch('/game/hint', {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/x-www-form-urlencoded;charset=UTF-8',
+            'Accept': REPLY_TYPES,
+        },
+        body: formData.toString()
+    })
+    .then(readReply)
+    .then(data => {
+        if (data.error) {
+            showMessage('Error: ' + data.error, true);
+            return;
+        }
+        
+        applyBoard(data);
+        
+        if (data.messages && data.messages.length > 0) {
+            showMessage(data.messages[0]);
+        }
+        
+        // Clear hint after 5 seconds
+        if (hintTimeout) clearTimeout(hintTimeout);
+        hintTimeout = setTimeout(clearHint, 5000);
+    })
+    .catch(error => {
+        console.error('Error getting hint:', error);
+        showMessage('Error getting hint', true);
+    });
+}
+
+function clearHint() {
+    if (!currentGameId) return;
+    
+    const formData = new URLSearchParams();
+    formData.append('gameId', currentGameId);
+    appendVersion(formData);
+    
+    fetch('/game/clear-hint', {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/x-www-form-urlencoded;charset=UTF-8',
+            'Accept': REPLY_TYPES,
+        },
+        body: formData.toString()
+    })
+    .then(readReply)
+    .then(data => {
+        if (data.error) return;
+        applyBoard(data);
+    })
+    .catch(error => {
+        console.error('Error clearing hint:', error);
+    });
+}
+
+function restartGame() {
+    if (!currentGameId || currentGameId === '') {
+        showMessage("No game to restart! Start a new game first.", true);
+        return;
+    }
+    
+    console.log('Restarting game:', currentGameId);
+    
+    const formData = new URLSearchParams();
+    formData.append('gameId', currentGameId);
+    
+    fetch('/game/restart', {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/x-www-form-urlencoded;charset=UTF-8',
+            'Accept': REPLY_TYPES,
+        },
+        body: formData.toString()
+    })
+    .then(response => {
+        if (!response.ok) {
+            throw new Error('Server error: ' + response.status);
+        }
+        return readReply(response);
+    })
+    .then(data => {
+        console.log('Restart response:', data);
+        
+        if (data.error) {
+            showMessage('Error: ' + data.error, true);
+            return;
+        }
+        
+        updateGameState(data);
+        showMessage('Game restarted! Drag to select multiple numbers.');
+    })
+    .catch(error => {
+        console.error('Error restarting game:', error);
+        showMessage('Error: ' + error.message + '. Please refresh the page.', true);
+    });
+}
+
+// Let the solver play the best plan it finds for the rest of the board
+function autoPlay() {
+    if (!currentGameId) {
+        showMessage("Please start a new game first!", true);
+        return;
+    }
+    
+    const formData = new URLSearchParams();
+    formData.append('gameId', currentGameId);
+    formData.append('autoplay', 'true');
+    appendVersion(formData);
+    
+    fetch('/game/solve', {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/x-www-form-urlencoded;charset=UTF-8',
+        },
+        body: formData.toString()
+    })
+    .then(response => response.json())
+    .then(data => {
+        if (data.error) {
+            showMessage('Error: ' + data.error, true);
+            return;
+        }
+        console.log('Solver plan:', data.solution);
+        updateGameState(data);
+    })
+    .catch(error => {
+        console.error('Error auto-playing:', error);
+        showMessage('Error auto-playing', true);
+    });
+}
+
+// Undo or redo the last valid move ('undo' / 'redo')
+function stepHistory(action) {
+    if (!currentGameId) {
+        showMessage("Please start a new game first!", true);
+        return;
+    }
+    
+    const formData = new URLSearchParams();
+    formData.append('gameId', currentGameId);
+    appendVersion(formData);
+    
+    fetch('/game/' + action, {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/x-www-form-urlencoded;charset=UTF-8',
+            'Accept': REPLY_TYPES,
+        },
+        body: formData.toString()
+    })
+    .then(readReply)
+    .then(data => {
+        if (data.error) {
+            showMessage('Error: ' + data.error, true);
+            return;
+        }
+        if (data.gameOver === false) {
+            gameOverShown = false;
+            document.querySelectorAll('.game-over').forEach(overlay => overlay.remove());
+        }
+        updateGameState(data);
+    })
+    .catch(error => {
+        console.error('Error on ' + action + ':', error);
+        showMessage('Error: could not ' + action, true);
+    });
+}
+
+function updateGameState(data) {
+    if (data.score !== undefined) {
+        document.getElementById('score').textContent = data.score;
+    }
+    showSeed(data);
+    applyBoard(data);
+    if (data.messages && data.messages.length > 0) {
+        // Show the last message
+        showMessage(data.messages[data.messages.length - 1]);
+    }
+    if (data.gameOver && !gameOverShown) {
+        gameOverShown = true;
+        setTimeout(() => {
+            showGameOver(data.score || 0);
+        }, 1000);
+    }
+}
+
+// Link that replays this board from its seed (the seed is a string: it may
+// not fit a JavaScript number)
+function showSeed(data) {
+    if (data.seed === undefined) {
+        return;
+    }
+    const link = document.getElementById('seedLink');
+    link.textContent = 'Seed ' + data.seed;
+    link.href = '/game/start?seed=' + encodeURIComponent(data.seed) + '&rows=' + boardRows + '&cols=' + boardCols;
+}
+
+function showMessage(message, isError = false) {
+    const messageBox = document.getElementById('messageBox');
+    messageBox.innerHTML = isError ? 
+        `<span style="color: #e74c3c;">❌ ${message}</span>` : 
+        `💡 ${message}`;
+    console.log('Message:', message);
+}
+
+function showGameOver(score) {
+    const gameOverDiv = document.createElement('div');
+    gameOverDiv.className = 'game-over';
+    gameOverDiv.innerHTML = `
+        <div class="game-over-content">
+            <h2>🏆 Game Over! 🏆</h2>
+            <div class="final-score">${score} Points</div>
+            <p>No more valid combos available!</p>
+            <button class="new-game-btn" style="margin-top: 20px; font-size: 1.2em;" 
+                    onclick="startNewGame()">
+                🎯 Play Again
+            </button>
+            <button class="undo-btn" style="margin-top: 20px; font-size: 1.2em;" 
+                    onclick="stepHistory('undo')">
+                ↩️ Undo
+            </button>
+        </div>
+    `;
+    document.body.appendChild(gameOverDiv);
+}
+
+// Live channel: the server pushes every change to this game, and
+// selections go up as binary frames of varint-encoded cell indices
+function connectSocket() {
+    let url = socketNode !== null
+        ? socketNode.replace(/^http/, 'ws')
+        : (window.location.protocol === 'https:' ? 'wss://' : 'ws://') + window.location.host;
+    url += '/game/ws?gameId=' + encodeURIComponent(currentGameId);
+    if (boardVersion !== null) {
+        url += '&since=' + boardVersion;
+    }
+    socket = new WebSocket(url);
+    socket.binaryType = 'arraybuffer';
+    socket.onopen = () => { socketRetry = 500; };
+    socket.onmessage = event => {
+        const data = JSON.parse(event.data);
+        if (data.gameOver === false) {
+            gameOverShown = false; // restarted
+        }
+        updateGameState(data);
+    };
+    socket.onclose = event => {
+        socket = null;
+        // 4000: the game is held by the node named in the reason
+        if (event.code === 4000 && event.reason) {
+            socketNode = event.reason;
+        }
+        // CANNOT_ACCEPT (1003): unknown game or bad frame, don't retry
+        if (event.code !== 1003) {
+            setTimeout(connectSocket, socketRetry);
+            socketRetry = Math.min(socketRetry * 2, 10000);
+        }
+    };
+}
+
+function socketOpen() {
+    return socket !== null && socket.readyState === WebSocket.OPEN;
+}
+
+// Gestures made in the same tick share one frame
+function sendSelection(positions) {
+    pendingFrame.push(1); // SELECT
+    pushVarint(pendingFrame, positions.length);
+    positions.forEach(pos => {
+        const [row, col] = pos.split(',').map(Number);
+        pushVarint(pendingFrame, row * boardCols + col);
+    });
+    if (!flushScheduled) {
+        flushScheduled = true;
+        setTimeout(flushFrame, 0);
+    }
+}
+
+function flushFrame() {
+    flushScheduled = false;
+    if (pendingFrame.length === 0) return;
+    if (socketOpen()) {
+        socket.send(new Uint8Array(pendingFrame).buffer);
+    }
+    pendingFrame = [];
+}
+
+function pushVarint(bytes, value) {
+    while (value >= 0x80) {
+        bytes.push((value & 0x7F) | 0x80);
+        value >>>= 7;
+    }
+    bytes.push(value);
+}
+
+// Decode a reply by its content type; errors ("Game not found") stay JSON
+function readReply(response) {
+    const type = response.headers.get('Content-Type') || '';
+    if (type.startsWith(WIRE_TYPE)) {
+        return response.arrayBuffer().then(decodeFrame);
+    }
+    return response.json();
+}
+
+// Inverse of GameWire.write: the same object the JSON replies give
+function decodeFrame(buffer) {
+    const bytes = new Uint8Array(buffer);
+    let pos = 0;
+    const varint = () => {
+        let value = 0;
+        let scale = 1; // multiply, not shift: scores can pass 2^31
+        let b;
+        do {
+            b = bytes[pos++];
+            value += (b & 0x7F) * scale;
+            scale *= 128;
+        } while (b & 0x80);
+        return value;
+    };
+    const decoder = new TextDecoder();
+    const string = () => {
+        const length = varint();
+        const text = decoder.decode(bytes.subarray(pos, pos + length));
+        pos += length;
+        return text;
+    };
+
+    if (bytes[pos++] !== 1) {
+        throw new Error('Unknown reply format');
+    }
+    const fields = varint();
+    const data = { version: varint() };
+    if (fields & 1) { // whole board
+        const rows = varint();
+        const cols = varint();
+        const cells = rows * cols;
+        const values = pos;
+        const hints = values + Math.ceil(cells / 2);
+        const selected = hints + Math.ceil(cells / 8); // sent, not shown by this page
+        data.rows = rows;
+        data.cols = cols;
+        data.grid = [];
+        data.hints = [];
+        for (let row = 0; row < rows; row++) {
+            const gridRow = new Array(cols);
+            const hintRow = new Array(cols);
+            for (let col = 0; col < cols; col++) {
+                const cell = row * cols + col;
+                gridRow[col] = (bytes[values + (cell >> 1)] >> ((cell & 1) * 4)) & 0xF;
+                hintRow[col] = ((bytes[hints + (cell >> 3)] >> (cell & 7)) & 1) === 1;
+            }
+            data.grid.push(gridRow);
+            data.hints.push(hintRow);
+        }
+        pos = selected + Math.ceil(cells / 8);
+    } else {
+        const count = varint();
+        data.changes = new Array(count * 3);
+        for (let i = 0; i < count; i++) {
+            data.changes[i * 3] = varint();
+            const packed = bytes[pos++];
+            data.changes[i * 3 + 1] = packed & 0xF;
+            data.changes[i * 3 + 2] = packed >> 4;
+        }
+    }
+    if (fields & 2) {
+        data.score = varint();
+        data.seed = string();
+        data.gameOver = (fields & 4) !== 0;
+    }
+    if (fields & 8) {
+        data.messages = [];
+        for (let count = varint(); count > 0; count--) {
+            data.messages.push(string());
+        }
+    }
+    if (fields & 16) {
+        data.gameId = string();
+    }
+    return data;
+}
+
+function startNewGame() {
+    // Keep the board size (?rows=&cols=) of the current page
+    window.location.href = '/game/start' + window.location.search;
+}
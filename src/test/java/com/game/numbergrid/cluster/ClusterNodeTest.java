@@ -0,0 +1,298 @@
+package com.game.numbergrid.cluster;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.service.GameSessionStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Several nodes, each with its own GameSessionStore, on one InMemoryClusterTransport
+class ClusterNodeTest {
+
+    // Hops a request may take, as in ClusterRouting
+    private static final int MAX_HOPS = 3;
+
+    private final HookedTransport transport = new HookedTransport();
+    private final Map<String, ClusterNode> nodes = new ConcurrentHashMap<>();
+    private final Map<String, GameSessionStore> stores = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void stop() {
+        stores.values().forEach(GameSessionStore::stop);
+    }
+
+    @Test
+    void gamesKeepTheirStateThroughJoinsAndLeaves() {
+        ClusterNode a = node("mem://a");
+        Map<String, GameView> expected = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            GameState game = game(i);
+            stores.get("mem://a").put(game);
+            expected.put(game.getGameId(), new GameView(game));
+        }
+        assertPlacement(expected, "mem://a");
+
+        ClusterNode b = node("mem://b");
+        b.join("mem://a");
+        assertEquals(List.of("mem://a", "mem://b"), a.getMembers());
+        assertEquals(a.getMembers(), b.getMembers());
+        int onB = stores.get("mem://b").size();
+        assertTrue(onB > 60 && onB < 240, onB + " games moved");
+        assertPlacement(expected, "mem://a", "mem://b");
+
+        ClusterNode c = node("mem://c");
+        c.join("mem://b");
+        assertEquals(List.of("mem://a", "mem://b", "mem://c"), a.getMembers());
+        assertTrue(stores.get("mem://c").size() > 0);
+        assertPlacement(expected, "mem://a", "mem://b", "mem://c");
+
+        b.leave();
+        assertEquals(List.of("mem://a", "mem://c"), a.getMembers());
+        assertEquals(a.getMembers(), c.getMembers());
+        assertEquals(0, stores.get("mem://b").size());
+        assertPlacement(expected, "mem://a", "mem://c");
+    }
+
+    // While a game is on the way it is served by its old node, the new owner
+    // sends requests for it there, and a request left waiting on the old node
+    // is answered once the new owner has the game
+    @Test
+    void requestsDuringAHandOffReachTheGame() {
+        ClusterNode a = node("mem://a");
+        for (int i = 0; i < 100; i++) {
+            stores.get("mem://a").put(game(i));
+        }
+        ClusterNode b = node("mem://b");
+        AtomicInteger handOffs = new AtomicInteger();
+        List<CompletableFuture<Long>> waiting = new ArrayList<>();
+        List<String> moving = new ArrayList<>();
+        transport.beforeGames = address -> {
+            handOffs.incrementAndGet();
+            for (String gameId : stores.get("mem://a").gameIds()) {
+                if (!"mem://b".equals(b.getMembers().isEmpty() ? null : ringOwner(b, gameId))) {
+                    continue;
+                }
+                moving.add(gameId);
+                // Held on a, not yet on b: both send its requests to a
+                assertEquals("mem://a", a.ownerOf(gameId));
+                assertEquals("mem://a", b.ownerOf(gameId));
+                assertFalse(stores.get("mem://b").contains(gameId));
+                waiting.add(stores.get("mem://a").submit(gameId, GameState::getScore));
+            }
+            // Queued behind the hand-off until the new owner has the games
+            for (CompletableFuture<Long> request : waiting) {
+                assertFalse(request.isDone());
+            }
+        };
+        b.join("mem://a");
+
+        assertEquals(1, handOffs.get());
+        assertFalse(moving.isEmpty());
+        for (int i = 0; i < moving.size(); i++) {
+            String gameId = moving.get(i);
+            // Answered null on a, which now sends the request on to b
+            assertNull(waiting.get(i).join());
+            assertEquals("mem://b", a.ownerOf(gameId));
+            assertEquals("mem://b", b.ownerOf(gameId));
+            assertNotNull(stores.get("mem://b").withGame(gameId, GameState::getScore));
+        }
+    }
+
+    // Clients keep scoring while nodes join and leave; every request reaches
+    // the game, and no point is lost or counted twice
+    @Test
+    void noMoveIsLostWhileGamesMove() throws Exception {
+        node("mem://a");
+        int games = 200;
+        List<String> gameIds = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            GameState game = game(i);
+            game.setScore(0);
+            stores.get("mem://a").put(game);
+            gameIds.add(game.getGameId());
+        }
+
+        // Nodes clients send requests to: members, and b after it has left
+        List<String> entries = new CopyOnWriteArrayList<>(List.of("mem://a"));
+        AtomicIntegerArray scored = new AtomicIntegerArray(games);
+        AtomicInteger lost = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> clients = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread client = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    int game = random.nextInt(games);
+                    if (score(entries.get(random.nextInt(entries.size())), gameIds.get(game))) {
+                        scored.incrementAndGet(game);
+                    } else {
+                        lost.incrementAndGet();
+                    }
+                }
+            });
+            client.start();
+            clients.add(client);
+        }
+
+        Thread.sleep(50);
+        node("mem://b").join("mem://a");
+        entries.add("mem://b");
+        Thread.sleep(50);
+        node("mem://c").join("mem://a");
+        entries.add("mem://c");
+        Thread.sleep(50);
+        nodes.get("mem://b").leave();
+        Thread.sleep(50);
+        running.set(false);
+        for (Thread client : clients) {
+            client.join();
+        }
+
+        assertEquals(0, lost.get());
+        long total = 0;
+        for (int i = 0; i < games; i++) {
+            String gameId = gameIds.get(i);
+            String holder = holder(gameId);
+            assertEquals(nodes.get("mem://a").ownerOf(gameId), holder);
+            assertEquals(scored.get(i), (long) stores.get(holder).withGame(gameId, GameState::getScore));
+            total += scored.get(i);
+        }
+        assertTrue(total > 0);
+    }
+
+    // One request as ClusterRouting and GameController route it: sent to the
+    // game's owner, and sent on if the game moved away while it waited
+    private boolean score(String entry, String gameId) {
+        String at = entry;
+        int hops = 0; // forwards so far
+        while (true) {
+            String owner = nodes.get(at).ownerOf(gameId);
+            if (owner.equals(at) || hops == MAX_HOPS) {
+                Boolean done = stores.get(at).submit(gameId, game -> {
+                    game.setScore(game.getScore() + 1);
+                    return Boolean.TRUE;
+                }).join();
+                if (done != null) {
+                    return true;
+                }
+                owner = nodes.get(at).ownerOf(gameId);
+                if (owner.equals(at) || hops == MAX_HOPS) {
+                    return false;
+                }
+            }
+            at = owner;
+            hops++;
+        }
+    }
+
+    private ClusterNode node(String address) {
+        GameSessionStore store = new GameSessionStore(10_000, Duration.ofHours(1), 2, Duration.ZERO);
+        ClusterNode node = new ClusterNode(address, transport, store, 64);
+        node.start();
+        stores.put(address, store);
+        nodes.put(address, node);
+        return node;
+    }
+
+    // Every game is held by exactly one live node, the one all nodes route
+    // it to, with the board, score and version it had
+    private void assertPlacement(Map<String, GameView> expected, String... live) {
+        int held = 0;
+        for (String address : live) {
+            held += stores.get(address).size();
+        }
+        assertEquals(expected.size(), held);
+        for (Map.Entry<String, GameView> entry : expected.entrySet()) {
+            String gameId = entry.getKey();
+            String holder = holder(gameId);
+            for (String address : live) {
+                assertEquals(holder, nodes.get(address).ownerOf(gameId), "routing of " + gameId + " at " + address);
+            }
+            GameView actual = stores.get(holder).withGame(gameId, GameView::new);
+            assertArrayEquals(entry.getValue().values, actual.values);
+            assertEquals(entry.getValue().score, actual.score);
+            assertEquals(entry.getValue().version, actual.version);
+            assertEquals(entry.getValue().gameOver, actual.gameOver);
+        }
+    }
+
+    private String holder(String gameId) {
+        String holder = null;
+        for (Map.Entry<String, GameSessionStore> entry : stores.entrySet()) {
+            if (entry.getValue().contains(gameId)) {
+                assertNull(holder, gameId + " held twice");
+                holder = entry.getKey();
+            }
+        }
+        assertNotNull(holder, gameId + " lost");
+        return holder;
+    }
+
+    private static String ringOwner(ClusterNode node, String gameId) {
+        return new HashRing(node.getMembers(), 64).ownerOf(gameId);
+    }
+
+    private static GameState game(int i) {
+        GameState game = new GameState(5, 8, i);
+        game.setGameId(UUID.nameUUIDFromBytes(("game" + i).getBytes()).toString());
+        for (int cell = 0; cell < i % 7; cell++) {
+            game.clearCell(cell * 3);
+        }
+        game.setScore(i * 7L);
+        game.setGameOver(i % 11 == 0);
+        return game;
+    }
+
+    private static final class GameView {
+        final int[] values;
+        final long score;
+        final int version;
+        final boolean gameOver;
+
+        GameView(GameState game) {
+            Board board = game.getBoard();
+            values = new int[board.getCellCount()];
+            Arrays.setAll(values, board::getValue);
+            score = game.getScore();
+            version = board.getVersion();
+            gameOver = game.isGameOver();
+        }
+    }
+
+    // Runs a hook before each hand-off of games is delivered
+    private static final class HookedTransport extends InMemoryClusterTransport {
+        volatile Consumer<String> beforeGames;
+
+        @Override
+        public void send(String address, byte[] message) {
+            Consumer<String> hook = beforeGames;
+            if (hook != null && message[0] == ClusterNode.MSG_GAMES) {
+                hook.accept(address);
+            }
+            super.send(address, message);
+        }
+    }
+}
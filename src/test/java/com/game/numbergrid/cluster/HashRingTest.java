@@ -0,0 +1,97 @@
+package com.game.numbergrid.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashRingTest {
+
+    private static final int POINTS = 128;
+    private static final List<String> MEMBERS = List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080");
+
+    @Test
+    void everyKeyHasOneMemberAndOrderDoesNotMatter() {
+        HashRing ring = new HashRing(MEMBERS, POINTS);
+        HashRing shuffled = new HashRing(List.of(MEMBERS.get(2), MEMBERS.get(0), MEMBERS.get(3), MEMBERS.get(1), MEMBERS.get(0)), POINTS);
+        assertEquals(MEMBERS, shuffled.getMembers());
+        for (String key : keys(2000)) {
+            String owner = ring.ownerOf(key);
+            assertTrue(MEMBERS.contains(owner));
+            assertEquals(owner, shuffled.ownerOf(key));
+        }
+        assertNull(new HashRing(List.of(), POINTS).ownerOf("game"));
+    }
+
+    @Test
+    void keysSpreadEvenly() {
+        HashRing ring = new HashRing(MEMBERS, POINTS);
+        Map<String, Integer> counts = new HashMap<>();
+        List<String> keys = keys(40_000);
+        for (String key : keys) {
+            counts.merge(ring.ownerOf(key), 1, Integer::sum);
+        }
+        int fair = keys.size() / MEMBERS.size();
+        for (String member : MEMBERS) {
+            int count = counts.getOrDefault(member, 0);
+            assertTrue(count > fair * 0.7 && count < fair * 1.3, member + " owns " + count);
+        }
+    }
+
+    // A join only takes keys for the new member; a leave only hands out the leaver's
+    @Test
+    void membershipChangesOnlyMoveTheirOwnKeys() {
+        HashRing before = new HashRing(MEMBERS, POINTS);
+        List<String> joined = new ArrayList<>(MEMBERS);
+        joined.add("http://e:8080");
+        HashRing after = new HashRing(joined, POINTS);
+        HashRing left = new HashRing(MEMBERS.subList(1, MEMBERS.size()), POINTS);
+        int moved = 0;
+        List<String> keys = keys(20_000);
+        for (String key : keys) {
+            String owner = before.ownerOf(key);
+            String newOwner = after.ownerOf(key);
+            if (!owner.equals(newOwner)) {
+                assertEquals("http://e:8080", newOwner);
+                moved++;
+            }
+            if (!owner.equals(MEMBERS.get(0))) {
+                assertEquals(owner, left.ownerOf(key));
+            } else {
+                assertFalse(left.ownerOf(key).equals(owner));
+            }
+        }
+        // About a fifth of the keys move to the fifth member
+        assertTrue(moved > keys.size() / 10 && moved < keys.size() * 3 / 10, "moved " + moved);
+    }
+
+    @Test
+    void transportChecksTheSecret() {
+        HttpClusterTransport transport = new HttpClusterTransport(Duration.ofSeconds(1), "s3cret");
+        assertTrue(transport.authorized("s3cret"));
+        assertFalse(transport.authorized("s3cre"));
+        assertFalse(transport.authorized(null));
+
+        HttpClusterTransport open = new HttpClusterTransport(Duration.ofSeconds(1), " ");
+        assertFalse(open.authorized(""));
+        assertThrows(IllegalStateException.class, () -> open.bind("http://a:8080", message -> { }));
+    }
+
+    private static List<String> keys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(UUID.nameUUIDFromBytes(("game" + i).getBytes()).toString());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,122 @@
+package com.game.numbergrid.controller;
+
+import com.game.numbergrid.cluster.GameOwnership;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClusterRoutingTest {
+
+    private static final String HERE = "http://here.test";
+
+    private final GameOwnership ownership = mock(GameOwnership.class);
+    private HttpServer owner;
+
+    @AfterEach
+    void stopOwner() {
+        if (owner != null) {
+            owner.stop(0);
+        }
+    }
+
+    @Test
+    void redirectsRequestsForGamesHeldElsewhere() throws Exception {
+        ClusterRouting routing = routing("redirect");
+        place("held-here", HERE);
+        place("moved", "http://there.test");
+
+        assertTrue(routing.preHandle(request("GET", "/game/api/state", null), new MockHttpServletResponse(), null));
+        assertTrue(routing.preHandle(request("GET", "/game/api/state", "held-here"), new MockHttpServletResponse(), null));
+
+        MockHttpServletRequest request = request("GET", "/game/api/state", "moved");
+        request.setQueryString("gameId=moved&since=4");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(routing.preHandle(request, response, null));
+        assertEquals(307, response.getStatus());
+        assertEquals("http://there.test/game/api/state?gameId=moved&since=4", response.getHeader("Location"));
+    }
+
+    // Forwarded requests carry their hop count; one that has used them all
+    // is served where it lands
+    @Test
+    void forwardsWithAHopCount() throws Exception {
+        List<String> seen = new CopyOnWriteArrayList<>();
+        owner = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        owner.createContext("/", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            seen.add(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " " + body + " hops="
+                + exchange.getRequestHeaders().getFirst(ClusterRouting.FORWARDED_HEADER));
+            byte[] answer = "{\"score\":12}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, answer.length);
+            exchange.getResponseBody().write(answer);
+            exchange.close();
+        });
+        owner.start();
+        String ownerAddress = "http://127.0.0.1:" + owner.getAddress().getPort();
+        ClusterRouting routing = routing("forward");
+        place("moved", ownerAddress);
+
+        MockHttpServletRequest request = request("POST", "/game/select", "moved");
+        request.addParameter("row", "2");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(routing.preHandle(request, response, null));
+        assertEquals(200, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertEquals("{\"score\":12}", response.getContentAsString());
+        assertEquals("POST /game/select gameId=moved&row=2 hops=1", seen.get(0));
+
+        MockHttpServletRequest second = request("GET", "/game/api/state", "moved");
+        second.addHeader(ClusterRouting.FORWARDED_HEADER, "2");
+        assertFalse(routing.preHandle(second, new MockHttpServletResponse(), null));
+        assertEquals("GET /game/api/state?gameId=moved  hops=3", seen.get(1));
+
+        MockHttpServletRequest last = request("GET", "/game/api/state", "moved");
+        last.addHeader(ClusterRouting.FORWARDED_HEADER, Integer.toString(ClusterRouting.MAX_HOPS));
+        assertTrue(routing.preHandle(last, new MockHttpServletResponse(), null));
+        assertEquals(2, seen.size());
+    }
+
+    @Test
+    void unreachableOwnerIsABadGateway() throws Exception {
+        ClusterRouting routing = routing("forward");
+        place("moved", "http://127.0.0.1:1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(routing.preHandle(request("GET", "/game/api/state", "moved"), response, null));
+        assertEquals(502, response.getStatus());
+    }
+
+    private ClusterRouting routing(String mode) {
+        ClusterRouting routing = new ClusterRouting(mode, Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(routing, "ownership", ownership);
+        return routing;
+    }
+
+    private void place(String gameId, String address) {
+        when(ownership.isLocal(gameId)).thenReturn(HERE.equals(address));
+        when(ownership.ownerOf(gameId)).thenReturn(address);
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String gameId) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (gameId != null) {
+            request.addParameter("gameId", gameId);
+        }
+        return request;
+    }
+}
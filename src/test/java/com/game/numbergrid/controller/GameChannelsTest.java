@@ -0,0 +1,69 @@
+package com.game.numbergrid.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.numbergrid.metrics.GameMetrics;
+import com.game.numbergrid.model.GameState;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GameChannelsTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // A client that never reads keeps at most a bounded backlog, and what is
+    // left to send still brings it up to date
+    @Test
+    void backlogOfAStalledClientCollapsesToAFullBoard() throws Exception {
+        GameChannels channels = new GameChannels();
+        ReflectionTestUtils.setField(channels, "objectMapper", mapper);
+        ReflectionTestUtils.setField(channels, "metrics", GameMetrics.DISABLED);
+
+        List<String> sent = new ArrayList<>();
+        List<SendHandler> pending = new ArrayList<>();
+        Session session = mock(Session.class);
+        RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAsyncRemote()).thenReturn(remote);
+        doAnswer(call -> {
+            sent.add(call.getArgument(0));
+            pending.add(call.getArgument(1)); // never completed: the client is stuck
+            return null;
+        }).when(remote).sendText(anyString(), any(SendHandler.class));
+
+        GameState game = new GameState(4, 5, 1);
+        game.setGameId("g");
+        GameChannels.Subscriber subscriber = channels.subscribe("g", session, game.getBoard().getVersion());
+        for (int i = 0; i < 1000; i++) {
+            game.getBoard().setSelected(i % 20, i % 40 < 20);
+            channels.publish(game);
+        }
+        assertEquals(1, sent.size());
+
+        // Let the socket drain: the first push, then whatever was left queued
+        while (!pending.isEmpty()) {
+            SendHandler handler = pending.remove(0);
+            handler.onResult(new SendResult());
+        }
+        assertTrue(sent.size() <= 33, "pushes sent: " + sent.size());
+        assertTrue(mapper.readTree(sent.get(1)).has("grid"), "first push after the collapse is a full board");
+        assertFalse(mapper.readTree(sent.get(sent.size() - 1)).has("grid"));
+        assertEquals(game.getBoard().getVersion(), mapper.readTree(sent.get(sent.size() - 1)).get("version").intValue());
+        channels.unsubscribe(subscriber);
+    }
+}
@@ -0,0 +1,77 @@
+package com.game.numbergrid.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = "game.pool.size=4")
+@AutoConfigureMockMvc
+class GamePageTest {
+
+    private static final Pattern SCRIPT_URL = Pattern.compile("src=\"(/game/assets/game\\.js\\?v=[0-9a-f]+)\"");
+
+    @Autowired
+    private MockMvc mvc;
+
+    // The page links its script by content hash; the script is sent once with
+    // a strong ETag, and refetching with that tag gets an empty 304
+    @Test
+    void assetsAreSentOnceThenRevalidated() throws Exception {
+        MockHttpServletResponse page = mvc.perform(get("/game/start?rows=4&cols=5&seed=1")).andReturn().getResponse();
+        assertEquals(200, page.getStatus());
+        assertEquals("no-store", page.getHeader("Cache-Control"));
+        String html = page.getContentAsString();
+        assertTrue(html.contains("\"gameId\""), html);
+        Matcher link = SCRIPT_URL.matcher(html);
+        assertTrue(link.find(), html);
+        String url = link.group(1);
+
+        MockHttpServletResponse first = mvc.perform(get(url)).andReturn().getResponse();
+        assertEquals(200, first.getStatus());
+        String etag = first.getHeader("ETag");
+        assertNotNull(etag);
+        assertTrue(etag.matches("\"[0-9a-f]+\""), etag);
+        assertEquals("public, max-age=31536000, immutable", first.getHeader("Cache-Control"));
+        assertEquals("text/javascript;charset=UTF-8", first.getContentType());
+        byte[] script = new ClassPathResource("assets/game.js").getInputStream().readAllBytes();
+        assertArrayEquals(script, first.getContentAsByteArray());
+
+        MockHttpServletResponse again = mvc.perform(get(url).header("If-None-Match", etag)).andReturn().getResponse();
+        assertEquals(304, again.getStatus());
+        assertEquals(0, again.getContentAsByteArray().length);
+        assertEquals(etag, again.getHeader("ETag"));
+
+        // The gzipped copy is a different byte stream with its own tag
+        MockHttpServletResponse gzipped = mvc.perform(get(url).header("Accept-Encoding", "gzip, br")
+            .header("If-None-Match", etag)).andReturn().getResponse();
+        assertEquals(200, gzipped.getStatus());
+        assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+        assertNotEquals(etag, gzipped.getHeader("ETag"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(script, in.readAllBytes());
+        }
+        assertEquals(304, mvc.perform(get(url).header("Accept-Encoding", "gzip")
+            .header("If-None-Match", "\"old\", " + gzipped.getHeader("ETag"))).andReturn().getResponse().getStatus());
+
+        // Unversioned URLs are revalidated every time
+        assertEquals("no-cache", mvc.perform(get("/game/assets/game.css")).andReturn().getResponse()
+            .getHeader("Cache-Control"));
+        assertEquals(404, mvc.perform(get("/game/assets/missing.js")).andReturn().getResponse().getStatus());
+    }
+}
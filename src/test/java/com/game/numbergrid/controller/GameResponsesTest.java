@@ -0,0 +1,43 @@
+package com.game.numbergrid.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameResponsesTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // A response is written after the action returns; later moves must not leak into it
+    @Test
+    void fullBoardIsTheBoardAtItsVersion() throws Exception {
+        GameState game = new GameState(3, 4, 42);
+        Board board = game.getBoard();
+        board.setHinted(5, true);
+        Map<String, Object> state = GameResponses.state(game, null);
+        int[][] grid = new int[3][4];
+        for (int cell = 0; cell < 12; cell++) {
+            grid[cell / 4][cell % 4] = board.getValue(cell);
+        }
+
+        board.clear(0);
+        board.setValue(11, 0);
+        board.clearHints();
+        board.setHinted(6, true);
+
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(state));
+        assertEquals(mapper.valueToTree(grid), json.get("grid"));
+        assertTrue(json.get("hints").get(1).get(1).booleanValue());
+        assertFalse(json.get("hints").get(1).get(2).booleanValue());
+        assertEquals(3, json.get("grid").size());
+        assertEquals(4, json.get("hints").get(2).size());
+    }
+}
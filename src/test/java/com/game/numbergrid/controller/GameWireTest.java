@@ -0,0 +1,56 @@
+package com.game.numbergrid.controller;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GameWireTest {
+
+    // Like the JSON form, a frame holds the board as it was on the actor
+    @Test
+    void fullBoardIsTheBoardAtItsVersion() throws Exception {
+        GameState game = new GameState(3, 5, 42);
+        Board board = game.getBoard();
+        board.setHinted(5, true);
+        board.setSelected(14, true);
+        GameWire.Frame frame = GameWire.state(game, null);
+        byte[] before = encode(frame);
+
+        board.clear(0);
+        board.setValue(13, 0);
+        board.clearHints();
+        board.setHinted(6, true);
+        board.setSelected(14, false);
+
+        byte[] after = encode(frame);
+        assertArrayEquals(before, after);
+        assertEquals(frame.size(), after.length);
+
+        // format, fields, version, rows, cols, then 8 bytes of values and two 2-byte bitmaps
+        int values = 4 + varintSize(frame.version);
+        byte[] expected = new byte[8];
+        GameState copy = new GameState(3, 5, 42);
+        for (int cell = 0; cell < 15; cell++) {
+            expected[cell / 2] |= (byte) (copy.getBoard().getValue(cell) << (cell % 2 * 4));
+        }
+        assertArrayEquals(expected, Arrays.copyOfRange(after, values, values + 8));
+        assertArrayEquals(new byte[] {1 << 5, 0}, Arrays.copyOfRange(after, values + 8, values + 10));
+        assertArrayEquals(new byte[] {0, 1 << 6}, Arrays.copyOfRange(after, values + 10, values + 12));
+    }
+
+    private static byte[] encode(GameWire.Frame frame) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameWire.write(frame, out);
+        return out.toByteArray();
+    }
+
+    private static int varintSize(int value) {
+        return value < 0x80 ? 1 : value < 0x4000 ? 2 : 3;
+    }
+}
@@ -0,0 +1,170 @@
+package com.game.numbergrid.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreWindowTest {
+
+    @Test
+    void bucketsAreOrderedAndCoverTheirScores() {
+        Random random = new Random(5);
+        long previous = -1;
+        for (int i = 0; i < 100_000; i++) {
+            long score = i < 1000 ? i : random.nextLong() >>> random.nextInt(64);
+            int bucket = ScoreWindow.bucketOf(score);
+            assertTrue(score < ScoreWindow.upperBoundOf(bucket) || score == Long.MAX_VALUE, "score " + score);
+            if (bucket > 0) {
+                assertTrue(score >= ScoreWindow.upperBoundOf(bucket - 1), "score " + score);
+            }
+            // One bucket per score up to 256, then several scores share one
+            if (i < 1000) {
+                assertTrue(i < 256 ? bucket == i : bucket >= previous);
+                previous = bucket;
+            }
+        }
+        assertEquals(0, ScoreWindow.bucketOf(-7));
+    }
+
+    // Ranks from the Fenwick tree match counting higher scores one by one,
+    // through adds and removes, for small, repeated and very large scores
+    @Test
+    void ranksMatchABruteForceCount() {
+        Random random = new Random(11);
+        ScoreWindow window = new ScoreWindow(50);
+        List<LeaderboardEntry> live = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            if (!live.isEmpty() && random.nextInt(4) == 0) {
+                window.remove(live.remove(random.nextInt(live.size())));
+            } else {
+                LeaderboardEntry entry = new LeaderboardEntry("g" + step, randomScore(random), 10, 20, step, 0);
+                window.add(entry);
+                live.add(entry);
+            }
+            if (step % 97 == 0) {
+                assertEquals(live.size(), window.size());
+                for (int probe = 0; probe < 20; probe++) {
+                    long score = probe % 2 == 0 && !live.isEmpty()
+                        ? live.get(random.nextInt(live.size())).getScore() + random.nextInt(3) - 1
+                        : randomScore(random);
+                    assertEquals(1 + live.stream().filter(e -> e.getScore() > score).count(),
+                        window.rankOf(score), "score " + score);
+                }
+            }
+        }
+        List<LeaderboardEntry> expected = new ArrayList<>(live);
+        expected.sort(ScoreWindow.RANKING);
+        List<LeaderboardEntry> top = window.top(20);
+        // Removals may have emptied part of the capped table, but what it shows is in order
+        assertEquals(expected.subList(0, top.size()), top);
+    }
+
+    // An entry pushed out of the capped table cannot come back, so after
+    // removals the table shrinks instead of showing lower entries past it
+    @Test
+    void cappedTableNeverSkipsAnEntry() {
+        ScoreWindow window = new ScoreWindow(3);
+        LeaderboardEntry[] entries = new LeaderboardEntry[6];
+        for (int i = 1; i <= 5; i++) {
+            entries[i] = new LeaderboardEntry("g" + i, 100 * i, 10, 20, i, 0);
+            window.add(entries[i]);
+        }
+        assertEquals(List.of(entries[5], entries[4], entries[3]), window.top(10));
+        window.remove(entries[5]);
+        window.remove(entries[4]);
+        assertEquals(List.of(entries[3]), window.top(10));
+        // 150 ranks below 200, which the table no longer holds
+        window.add(new LeaderboardEntry("low", 150, 10, 20, 9, 0));
+        assertEquals(List.of(entries[3]), window.top(10));
+        LeaderboardEntry high = new LeaderboardEntry("high", 250, 10, 20, 9, 0);
+        window.add(high);
+        assertEquals(List.of(entries[3], high), window.top(10));
+        assertEquals(5, window.size());
+
+        // With a margin above the page size, random churn keeps full, exact pages
+        Random random = new Random(3);
+        ScoreWindow churned = new ScoreWindow(200);
+        List<LeaderboardEntry> live = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            if (live.size() > 50 && random.nextInt(20) == 0) {
+                churned.remove(live.remove(random.nextInt(live.size())));
+            } else {
+                LeaderboardEntry entry = new LeaderboardEntry("c" + step, randomScore(random), 10, 20, step, 0);
+                churned.add(entry);
+                live.add(entry);
+            }
+        }
+        live.sort(ScoreWindow.RANKING);
+        assertEquals(live.subList(0, 20), churned.top(20));
+    }
+
+    // Games are remembered for their best score as long as the daily windows
+    @Test
+    void leaderboardForgetsGamesWithTheirDay() throws InterruptedException {
+        Clock clock = Clock.fixed(Instant.parse("2026-03-01T12:00:00Z"), ZoneOffset.UTC);
+        Leaderboard leaderboard = new Leaderboard(true, 2, 64, clock);
+        long day = LocalDate.of(2026, 3, 1).toEpochDay();
+        leaderboard.submit(new LeaderboardEntry("a", 300, 10, 20, 1, day));
+        leaderboard.submit(new LeaderboardEntry("b", 500, 10, 20, 2, day + 1));
+        leaderboard.submit(new LeaderboardEntry("c", 100, 10, 20, 3, day + 2));
+        for (int wait = 0; wait < 200 && leaderboard.size(Leaderboard.Window.ALL, null, 0, 0) < 3; wait++) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        leaderboard.stop();
+
+        assertNull(leaderboard.entryOf("a"));
+        assertEquals(500, leaderboard.entryOf("b").getScore());
+        assertEquals(2, leaderboard.entryCount());
+        assertEquals(3, leaderboard.size(Leaderboard.Window.ALL, null, 0, 0));
+        assertEquals(0, leaderboard.size(Leaderboard.Window.DAILY, LocalDate.ofEpochDay(day), 0, 0));
+        assertEquals(1, leaderboard.size(Leaderboard.Window.DAILY, LocalDate.ofEpochDay(day + 1), 0, 0));
+    }
+
+    @Test
+    void leaderboardKeepsEachGamesBestScore() throws InterruptedException {
+        Clock clock = Clock.fixed(Instant.parse("2026-03-01T12:00:00Z"), ZoneOffset.UTC);
+        Leaderboard leaderboard = new Leaderboard(true, 7, 64, clock);
+        long day = LocalDate.of(2026, 3, 1).toEpochDay();
+        leaderboard.submit(new LeaderboardEntry("a", 300, 10, 20, 1, day));
+        leaderboard.submit(new LeaderboardEntry("b", 500, 5, 5, 2, day));
+        leaderboard.submit(new LeaderboardEntry("a", 200, 10, 20, 3, day)); // lower, ignored
+        leaderboard.submit(new LeaderboardEntry("a", 700, 10, 20, 4, day));
+        leaderboard.submit(new LeaderboardEntry("c", 100, 10, 20, 5, day - 30)); // too old for DAILY
+        for (int wait = 0; wait < 200 && leaderboard.size(Leaderboard.Window.ALL, null, 0, 0) < 3; wait++) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        leaderboard.stop();
+
+        assertEquals(3, leaderboard.size(Leaderboard.Window.ALL, null, 0, 0));
+        assertEquals(700, leaderboard.entryOf("a").getScore());
+        assertEquals(List.of("a", "b", "c"),
+            leaderboard.top(Leaderboard.Window.ALL, null, 0, 0, 10).stream().map(LeaderboardEntry::getGameId).toList());
+        assertEquals(2, leaderboard.size(Leaderboard.Window.DAILY, null, 0, 0));
+        assertEquals(2, leaderboard.size(Leaderboard.Window.SIZE, null, 10, 20));
+        assertEquals(2, leaderboard.rankOf(600, Leaderboard.Window.ALL, null, 0, 0));
+        assertEquals(1, leaderboard.rankOf(600, Leaderboard.Window.SIZE, null, 5, 6));
+    }
+
+    private static long randomScore(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return random.nextInt(300);
+            case 1:
+                return 10_000 + random.nextInt(5000);
+            default:
+                return random.nextLong() >>> random.nextInt(64);
+        }
+    }
+}
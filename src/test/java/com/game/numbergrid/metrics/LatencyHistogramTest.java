@@ -0,0 +1,92 @@
+package com.game.numbergrid.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    // Bucket i holds (2^(i-1), 2^i] nanoseconds, matching Prometheus' "le"
+    @Test
+    void bucketsIncludeTheirUpperBound() {
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            long bound = Math.round(LatencyHistogram.upperBoundSeconds(bucket) * 1e9);
+            assertEquals(1L << bucket, bound);
+            assertEquals(bucket, bucketOf(bound));
+            assertEquals(bucket + 1, bucketOf(bound + 1));
+        }
+        assertEquals(0, bucketOf(0));
+        assertEquals(0, bucketOf(-5));
+        assertEquals(LatencyHistogram.BUCKETS, bucketOf(Long.MAX_VALUE)); // +Inf
+        assertEquals(LatencyHistogram.BUCKETS, bucketOf(20_000_000_000L));
+    }
+
+    // The bucket Prometheus' histogram_quantile lands in holds the true
+    // quantile, for latencies from tens of nanoseconds to milliseconds
+    @Test
+    void quantilesFallInTheirBucket() {
+        Random random = new Random(4);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] samples = new long[50_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 20 + (long) Math.exp(random.nextGaussian() * 2 + 7); // median ~1 us
+            histogram.record(samples[i]);
+        }
+        Arrays.sort(samples);
+        long[] counts = histogram.bucketCounts();
+        assertEquals(samples.length, Arrays.stream(counts).sum());
+        for (double fraction : new double[] {0.01, 0.1, 0.5, 0.9, 0.99, 0.999}) {
+            int rank = (int) Math.ceil(fraction * samples.length);
+            long exact = samples[rank - 1];
+            int bucket = 0;
+            long cumulative = counts[0];
+            while (cumulative < rank) {
+                cumulative += counts[++bucket];
+            }
+            double upper = LatencyHistogram.upperBoundSeconds(bucket) * 1e9;
+            double lower = bucket == 0 ? 0 : LatencyHistogram.upperBoundSeconds(bucket - 1) * 1e9;
+            assertTrue(exact > lower && exact <= upper, fraction + ": " + exact + " not in (" + lower + ", " + upper + "]");
+        }
+        long total = Arrays.stream(samples).sum();
+        assertEquals(total / 1e9, histogram.sumSeconds(), 1e-12);
+    }
+
+    @Test
+    void prometheusBucketsAreCumulative() {
+        GameMetrics metrics = new GameMetrics(true);
+        for (int i = 0; i < 10; i++) {
+            metrics.stop(GameMetrics.Op.HINT, metrics.start());
+        }
+        StringBuilder out = new StringBuilder();
+        metrics.writePrometheus(out);
+        long previous = 0;
+        int lines = 0;
+        for (String line : out.toString().split("\n")) {
+            if (line.startsWith("game_operation_seconds_bucket{op=\"hint\"")) {
+                long cumulative = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+                assertTrue(cumulative >= previous, line);
+                previous = cumulative;
+                lines++;
+            }
+        }
+        assertEquals(LatencyHistogram.BUCKETS + 1, lines);
+        assertEquals(10, previous);
+        assertTrue(out.toString().contains("game_operation_seconds_count{op=\"hint\"} 10\n"));
+    }
+
+    private static int bucketOf(long nanos) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(nanos);
+        long[] counts = histogram.bucketCounts();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                return i;
+            }
+        }
+        throw new AssertionError("nothing recorded");
+    }
+}
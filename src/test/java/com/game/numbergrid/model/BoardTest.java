@@ -0,0 +1,49 @@
+package com.game.numbergrid.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BoardTest {
+
+    @Test
+    void changedCellsListsEachCellOnce() {
+        Board board = filledBoard();
+        int since = board.getVersion();
+        board.clear(3);
+        board.setSelected(7, true);
+        board.setSelected(7, false);
+        board.setHinted(3, true);
+        assertArrayEquals(new int[] {3, 7}, board.changedCellsSince(since));
+        assertArrayEquals(new int[0], board.changedCellsSince(board.getVersion()));
+    }
+
+    // Versions the log cannot answer for get a full board (null)
+    @Test
+    void unknownVersionsGetNoDelta() {
+        Board board = new Board(2, 3);
+        board.setValue(0, 4);
+        board.setValue(1, 5);
+        assertNull(board.changedCellsSince(-1));
+        assertNull(board.changedCellsSince(Integer.MIN_VALUE));
+        assertNull(board.changedCellsSince(board.getVersion() + 1));
+
+        Board big = filledBoard();
+        assertNull(big.changedCellsSince(big.getVersion() - 65));
+
+        // reset() moves the version past entries it never logged
+        board.reset();
+        board.setValue(2, 1);
+        assertNull(board.changedCellsSince(board.getVersion() - 2));
+        assertArrayEquals(new int[] {2}, board.changedCellsSince(board.getVersion() - 1));
+    }
+
+    private static Board filledBoard() {
+        Board board = new Board(10, 20);
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            board.setValue(cell, 1 + cell % 9);
+        }
+        return board;
+    }
+}
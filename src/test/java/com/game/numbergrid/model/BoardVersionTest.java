@@ -0,0 +1,127 @@
+package com.game.numbergrid.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardVersionTest {
+
+    // Sizes around leaf (64) and branch (64 * 32) boundaries, up to three inner levels
+    private static final int[][] SIZES = {
+        {1, 1}, {8, 8}, {5, 13}, {32, 64}, {41, 50}, {200, 330},
+    };
+
+    // Every version reads like a plain array with the same clears applied,
+    // and older versions keep their values after later moves
+    @Test
+    void versionsMatchAnArrayModel() {
+        Random random = new Random(17);
+        for (int[] size : SIZES) {
+            Board board = randomBoard(random, size[0], size[1]);
+            int cells = board.getCellCount();
+            int[] model = new int[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                model[cell] = board.getValue(cell);
+            }
+            BoardVersion version = BoardVersion.of(board, 0, false);
+            assertEquals(size[0], version.getRows());
+            assertEquals(size[1], version.getCols());
+            assertEquals(0, version.getClearedCells().length);
+
+            BoardVersion[] versions = new BoardVersion[20];
+            int[][] models = new int[20][];
+            for (int move = 0; move < versions.length; move++) {
+                versions[move] = version;
+                models[move] = model.clone();
+                int count = 1 + random.nextInt(Math.min(cells, 40));
+                int[] cleared = new int[count + 3];
+                for (int i = 0; i < count; i++) {
+                    cleared[i] = random.nextInt(cells);
+                }
+                cleared[count] = -1; // past 'count', must be ignored
+                for (int i = 0; i < count; i++) {
+                    model[cleared[i]] = 0;
+                }
+                version = version.withCleared(distinct(cleared, count), countDistinct(cleared, count),
+                    move + 1, move == versions.length - 1);
+                assertEquals(move + 1, version.getScore());
+                int[] expected = Arrays.stream(cleared, 0, count).distinct().sorted().toArray();
+                assertArrayEquals(expected, version.getClearedCells());
+                assertMatches(model, version);
+            }
+            assertTrue(version.isGameOver());
+            for (int move = 0; move < versions.length; move++) {
+                assertMatches(models[move], versions[move]);
+            }
+        }
+    }
+
+    @Test
+    void historyUndoesRedoesAndDropsOldVersions() {
+        Board board = randomBoard(new Random(3), 4, 4);
+        BoardVersion start = BoardVersion.of(board, 0, false);
+        GameHistory history = new GameHistory(3, start);
+        assertFalse(history.canUndo());
+        assertThrows(IllegalStateException.class, history::undo);
+
+        BoardVersion one = start.withCleared(new int[] {0}, 1, 1, false);
+        BoardVersion two = one.withCleared(new int[] {1}, 1, 2, false);
+        history.record(one);
+        history.record(two);
+        assertSame(two, history.current());
+        assertSame(one, history.undo());
+        assertSame(two, history.redo());
+        assertEquals(2, history.getStep());
+
+        // A move after an undo drops the redo branch
+        history.undo();
+        BoardVersion other = one.withCleared(new int[] {2}, 1, 2, false);
+        history.record(other);
+        assertFalse(history.canRedo());
+        assertSame(other, history.at(2));
+
+        // Past capacity the oldest version goes
+        history.record(other.withCleared(new int[] {3}, 1, 3, false));
+        assertEquals(1, history.getFirstStep());
+        assertEquals(3, history.getLastStep());
+        assertNull(history.at(0));
+        assertSame(one, history.at(1));
+        assertNull(history.at(4));
+    }
+
+    private static void assertMatches(int[] model, BoardVersion version) {
+        for (int cell = 0; cell < model.length; cell++) {
+            assertEquals(model[cell], version.getValue(cell), "cell " + cell);
+            assertEquals(model[cell] == 0, version.isEmpty(cell));
+        }
+    }
+
+    // withCleared takes duplicates-free cells; keep the first 'count' entries unique
+    private static int[] distinct(int[] cells, int count) {
+        int[] unique = Arrays.stream(cells, 0, count).distinct().toArray();
+        int[] padded = Arrays.copyOf(unique, cells.length);
+        Arrays.fill(padded, unique.length, padded.length, -1);
+        return padded;
+    }
+
+    private static int countDistinct(int[] cells, int count) {
+        return (int) Arrays.stream(cells, 0, count).distinct().count();
+    }
+
+    private static Board randomBoard(Random random, int rows, int cols) {
+        Board board = new Board(rows, cols);
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            board.setValue(cell, 1 + random.nextInt(9));
+        }
+        return board;
+    }
+}
@@ -0,0 +1,87 @@
+package com.game.numbergrid.model;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameStateTest {
+
+    @Test
+    void sameSeedGivesTheSameBoard() {
+        for (long seed = -3; seed < 50; seed++) {
+            GameState game = new GameState(7, 13, seed);
+            GameState again = new GameState(7, 13, seed);
+            assertArrayEquals(values(game.getBoard()), values(again.getBoard()));
+            assertEquals(seed, game.getSeed());
+        }
+        assertFalse(Arrays.equals(values(new GameState(7, 13, 1).getBoard()),
+            values(new GameState(7, 13, 2).getBoard())));
+    }
+
+    // A played game reset with a new seed is the board a fresh game with that
+    // seed would have, down to the bitsets, with a version no old delta reaches
+    @Test
+    void resetLeavesNothingOfThePreviousGame() {
+        GameState game = new GameState(7, 13, 41); // 91 cells: the last bitset word is partly used
+        Board board = game.getBoard();
+        HintIndex index = game.getHintIndex();
+        for (int cell = 0; cell < 30; cell += 3) {
+            game.clearCell(cell);
+        }
+        board.setSelected(40, true);
+        board.setHinted(41, true);
+        board.mark(42); // a caller that forgot its scratch mark
+        game.setScore(1230);
+        game.setGameOver(true);
+        game.addMessage(MoveMessage.GAME_OVER, 1230, 0, 0);
+        game.setHistory(new GameHistory(4, BoardVersion.of(board, 1230, true)));
+        int played = board.getVersion();
+
+        game.reset(99);
+        GameState fresh = new GameState(7, 13, 99);
+        for (String field : new String[] {"values", "selected", "hinted", "empty", "marks", "valueCounts",
+                "liveCount", "hintedCount"}) {
+            Object expected = ReflectionTestUtils.getField(fresh.getBoard(), field);
+            Object actual = ReflectionTestUtils.getField(board, field);
+            if (expected instanceof int[]) {
+                assertArrayEquals((int[]) expected, (int[]) actual, field);
+            } else if (expected instanceof long[]) {
+                assertArrayEquals((long[]) expected, (long[]) actual, field);
+            } else if (expected instanceof byte[]) {
+                assertArrayEquals((byte[]) expected, (byte[]) actual, field);
+            } else {
+                assertEquals(expected, actual, field);
+            }
+        }
+        assertEquals(99, game.getSeed());
+        assertEquals(0, game.getScore());
+        assertFalse(game.isGameOver());
+        assertTrue(game.getMessages().isEmpty());
+        assertNull(game.getHistory());
+
+        assertTrue(board.getVersion() > played);
+        assertNull(board.changedCellsSince(played));
+        assertNull(board.changedCellsSince(played - 1));
+
+        // The kept hint index was rebuilt for the new board
+        assertEquals(fresh.getHintIndex().findCombo(HintPolicy.FIRST), index.findCombo(HintPolicy.FIRST));
+        for (int i = 0; i < index.getComboSize(); i++) {
+            assertEquals(fresh.getHintIndex().getComboCell(i), index.getComboCell(i));
+        }
+    }
+
+    private static byte[] values(Board board) {
+        byte[] values = new byte[board.getCellCount()];
+        for (int cell = 0; cell < values.length; cell++) {
+            values[cell] = (byte) board.getValue(cell);
+        }
+        return values;
+    }
+}
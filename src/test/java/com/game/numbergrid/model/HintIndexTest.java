@@ -0,0 +1,245 @@
+package com.game.numbergrid.model;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HintIndexTest {
+
+    // FIRST takes the first value combo in the index's order (pairs, then
+    // triples, each ascending) and LARGEST prefers any triple over a pair
+    @Test
+    void firstAndLargestMatchABoardScan() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int round = 0; round < 2_000; round++) {
+            Board board = randomBoard(random, 1 + random.nextInt(6), 1 + random.nextInt(6), random.nextInt(1, 10));
+            HintIndex index = new HintIndex(board);
+
+            int[] first = firstCombo(board);
+            int size = index.findCombo(HintPolicy.FIRST);
+            assertEquals(first == null ? 0 : first.length, size);
+            if (first != null) {
+                assertArrayEquals(first, valuesOf(board, index), () -> dump(board));
+            }
+
+            size = index.findCombo(HintPolicy.LARGEST);
+            assertEquals(hasCombo(board, 3) ? 3 : hasCombo(board, 2) ? 2 : 0, size, () -> dump(board));
+            valuesOf(board, index);
+
+            size = index.findCombo(HintPolicy.NEAREST);
+            assertEquals(first == null, size == 0);
+            valuesOf(board, index);
+        }
+    }
+
+    // On boards of 1s, 5s and 9s only pairs (1+9, 5+5) are combos, and with
+    // the anchor values rare every anchor is tried, so NEAREST's answer is the
+    // closest such pair on the board. The common value's bucket is over 16,
+    // so its cells are found by walking rings around the anchor.
+    @Test
+    void nearestFindsTheClosestPair() {
+        SplittableRandom random = new SplittableRandom(9);
+        for (int round = 0; round < 2_000; round++) {
+            int rows = 3 + random.nextInt(12);
+            int cols = 3 + random.nextInt(12);
+            Board board = new Board(rows, cols);
+            int common = random.nextBoolean() ? 1 : 9;
+            int[] placed = new int[10];
+            for (int cell = 0; cell < board.getCellCount(); cell++) {
+                int value = random.nextInt(4) == 0 ? common : 0;
+                int rare = new int[] {1, 5, 9}[random.nextInt(3)];
+                if (value == 0 && rare != common && placed[rare] < 8 && random.nextInt(6) == 0) {
+                    value = rare;
+                }
+                if (value != 0) {
+                    board.setValue(cell, value);
+                    placed[value]++;
+                }
+            }
+            HintIndex index = new HintIndex(board);
+            int closest = closestPair(board);
+            int size = index.findCombo(HintPolicy.NEAREST);
+            if (closest == Integer.MAX_VALUE) {
+                assertEquals(0, size, () -> dump(board));
+                continue;
+            }
+            assertEquals(2, size, () -> dump(board));
+            valuesOf(board, index);
+            int a = index.getComboCell(0);
+            int b = index.getComboCell(1);
+            int distance = Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+            assertEquals(closest, distance, () -> "common " + (placed[common] > 16) + "\n" + dump(board));
+        }
+    }
+
+    // Swap-remove keeps every bucket exactly the live cells of its value, with
+    // each cell's slot pointing back at it, through clears and undos
+    @Test
+    void bucketsFollowClearsAndRestores() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int round = 0; round < 200; round++) {
+            GameState game = new GameState(1 + random.nextInt(8), 2 + random.nextInt(8), random.nextLong());
+            Board board = game.getBoard();
+            HintIndex index = game.getHintIndex();
+            List<int[]> cleared = new ArrayList<>();
+            for (int step = 0; step < 3 * board.getCellCount(); step++) {
+                if (!cleared.isEmpty() && random.nextInt(3) == 0) {
+                    int[] undone = cleared.remove(random.nextInt(cleared.size()));
+                    game.restoreCell(undone[0], undone[1]);
+                } else if (board.getLiveCount() > 0) {
+                    int cell = board.nextLiveCell(random.nextInt(board.getCellCount()));
+                    if (cell < 0) {
+                        cell = board.nextLiveCell(0);
+                    }
+                    cleared.add(new int[] {cell, board.getValue(cell)});
+                    game.clearCell(cell);
+                }
+                assertConsistent(board, index);
+                int[] first = firstCombo(board);
+                assertEquals(first == null ? 0 : first.length, index.findCombo(HintPolicy.FIRST));
+                if (first != null) {
+                    assertArrayEquals(first, valuesOf(board, index));
+                }
+            }
+        }
+    }
+
+    private static void assertConsistent(Board board, HintIndex index) {
+        int[][] buckets = (int[][]) ReflectionTestUtils.getField(index, "buckets");
+        int[] sizes = (int[]) ReflectionTestUtils.getField(index, "bucketSizes");
+        int[] slotOf = (int[]) ReflectionTestUtils.getField(index, "slotOf");
+        for (int value = 1; value <= 9; value++) {
+            List<Integer> live = new ArrayList<>();
+            for (int cell = 0; cell < board.getCellCount(); cell++) {
+                if (!board.isEmpty(cell) && board.getValue(cell) == value) {
+                    live.add(cell);
+                }
+            }
+            assertEquals(live.size(), sizes[value]);
+            int[] held = Arrays.copyOf(buckets[value], sizes[value]);
+            for (int slot = 0; slot < held.length; slot++) {
+                assertEquals(slot, slotOf[held[slot]]);
+            }
+            Arrays.sort(held);
+            assertArrayEquals(live.stream().mapToInt(Integer::intValue).toArray(), held);
+        }
+    }
+
+    // Values of the held combo, ascending, after checking its cells are live
+    // and distinct and sum to a multiple of 10
+    private static int[] valuesOf(Board board, HintIndex index) {
+        int size = index.getComboSize();
+        int[] values = new int[size];
+        int sum = 0;
+        for (int i = 0; i < size; i++) {
+            int cell = index.getComboCell(i);
+            assertTrue(!board.isEmpty(cell), "cell " + cell + " is empty");
+            for (int j = 0; j < i; j++) {
+                assertTrue(index.getComboCell(j) != cell, "cell " + cell + " twice");
+            }
+            values[i] = board.getValue(cell);
+            sum += values[i];
+        }
+        assertEquals(0, sum % 10);
+        Arrays.sort(values);
+        return values;
+    }
+
+    // Value combos in the index's order: pairs, then triples, each ascending
+    private static int[] firstCombo(Board board) {
+        int[] counts = board.getValueCounts();
+        for (int a = 1; a <= 9; a++) {
+            for (int b = a; b <= 9; b++) {
+                if ((a + b) % 10 == 0 && fits(counts, a, b)) {
+                    return new int[] {a, b};
+                }
+            }
+        }
+        for (int a = 1; a <= 9; a++) {
+            for (int b = a; b <= 9; b++) {
+                for (int c = b; c <= 9; c++) {
+                    if ((a + b + c) % 10 == 0 && fits(counts, a, b, c)) {
+                        return new int[] {a, b, c};
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // Some 'size' distinct live cells summing to a multiple of 10
+    private static boolean hasCombo(Board board, int size) {
+        List<Integer> live = new ArrayList<>();
+        for (int cell = board.nextLiveCell(0); cell >= 0; cell = board.nextLiveCell(cell + 1)) {
+            live.add(board.getValue(cell));
+        }
+        for (int i = 0; i < live.size(); i++) {
+            for (int j = i + 1; j < live.size(); j++) {
+                if (size == 2 && (live.get(i) + live.get(j)) % 10 == 0) {
+                    return true;
+                }
+                for (int k = j + 1; size == 3 && k < live.size(); k++) {
+                    if ((live.get(i) + live.get(j) + live.get(k)) % 10 == 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int closestPair(Board board) {
+        int cols = board.getCols();
+        int best = Integer.MAX_VALUE;
+        for (int a = board.nextLiveCell(0); a >= 0; a = board.nextLiveCell(a + 1)) {
+            for (int b = board.nextLiveCell(a + 1); b >= 0; b = board.nextLiveCell(b + 1)) {
+                if ((board.getValue(a) + board.getValue(b)) % 10 == 0) {
+                    best = Math.min(best, Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols));
+                }
+            }
+        }
+        return best;
+    }
+
+    private static boolean fits(int[] counts, int... values) {
+        int[] needed = new int[10];
+        for (int value : values) {
+            if (++needed[value] > counts[value]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Mostly live cells of up to 'distinct' values, some empty
+    private static Board randomBoard(SplittableRandom random, int rows, int cols, int distinct) {
+        Board board = new Board(rows, cols);
+        int[] palette = random.ints(distinct, 1, 10).toArray();
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            if (random.nextInt(5) != 0) {
+                board.setValue(cell, palette[random.nextInt(distinct)]);
+            }
+        }
+        return board;
+    }
+
+    private static String dump(Board board) {
+        StringBuilder out = new StringBuilder();
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getCols(); col++) {
+                int cell = board.cellIndex(row, col);
+                out.append(board.isEmpty(cell) ? '.' : (char) ('0' + board.getValue(cell)));
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.game.numbergrid.persistence;
+
+import com.game.numbergrid.model.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GamePersistenceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoversGamesFromTheJournal() {
+        GamePersistence persistence = open();
+        GameState game = newGame("a", 1);
+        persistence.gameStarted(game);
+        clear(persistence, game, new int[] {0, 5, 7}, 90);
+        GameState other = newGame("b", 2);
+        persistence.gameStarted(other);
+        persistence.stop();
+
+        Map<String, GameState> recovered = recover();
+        assertEquals(2, recovered.size());
+        assertSameGame(game, recovered.get("a"));
+        assertSameGame(other, recovered.get("b"));
+    }
+
+    // Moves made after a checkpoint are replayed on top of its snapshot; the
+    // journal segments it covers are gone
+    @Test
+    void recoversGamesFromACheckpointAndLaterMoves() {
+        GamePersistence persistence = open();
+        GameState game = newGame("a", 1);
+        persistence.gameStarted(game);
+        clear(persistence, game, new int[] {1, 2}, 20);
+
+        GamePersistence.Checkpoint checkpoint = persistence.beginCheckpoint();
+        clear(persistence, game, new int[] {3}, 30);
+        checkpoint.add(game);
+        checkpoint.commit();
+        clear(persistence, game, new int[] {10, 11}, 70);
+        game.setGameOver(true);
+        clear(persistence, game, new int[] {12}, 80);
+        persistence.stop();
+
+        Map<String, GameState> recovered = recover();
+        assertEquals(1, recovered.size());
+        assertSameGame(game, recovered.get("a"));
+        assertTrue(recovered.get("a").isGameOver());
+    }
+
+    // A restart replaces the whole game
+    @Test
+    void laterGameRecordReplacesEarlierOne() {
+        GamePersistence persistence = open();
+        persistence.gameStarted(newGame("a", 1));
+        GameState restarted = newGame("a", 99);
+        persistence.gameStarted(restarted);
+        persistence.stop();
+
+        assertSameGame(restarted, recover().get("a"));
+    }
+
+    // An ended game is dropped on recovery until it is started again
+    @Test
+    void endedGamesAreNotRecovered() {
+        GamePersistence persistence = open();
+        persistence.gameStarted(newGame("a", 1));
+        GameState other = newGame("b", 2);
+        persistence.gameStarted(other);
+        persistence.gameEnded("a");
+        persistence.gameEnded("missing");
+        persistence.stop();
+        Map<String, GameState> recovered = recover();
+        assertEquals(1, recovered.size());
+        assertSameGame(other, recovered.get("b"));
+
+        persistence = open();
+        GameState back = newGame("a", 3);
+        persistence.gameStarted(back);
+        persistence.stop();
+        assertSameGame(back, recover().get("a"));
+    }
+
+    private GamePersistence open() {
+        GamePersistence persistence = new GamePersistence(true, dir.toString(), 1 << 16, 10);
+        persistence.start();
+        return persistence;
+    }
+
+    private Map<String, GameState> recover() {
+        GamePersistence persistence = new GamePersistence(true, dir.toString(), 1 << 16, 10);
+        Collection<GameState> games = persistence.recover();
+        Map<String, GameState> byId = new HashMap<>();
+        for (GameState game : games) {
+            byId.put(game.getGameId(), game);
+        }
+        return byId;
+    }
+
+    private static GameState newGame(String gameId, long seed) {
+        GameState game = new GameState(6, 8, seed);
+        game.setGameId(gameId);
+        return game;
+    }
+
+    private static void clear(GamePersistence persistence, GameState game, int[] cells, long score) {
+        for (int cell : cells) {
+            game.clearCell(cell);
+        }
+        game.setScore(score);
+        persistence.cellsCleared(game, cells, cells.length);
+    }
+
+    private static void assertSameGame(GameState expected, GameState actual) {
+        assertEquals(expected.getGameId(), actual.getGameId());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+        for (int cell = 0; cell < expected.getBoard().getCellCount(); cell++) {
+            assertEquals(expected.getBoard().getValue(cell), actual.getBoard().getValue(cell), "cell " + cell);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.game.numbergrid.persistence;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameSnapshotCodecTest {
+
+    // Header before the cells for a game named "g": format, id, seed, score,
+    // game over, version, rows, cols
+    private static final int HEADER = 1 + 2 + 8 + 8 + 1 + 4 + 4 + 4;
+
+    @Test
+    void roundTripsAnOddSizedBoard() {
+        GameState game = newGame(3, 5);
+        game.clearCell(4);
+        game.setScore(42);
+        ByteBuffer bytes = encode(game);
+        assertEquals(HEADER + 8, bytes.remaining());
+
+        GameState read = GameSnapshotCodec.read(bytes);
+        assertFalse(bytes.hasRemaining());
+        assertEquals("g", read.getGameId());
+        assertEquals(42, read.getScore());
+        assertEquals(game.getBoard().getVersion(), read.getBoard().getVersion());
+        assertSameValues(game.getBoard(), read.getBoard());
+    }
+
+    // The same nibble order as the wire frames: even cell in the low nibble
+    @Test
+    void packsTheEvenCellInTheLowNibble() {
+        GameState game = newGame(1, 3);
+        ByteBuffer bytes = encode(game);
+        Board board = game.getBoard();
+        assertEquals(board.getValue(0) | board.getValue(1) << 4, bytes.get(HEADER) & 0xFF);
+        assertEquals(board.getValue(2), bytes.get(HEADER + 1) & 0xFF);
+    }
+
+    // Snapshots written before the order changed still read back
+    @Test
+    void readsTheHighNibbleFirstFormat() {
+        GameState game = newGame(3, 5);
+        ByteBuffer bytes = encode(game);
+        bytes.put(0, (byte) 1);
+        for (int i = HEADER; i < bytes.limit(); i++) {
+            int packed = bytes.get(i) & 0xFF;
+            bytes.put(i, (byte) (packed << 4 | packed >>> 4));
+        }
+        assertSameValues(game.getBoard(), GameSnapshotCodec.read(bytes).getBoard());
+    }
+
+    @Test
+    void rejectsBadHeadersBeforeAllocating() {
+        GameState game = newGame(3, 5);
+        assertRejected(withSize(encode(game), 0, 5));
+        assertRejected(withSize(encode(game), -3, 5));
+        assertRejected(withSize(encode(game), 3, Integer.MIN_VALUE));
+        assertRejected(withSize(encode(game), 100_000, 100_000));
+        assertRejected(withSize(encode(game), 1001, 1000));
+        // Fits the limit, but the cells are not there
+        assertRejected(withSize(encode(game), 1000, 1000));
+        ByteBuffer truncated = encode(game);
+        truncated.limit(truncated.limit() - 1);
+        assertRejected(truncated);
+
+        ByteBuffer badValue = encode(game);
+        badValue.put(HEADER, (byte) 0xAF);
+        assertRejected(badValue);
+    }
+
+    private static void assertRejected(ByteBuffer bytes) {
+        assertThrows(IllegalStateException.class, () -> GameSnapshotCodec.read(bytes));
+    }
+
+    private static ByteBuffer withSize(ByteBuffer bytes, int rows, int cols) {
+        bytes.putInt(HEADER - 8, rows);
+        bytes.putInt(HEADER - 4, cols);
+        return bytes;
+    }
+
+    private static ByteBuffer encode(GameState game) {
+        ByteBuffer bytes = ByteBuffer.allocate(GameSnapshotCodec.encodedSize(game));
+        GameSnapshotCodec.write(game, bytes);
+        return bytes.flip();
+    }
+
+    private static GameState newGame(int rows, int cols) {
+        GameState game = new GameState(rows, cols, 7);
+        game.setGameId("g");
+        return game;
+    }
+
+    private static void assertSameValues(Board expected, Board actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getCols(), actual.getCols());
+        for (int cell = 0; cell < expected.getCellCount(); cell++) {
+            assertEquals(expected.getValue(cell), actual.getValue(cell), "cell " + cell);
+        }
+    }
+}
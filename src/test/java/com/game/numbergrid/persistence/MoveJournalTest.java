@@ -0,0 +1,123 @@
+package com.game.numbergrid.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoveJournalTest {
+
+    @TempDir
+    Path dir;
+
+    // Small segments, so records spill over several files (and one record is
+    // larger than a segment)
+    @Test
+    void replaysEveryRecordInOrderAcrossSegments() throws IOException {
+        MoveJournal journal = new MoveJournal(dir, 256);
+        journal.open();
+        List<Integer> sizes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int size = i == 50 ? 1000 : 4 + i % 40;
+            sizes.add(size);
+            append(journal, i, size);
+            if (i % 10 == 0) {
+                journal.force();
+            }
+        }
+        journal.close();
+
+        List<Integer> replayed = replay(new MoveJournal(dir, 256), 0);
+        assertEquals(100, replayed.size() / 2);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, replayed.get(2 * i));
+            assertEquals(sizes.get(i), replayed.get(2 * i + 1));
+        }
+    }
+
+    // A reopened journal appends to a new segment after the existing ones
+    @Test
+    void reopenedJournalKeepsEarlierRecords() throws IOException {
+        MoveJournal first = new MoveJournal(dir, 4096);
+        first.open();
+        append(first, 1, 8);
+        first.close();
+        MoveJournal second = new MoveJournal(dir, 4096);
+        second.open();
+        append(second, 2, 8);
+        second.close();
+
+        assertEquals(List.of(1, 8, 2, 8), replay(new MoveJournal(dir, 4096), 0));
+    }
+
+    // A damaged record ends its segment; later segments still replay
+    @Test
+    void stopsSegmentAtCorruptRecord() throws IOException {
+        MoveJournal journal = new MoveJournal(dir, 4096);
+        journal.open();
+        append(journal, 1, 10);
+        append(journal, 2, 10);
+        append(journal, 3, 10);
+        long next = journal.roll();
+        append(journal, 4, 10);
+        journal.close();
+
+        // Flip a payload byte of the second record (each record is 8 + 10 bytes)
+        try (FileChannel file = FileChannel.open(dir.resolve(String.format("journal-%06d.log", next - 1)),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            file.read(b, 18 + 8 + 5);
+            b.flip();
+            file.write(ByteBuffer.wrap(new byte[] {(byte) (b.get() ^ 0x55)}), 18 + 8 + 5);
+        }
+
+        assertEquals(List.of(1, 10, 4, 10), replay(new MoveJournal(dir, 4096), 0));
+        assertEquals(List.of(4, 10), replay(new MoveJournal(dir, 4096), next));
+    }
+
+    @Test
+    void deletesSegmentsBeforeACheckpoint() throws IOException {
+        MoveJournal journal = new MoveJournal(dir, 4096);
+        journal.open();
+        append(journal, 1, 4);
+        long next = journal.roll();
+        append(journal, 2, 4);
+        journal.deleteSegmentsBefore(next);
+        journal.close();
+
+        assertEquals(List.of(2, 4), replay(new MoveJournal(dir, 4096), 0));
+    }
+
+    // Record i: int i, then size - 4 bytes of (byte) i
+    private static void append(MoveJournal journal, int id, int size) {
+        journal.append(size, out -> {
+            out.putInt(id);
+            for (int i = 4; i < size; i++) {
+                out.put((byte) id);
+            }
+        });
+    }
+
+    // Flat list of (id, payload size) per record
+    private static List<Integer> replay(MoveJournal journal, long first) throws IOException {
+        List<Integer> records = new ArrayList<>();
+        journal.replay(first, payload -> {
+            int size = payload.remaining();
+            int id = payload.getInt();
+            while (payload.hasRemaining()) {
+                assertEquals((byte) id, payload.get());
+            }
+            records.add(id);
+            records.add(size);
+        });
+        return records;
+    }
+}
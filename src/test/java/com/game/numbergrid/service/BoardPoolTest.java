@@ -0,0 +1,40 @@
+package com.game.numbergrid.service;
+
+import com.game.numbergrid.model.GameState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardPoolTest {
+
+    // A pooled board is the board its seed gives, so a reported game can be
+    // rebuilt with /game/start?seed=...
+    @Test
+    void pooledBoardsCanBeRebuiltFromTheirSeed() throws InterruptedException {
+        BoardPool pool = new BoardPool(true, 8, 3);
+        pool.start();
+        try {
+            for (int taken = 0; taken < 20; taken++) {
+                GameState game = pool.poll();
+                for (int wait = 0; game == null && wait < 500; wait++) {
+                    Thread.sleep(10);
+                    game = pool.poll();
+                }
+                assertNotNull(game);
+                GameState rebuilt = new GameState(GameState.DEFAULT_ROWS, GameState.DEFAULT_COLS, game.getSeed());
+                for (int cell = 0; cell < game.getBoard().getCellCount(); cell++) {
+                    assertEquals(rebuilt.getBoard().getValue(cell), game.getBoard().getValue(cell));
+                }
+                assertEquals(0, game.getScore());
+                assertNull(game.getGameId());
+                assertTrue(BoardPool.hasValidMoves(game.getSeed(), 3));
+            }
+        } finally {
+            pool.stop();
+        }
+        assertNull(new BoardPool(false, 8, 0).poll());
+    }
+}
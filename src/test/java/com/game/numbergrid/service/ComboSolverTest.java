@@ -0,0 +1,32 @@
+package com.game.numbergrid.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ComboSolverTest {
+
+    @Test
+    void agreesWithSearchForEverySizeLimit() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int round = 0; round < 20_000; round++) {
+            int[] counts = Combos.randomCounts(random, random.nextInt(0, 30));
+            for (int maxComboSize = 2; maxComboSize <= 10; maxComboSize++) {
+                boolean expected = Combos.smallest(counts, maxComboSize) > 0;
+                assertEquals(expected, ComboSolver.hasValidCombo(counts, maxComboSize),
+                    () -> Arrays.toString(counts));
+            }
+        }
+    }
+
+    @Test
+    void noComboBelowTwoBlocks() {
+        int[] counts = {0, 0, 0, 0, 0, 20, 0, 0, 0, 0};
+        assertFalse(ComboSolver.hasValidCombo(counts, 1));
+        assertFalse(ComboSolver.hasValidCombo(counts, 0));
+    }
+}
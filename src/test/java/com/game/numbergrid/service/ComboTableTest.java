@@ -0,0 +1,94 @@
+package com.game.numbergrid.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ComboTableTest {
+
+    private static final int TABLE_SIZE = 48_620; // C(18, 9)
+
+    // Every count vector with at most 9 blocks gets its own slot in the table
+    @Test
+    void rankIsABijectionOntoTheTable() {
+        boolean[] used = new boolean[TABLE_SIZE];
+        int vectors = forEachTabled(new int[10], 1, 9, counts -> {
+            int rank = ComboTable.rank(counts);
+            assertTrue(rank >= 0 && rank < TABLE_SIZE, () -> Arrays.toString(counts) + " -> " + rank);
+            assertFalse(used[rank], () -> "rank " + rank + " taken twice, again by " + Arrays.toString(counts));
+            used[rank] = true;
+        });
+        assertEquals(TABLE_SIZE, vectors);
+    }
+
+    @Test
+    void tableMatchesSearchForEveryTabledBoard() {
+        forEachTabled(new int[10], 1, 9, counts -> {
+            assertEquals(Combos.sizes(counts), ComboTable.comboSizes(counts), () -> Arrays.toString(counts));
+            for (int maxComboSize = 2; maxComboSize <= 10; maxComboSize++) {
+                int limit = maxComboSize;
+                assertEquals(Combos.smallest(counts, limit) > 0, ComboTable.hasCombo(counts, limit),
+                    () -> "maxComboSize " + limit + ", " + Arrays.toString(counts));
+            }
+        });
+    }
+
+    // Ten or more blocks always hold a combo of at most ten (two of the
+    // prefix sums agree mod 10), which hasCombo answers without a search
+    @Test
+    void pigeonholeHoldsFromTenBlocks() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int round = 0; round < 20_000; round++) {
+            int[] counts = Combos.randomCounts(random, random.nextInt(10, 40));
+            assertTrue(Combos.smallest(counts, 10) > 0, () -> Arrays.toString(counts));
+            for (int maxComboSize = 2; maxComboSize <= 12; maxComboSize++) {
+                int limit = maxComboSize;
+                assertEquals(Combos.smallest(counts, Math.min(limit, 10)) > 0, ComboTable.hasCombo(counts, limit),
+                    () -> "maxComboSize " + limit + ", " + Arrays.toString(counts));
+            }
+        }
+    }
+
+    @Test
+    void smallestComboIsPlayableAndSmallest() {
+        SplittableRandom random = new SplittableRandom(5);
+        int[] combo = new int[10];
+        for (int round = 0; round < 20_000; round++) {
+            int[] counts = Combos.randomCounts(random, random.nextInt(0, 25));
+            int maxComboSize = random.nextInt(2, 13);
+            int size = ComboTable.smallestCombo(counts, maxComboSize, combo);
+            assertEquals(Combos.smallest(counts, Math.min(maxComboSize, 10)), size, () -> Arrays.toString(counts));
+            int blocks = 0;
+            int sum = 0;
+            for (int value = 1; value <= 9; value++) {
+                assertTrue(combo[value] >= 0 && combo[value] <= counts[value], () -> Arrays.toString(combo));
+                blocks += combo[value];
+                sum += combo[value] * value;
+            }
+            assertEquals(size, blocks);
+            assertEquals(0, sum % 10);
+        }
+    }
+
+    // Calls 'check' for every vector extending counts[1..value) with at most
+    // 'left' more blocks; returns how many there were
+    private static int forEachTabled(int[] counts, int value, int left, Consumer<int[]> check) {
+        if (value > 9) {
+            check.accept(counts.clone());
+            return 1;
+        }
+        int vectors = 0;
+        for (int copies = 0; copies <= left; copies++) {
+            counts[value] = copies;
+            vectors += forEachTabled(counts, value + 1, left - copies, check);
+        }
+        counts[value] = 0;
+        return vectors;
+    }
+}
@@ -0,0 +1,65 @@
+package com.game.numbergrid.service;
+
+import java.util.SplittableRandom;
+
+// Reference answers for the combo tests, by plain search over the counts
+final class Combos {
+
+    private Combos() {
+    }
+
+    // Size of the smallest combo of 2..maxComboSize blocks summing to a
+    // multiple of 10, or 0 if there is none
+    static int smallest(int[] valueCounts, int maxComboSize) {
+        for (int size = 2; size <= maxComboSize; size++) {
+            if (exists(valueCounts, 1, size, 0)) {
+                return size;
+            }
+        }
+        return 0;
+    }
+
+    // Bit k set when some k blocks (2 <= k <= 9) sum to a multiple of 10
+    static int sizes(int[] valueCounts) {
+        int sizes = 0;
+        for (int size = 2; size <= 9; size++) {
+            if (exists(valueCounts, 1, size, 0)) {
+                sizes |= 1 << size;
+            }
+        }
+        return sizes;
+    }
+
+    private static boolean exists(int[] valueCounts, int value, int left, int sum) {
+        if (left == 0) {
+            return sum % 10 == 0;
+        }
+        if (value > 9) {
+            return false;
+        }
+        for (int take = 0; take <= Math.min(valueCounts[value], left); take++) {
+            if (exists(valueCounts, value + 1, left - take, sum + take * value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Counts per value for about 'live' blocks. Half the time the blocks come
+    // from one or two values only, which is where boards run out of combos.
+    static int[] randomCounts(SplittableRandom random, int live) {
+        int[] counts = new int[10];
+        if (random.nextBoolean()) {
+            int first = random.nextInt(1, 10);
+            int second = random.nextInt(1, 10);
+            for (int i = 0; i < live; i++) {
+                counts[random.nextBoolean() ? first : second]++;
+            }
+        } else {
+            for (int i = 0; i < live; i++) {
+                counts[random.nextInt(1, 10)]++;
+            }
+        }
+        return counts;
+    }
+}
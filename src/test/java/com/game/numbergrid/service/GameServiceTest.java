@@ -0,0 +1,160 @@
+package com.game.numbergrid.service;
+
+import com.game.numbergrid.model.Board;
+import com.game.numbergrid.model.GameState;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameServiceTest {
+
+    private final GameService gameService = new GameService();
+
+    // The count-based check must give the same answer as the recursive scan
+    // of the board it replaced, for every size limit
+    @Test
+    void gameOverMatchesBoardScan() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int round = 0; round < 3_000; round++) {
+            int maxComboSize = random.nextInt(2, 11);
+            // The scan is exponential in the combo size; keep big-limit boards small
+            int live = random.nextInt(0, maxComboSize <= 5 ? 30 : 16);
+            GameState game = randomGame(random, live);
+            gameService.setMaxComboSize(maxComboSize);
+            assertEquals(gameService.isGameCompleteByScan(game.getBoard()), gameService.isGameComplete(game),
+                () -> "maxComboSize " + maxComboSize + ", counts " + Arrays.toString(game.getValueCounts()));
+        }
+    }
+
+    // 3 + 4 + 3 would be a combo if the 3 counted twice
+    @Test
+    void blockListedTwiceIsRejected() {
+        GameState game = fixedGame();
+        gameService.selectCells(game, new int[] {0, 1, 0}, 3);
+        assertEquals(List.of("Block at (0,0) is selected twice!"), game.getMessages());
+        assertUntouched(game);
+
+        gameService.selectBlocks(game, List.of(new int[] {1, 2}, new int[] {1, 2}));
+        assertEquals(List.of("Block at (1,2) is selected twice!"), game.getMessages());
+        assertUntouched(game);
+    }
+
+    @Test
+    void positionsOffTheBoardAreRejected() {
+        GameState game = fixedGame();
+        gameService.selectBlock(game, -1, 0);
+        assertEquals(List.of("Invalid position at (-1,0)!"), game.getMessages());
+        gameService.selectBlock(game, 0, 4);
+        assertEquals(List.of("Invalid position at (0,4)!"), game.getMessages());
+        gameService.selectBlock(game, 3, 0);
+        assertEquals(List.of("Invalid position at (3,0)!"), game.getMessages());
+        gameService.selectCells(game, new int[] {12}, 1);
+        assertEquals(List.of("Invalid cell 12!"), game.getMessages());
+        gameService.selectCells(game, new int[] {-3}, 1);
+        assertEquals(List.of("Invalid cell -3!"), game.getMessages());
+        assertUntouched(game);
+    }
+
+    // One bad block rejects the whole selection, wherever it is in the list,
+    // even when the good blocks alone would make a combo
+    @Test
+    void mixedSelectionIsRejectedAsAWhole() {
+        GameState game = fixedGame();
+        gameService.selectBlocks(game, List.of(new int[] {0, 0}, new int[] {0, 1}, new int[] {0, 2}, new int[] {5, 5}));
+        assertEquals(List.of("Invalid position at (5,5)!"), game.getMessages());
+        assertUntouched(game);
+
+        gameService.selectCells(game, new int[] {0, 1, 99, 2}, 4);
+        assertEquals(List.of("Invalid cell 99!"), game.getMessages());
+        assertUntouched(game);
+
+        game.getBoard().clear(11);
+        gameService.selectCells(game, new int[] {0, 11, 1, 2}, 4);
+        assertEquals(List.of("Cannot select empty block at (2,3)!"), game.getMessages());
+        assertEquals(0, game.getScore());
+        for (int cell = 0; cell < 11; cell++) {
+            assertFalse(game.getBoard().isEmpty(cell));
+            assertTrue(game.getBoard().mark(cell), "cell " + cell + " left marked");
+            game.getBoard().unmark(cell);
+        }
+
+        // The same blocks without the bad one are a combo
+        gameService.selectCells(game, new int[] {0, 1, 2}, 3);
+        assertEquals(90, game.getScore());
+    }
+
+    // Moves record a message kind and numbers; the text is built on first read
+    @Test
+    void moveMessagesAreFormattedWhenRead() {
+        GameState game = fixedGame();
+        gameService.selectCells(game, new int[] {0, 1, 2}, 3);
+        assertEquals(List.of(), ReflectionTestUtils.getField(game, "messages"));
+        assertEquals(1, ReflectionTestUtils.getField(game, "pendingCount"));
+        assertEquals(List.of("Perfect combo! 3 blocks sum to 10. +90 points!"), game.getMessages());
+        assertEquals(0, ReflectionTestUtils.getField(game, "pendingCount"));
+        assertEquals(1, game.getMessages().size());
+
+        // Text messages keep their place after pending ones
+        gameService.selectCells(game, new int[] {4}, 1);
+        game.addMessage("hint");
+        assertEquals(List.of("Selected: 5", "hint"), game.getMessages());
+
+        // A new move drops what was never read
+        gameService.selectCells(game, new int[] {4}, 1);
+        gameService.selectCells(game, new int[] {4, 5}, 2);
+        assertEquals(List.of("Sum is 11, not a multiple of 10! Try again."), game.getMessages());
+    }
+
+    // 3x4 board:
+    //   3 4 3 1
+    //   5 6 7 8
+    //   9 1 2 3
+    private static GameState fixedGame() {
+        int[] values = {3, 4, 3, 1, 5, 6, 7, 8, 9, 1, 2, 3};
+        Board board = new Board(3, 4);
+        for (int cell = 0; cell < values.length; cell++) {
+            board.setValue(cell, values[cell]);
+        }
+        return new GameState(board, 0);
+    }
+
+    // Nothing cleared, selected, scored or left marked
+    private static void assertUntouched(GameState game) {
+        Board board = game.getBoard();
+        assertEquals(0, game.getScore());
+        for (int cell = 0; cell < board.getCellCount(); cell++) {
+            assertFalse(board.isSelected(cell));
+            if (!board.isEmpty(cell)) {
+                assertTrue(board.mark(cell), "cell " + cell + " left marked");
+                board.unmark(cell);
+            }
+        }
+        assertEquals(12, board.getLiveCount());
+    }
+
+    // Blocks scattered over a board with empty cells between them
+    private static GameState randomGame(SplittableRandom random, int live) {
+        int[] counts = Combos.randomCounts(random, live);
+        Board board = new Board(5, 8);
+        int cell = 0;
+        for (int value = 1; value <= 9; value++) {
+            for (int copy = 0; copy < counts[value]; copy++) {
+                board.setValue(cell++, value);
+            }
+        }
+        for (int i = cell - 1; i > 0; i--) {
+            int other = random.nextInt(board.getCellCount());
+            int value = board.getValue(i);
+            board.setValue(i, board.getValue(other));
+            board.setValue(other, value);
+        }
+        return new GameState(board, 0);
+    }
+}
@@ -0,0 +1,118 @@
+package com.game.numbergrid.service;
+
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.persistence.GamePersistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSessionStoreTest {
+
+    private final GameSessionStore store = new GameSessionStore(200, Duration.ofMinutes(30), 2, Duration.ZERO);
+
+    @AfterEach
+    void stop() {
+        store.stop();
+    }
+
+    // A full store evicts games nobody has used lately, wherever they sit in the map
+    @Test
+    void evictsLeastRecentlyUsedGames() throws InterruptedException {
+        List<String> idle = new ArrayList<>();
+        List<String> active = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            GameState game = newGame(i);
+            store.put(game);
+            (i % 2 == 0 ? idle : active).add(game.getGameId());
+        }
+        Thread.sleep(5);
+        for (String gameId : active) {
+            store.withGame(gameId, game -> null);
+        }
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            GameState game = newGame(1000 + i);
+            store.put(game);
+            added.add(game.getGameId());
+        }
+
+        assertEquals(200, store.size());
+        long idleLeft = idle.stream().filter(store.gameIds()::contains).count();
+        long othersLeft = active.stream().filter(store.gameIds()::contains).count()
+            + added.stream().filter(store.gameIds()::contains).count();
+        // Each victim is the oldest of 8 random games; a recent one only goes when all 8 are recent
+        assertTrue(idleLeft <= 100 - 45, "idle games left: " + idleLeft);
+        assertEquals(200 - idleLeft, othersLeft);
+    }
+
+    @Test
+    void actionsRunInOrderAfterAFailure() {
+        GameState game = newGame(1);
+        store.put(game);
+        List<Integer> order = new ArrayList<>();
+        store.submit(game.getGameId(), g -> {
+            throw new IllegalStateException("boom");
+        });
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            store.submit(game.getGameId(), g -> order.add(n));
+        }
+        store.withGame(game.getGameId(), g -> null);
+        assertEquals(100, order.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    // Removed, idle and size-evicted games are journaled as gone, so a
+    // restart brings back exactly the games the store still held
+    @Test
+    void recoveryMatchesWhatTheStoreHeld(@TempDir Path dir) throws InterruptedException {
+        GamePersistence persistence = new GamePersistence(true, dir.toString(), 1 << 16, 10);
+        persistence.start();
+        GameSessionStore small = new GameSessionStore(3, Duration.ofMillis(50), 1, Duration.ZERO);
+        ReflectionTestUtils.setField(small, "persistence", persistence);
+        small.put(newGame(1));
+        small.put(newGame(2));
+        small.remove("game-1");
+        Thread.sleep(60);
+        small.put(newGame(3));
+        small.put(newGame(4));
+        small.evictIdle(); // game-2
+        small.put(newGame(5));
+        small.put(newGame(6)); // one over the limit
+        small.put(newGame(3)); // restarted, not ended
+        Set<String> held = new HashSet<>(small.gameIds());
+        assertEquals(3, held.size());
+        assertTrue(!held.contains("game-1") && !held.contains("game-2"));
+        small.stop();
+        ExecutorService actors = (ExecutorService) ReflectionTestUtils.getField(small, "actors");
+        assertTrue(actors.awaitTermination(5, TimeUnit.SECONDS));
+        persistence.stop();
+
+        Set<String> recovered = new HashSet<>();
+        for (GameState game : new GamePersistence(true, dir.toString(), 1 << 16, 10).recover()) {
+            recovered.add(game.getGameId());
+        }
+        assertEquals(held, recovered);
+    }
+
+    private static GameState newGame(long seed) {
+        GameState game = new GameState(4, 5, seed);
+        game.setGameId("game-" + seed);
+        return game;
+    }
+}
@@ -0,0 +1,113 @@
+package com.game.numbergrid.service;
+
+import com.game.numbergrid.model.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HibernatedGamesTest {
+
+    // A 10x20 game with a UUID encodes to 167 bytes: a 192-byte slot, five to a 1 KB slab
+    private static final int SLAB = 1024;
+
+    @Test
+    void storedGamesReadBackUntilFreed() {
+        HibernatedGames hibernated = new HibernatedGames(SLAB, 4 * SLAB);
+        List<GameState> games = new ArrayList<>();
+        List<Long> handles = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            GameState game = game(i);
+            games.add(game);
+            handles.add(hibernated.store(game));
+        }
+        assertEquals(12, new HashSet<>(handles).size());
+        assertEquals(12, hibernated.count());
+        assertEquals(3 * SLAB, hibernated.slabBytes());
+        assertEquals(12 * 192, hibernated.slotBytes());
+        // Neighbouring slots do not overwrite each other
+        for (int i = 0; i < games.size(); i++) {
+            assertSame(games.get(i), hibernated.read(handles.get(i)));
+        }
+
+        hibernated.free(handles.get(3));
+        hibernated.free(handles.get(7));
+        assertEquals(10, hibernated.count());
+        assertEquals(10 * 192, hibernated.slotBytes());
+        assertSame(games.get(8), hibernated.read(handles.get(8)));
+    }
+
+    @Test
+    void freedSlotsAreReused() {
+        HibernatedGames hibernated = new HibernatedGames(SLAB, 4 * SLAB);
+        long first = hibernated.store(game(1));
+        long second = hibernated.store(game(2));
+        hibernated.free(first);
+        GameState next = game(3);
+        long reused = hibernated.store(next);
+        assertEquals(first, reused);
+        assertSame(next, hibernated.read(reused));
+        assertSame(game(2), hibernated.read(second));
+        assertEquals(SLAB, hibernated.slabBytes());
+    }
+
+    @Test
+    void fullSlabsAndLargeGamesStayOnTheHeap() {
+        HibernatedGames hibernated = new HibernatedGames(SLAB, 2 * SLAB);
+        Set<Long> handles = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            long handle = hibernated.store(game(i));
+            assertNotEquals(HibernatedGames.NONE, handle);
+            handles.add(handle);
+        }
+        // Two slabs of five slots each are the limit
+        assertEquals(HibernatedGames.NONE, hibernated.store(game(10)));
+        assertEquals(10, hibernated.count());
+        assertEquals(2 * SLAB, hibernated.slabBytes());
+
+        // Freeing one makes room again, without a new slab
+        long freed = handles.iterator().next();
+        hibernated.free(freed);
+        assertEquals(freed, hibernated.store(game(11)));
+
+        // Larger than a slab, or than the biggest size class
+        assertEquals(HibernatedGames.NONE, hibernated.store(sized(40, 40)));
+        HibernatedGames roomy = new HibernatedGames(1 << 20, 1 << 22);
+        assertEquals(HibernatedGames.NONE, roomy.store(sized(200, 200)));
+        assertTrue(roomy.store(sized(100, 100)) != HibernatedGames.NONE);
+    }
+
+    private static void assertSame(GameState expected, GameState actual) {
+        assertEquals(expected.getGameId(), actual.getGameId());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+        assertEquals(expected.getBoard().getRows(), actual.getBoard().getRows());
+        assertEquals(expected.getBoard().getCols(), actual.getBoard().getCols());
+        for (int cell = 0; cell < expected.getBoard().getCellCount(); cell++) {
+            assertEquals(expected.getBoard().getValue(cell), actual.getBoard().getValue(cell));
+        }
+    }
+
+    private static GameState game(int i) {
+        GameState game = new GameState(GameState.DEFAULT_ROWS, GameState.DEFAULT_COLS, i);
+        game.setGameId(UUID.nameUUIDFromBytes(new byte[] {(byte) i}).toString());
+        game.setScore(i * 10L);
+        game.clearCell(i % 200);
+        game.setGameOver(i % 2 == 0);
+        return game;
+    }
+
+    private static GameState sized(int rows, int cols) {
+        GameState game = new GameState(rows, cols, 1);
+        game.setGameId(UUID.randomUUID().toString());
+        return game;
+    }
+}
@@ -0,0 +1,161 @@
+package com.game.numbergrid.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreSolverTest {
+
+    private static final long BUDGET = TimeUnit.SECONDS.toNanos(30);
+
+    // Both modes against trying every sequence of combos on small boards
+    @Test
+    void plansScoreTheExhaustiveOptimum() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int round = 0; round < 300; round++) {
+            int[] counts = Combos.randomCounts(random, random.nextInt(0, 13));
+            int maxCombo = random.nextInt(2, 6);
+
+            ScoreSolver.Plan unlimited = ScoreSolver.solve(counts, 0, BUDGET);
+            assertEquals(best(counts, Integer.MAX_VALUE, new HashMap<>()), unlimited.getPoints(),
+                () -> Arrays.toString(counts));
+            assertPlays(counts, unlimited, Integer.MAX_VALUE);
+
+            ScoreSolver.Plan limited = ScoreSolver.solve(counts, maxCombo, BUDGET);
+            assertTrue(limited.isExact());
+            assertEquals(best(counts, maxCombo, new HashMap<>()), limited.getPoints(),
+                () -> Arrays.toString(counts) + " maxCombo " + maxCombo);
+            assertPlays(counts, limited, maxCombo);
+        }
+    }
+
+    // The search stops once no combo within the game's own limit is left,
+    // even if larger combos would still fit the plan's limit
+    @Test
+    void playStopsAtTheGamesComboLimit() {
+        int[] triple = {0, 1, 1, 0, 0, 0, 0, 1, 0, 0}; // 1+2+7 is the only combo
+        assertEquals(0, ScoreSolver.solve(triple, 5, 2, BUDGET).getPoints());
+        assertEquals(90, ScoreSolver.solve(triple, 5, 3, BUDGET).getPoints());
+        int[] pairs = {0, 2, 0, 0, 0, 0, 0, 0, 0, 2}; // 1+9 twice, or 1+1+9+9
+        assertEquals(80, ScoreSolver.solve(pairs, 2, 2, BUDGET).getPoints());
+        assertEquals(160, ScoreSolver.solve(pairs, 4, 10, BUDGET).getPoints());
+    }
+
+    @Test
+    void planIsMarkedIncompleteWhenTheBudgetRunsOut() {
+        SplittableRandom random = new SplittableRandom(8);
+        int[] counts = new int[10];
+        for (int i = 0; i < 200; i++) {
+            counts[random.nextInt(1, 10)]++;
+        }
+        ScoreSolver.Plan plan = ScoreSolver.solve(counts, 4, 1);
+        assertFalse(plan.isExact());
+        assertPlays(counts, plan, 4);
+        assertTrue(ScoreSolver.solve(counts, 0, 1).isExact());
+    }
+
+    // On its pool the first moves run in parallel, with the same answer
+    @Test
+    void poolSearchesInParallelAndTurnsAwayPastItsCapacity() throws Exception {
+        SolverPool pool = new SolverPool(2, 2);
+        try {
+            int[] counts = {0, 3, 2, 2, 1, 2, 2, 1, 2, 3};
+            long expected = ScoreSolver.solve(counts, 4, BUDGET).getPoints();
+            assertEquals(expected, pool.submit(() -> ScoreSolver.solve(counts, 4, BUDGET)).get().getPoints());
+
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Boolean> first = pool.submit(() -> await(release));
+            CompletableFuture<Boolean> second = pool.submit(() -> await(release));
+            assertNotNull(first);
+            assertNotNull(second);
+            assertNull(pool.submit(() -> true));
+            release.countDown();
+            assertTrue(first.get(5, TimeUnit.SECONDS) && second.get(5, TimeUnit.SECONDS));
+            CompletableFuture<Boolean> later = null;
+            for (int tries = 0; tries < 100 && later == null; tries++) {
+                later = pool.submit(() -> true); // the slots free just after the results
+                Thread.sleep(10);
+            }
+            assertTrue(later.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.stop();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Each move is on the board, sums to a multiple of 10 and keeps to the
+    // limit, the points add up, and nothing within the limit is left
+    private static void assertPlays(int[] counts, ScoreSolver.Plan plan, int maxCombo) {
+        int[] left = counts.clone();
+        long points = 0;
+        for (int[] move : plan.getMoves()) {
+            int size = 0;
+            int sum = 0;
+            for (int value = 1; value <= 9; value++) {
+                left[value] -= move[value];
+                assertTrue(left[value] >= 0, Arrays.toString(counts));
+                size += move[value];
+                sum += value * move[value];
+            }
+            assertTrue(size >= 2 && size <= maxCombo && sum % 10 == 0, Arrays.toString(move));
+            points += 10L * size * size;
+        }
+        assertEquals(points, plan.getPoints());
+        if (plan.isExact()) {
+            assertEquals(0, Combos.smallest(left, Math.min(maxCombo, 12)), Arrays.toString(counts));
+        }
+    }
+
+    // Best total over every sequence of combos of 2..maxCombo blocks
+    private static long best(int[] counts, int maxCombo, Map<String, Long> memo) {
+        String key = Arrays.toString(counts);
+        Long known = memo.get(key);
+        if (known != null) {
+            return known;
+        }
+        long best = bestMove(counts, new int[10], 1, 0, 0, maxCombo, memo);
+        memo.put(key, best);
+        return best;
+    }
+
+    // Tries every sub-multiset of counts[value..] added to 'move'
+    private static long bestMove(int[] counts, int[] move, int value, int size, int sum, int maxCombo,
+            Map<String, Long> memo) {
+        if (value > 9) {
+            if (size < 2 || size > maxCombo || sum % 10 != 0) {
+                return 0;
+            }
+            int[] rest = counts.clone();
+            for (int v = 1; v <= 9; v++) {
+                rest[v] -= move[v];
+            }
+            return 10L * size * size + best(rest, maxCombo, memo);
+        }
+        long best = 0;
+        for (int take = 0; take <= counts[value] && size + take <= maxCombo; take++) {
+            move[value] = take;
+            best = Math.max(best, bestMove(counts, move, value + 1, size + take, sum + take * value, maxCombo, memo));
+        }
+        move[value] = 0;
+        return best;
+    }
+}
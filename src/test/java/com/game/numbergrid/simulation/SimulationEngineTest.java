@@ -0,0 +1,115 @@
+package com.game.numbergrid.simulation;
+
+import com.game.numbergrid.model.GameState;
+import com.game.numbergrid.service.GameService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationEngineTest {
+
+    // Seeds fix the games, so how they are spread over threads cannot
+    // change the totals
+    @Test
+    void seededRunIsTheSameOnAnyNumberOfThreads() throws InterruptedException {
+        SimulationStats single = run(1);
+        assertEquals(3000, single.getGames());
+        assertEquals(single.getGames(), single.getDeadBoards() + single.getGameOvers() + single.getStuck());
+        for (int threads : new int[] {2, 5}) {
+            SimulationStats parallel = run(threads);
+            assertEquals(single.getGames(), parallel.getGames());
+            assertEquals(single.getDeadBoards(), parallel.getDeadBoards());
+            assertEquals(single.getGameOvers(), parallel.getGameOvers());
+            assertEquals(single.getStuck(), parallel.getStuck());
+            assertEquals(single.getTotalMoves(), parallel.getTotalMoves());
+            assertEquals(single.getMeanScore(), parallel.getMeanScore());
+            assertEquals(single.getMinScore(), parallel.getMinScore());
+            assertEquals(single.getMaxScore(), parallel.getMaxScore());
+            for (double fraction : new double[] {0.1, 0.5, 0.9, 0.99}) {
+                assertEquals(single.getScorePercentile(fraction), parallel.getScorePercentile(fraction));
+                assertEquals(single.getMovesPercentile(fraction), parallel.getMovesPercentile(fraction));
+            }
+        }
+    }
+
+    // A strategy that throws stops every thread and fails the run with its error
+    @Test
+    void failingStrategyFailsTheRun() {
+        RuntimeException broken = new IllegalStateException("broken strategy");
+        AtomicLong played = new AtomicLong();
+        Strategy failing = (game, service) -> {
+            if (game.getSeed() == 1500) {
+                throw broken;
+            }
+            played.incrementAndGet();
+            return BuiltInStrategy.FIRST.move(game, service);
+        };
+        SimulationConfig config = new SimulationConfig(failing, 0, 1_000_000);
+        config.setSize(4, 5);
+        config.setThreads(3);
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+            () -> new SimulationEngine().run(config, null));
+        assertSame(broken, failure.getCause());
+        assertTrue(played.get() < 200_000, "the other threads kept playing: " + played.get());
+
+        SimulationConfig tooSmall = new SimulationConfig(BuiltInStrategy.FIRST, 0, 10);
+        tooSmall.setSize(1, 1);
+        assertThrows(IllegalArgumentException.class, () -> new SimulationEngine().run(tooSmall, null));
+    }
+
+    @Test
+    void histogramBucketsBoundTheirValues() {
+        Random random = new Random(6);
+        for (int i = 0; i < 200_000; i++) {
+            long value = i < 5000 ? i : random.nextLong() >>> (1 + random.nextInt(63));
+            int bucket = ValueHistogram.bucketOf(value);
+            long upper = ValueHistogram.upperBoundOf(bucket);
+            assertTrue(value <= upper, "value " + value);
+            if (bucket > 0) {
+                assertTrue(value > ValueHistogram.upperBoundOf(bucket - 1), "value " + value);
+            }
+            // Exact below 8, then within 12.5%
+            assertTrue(value < 8 ? upper == value : upper - value <= value / 8, "value " + value);
+            assertEquals(bucket, ValueHistogram.bucketOf(upper));
+        }
+        assertEquals(Long.MAX_VALUE, ValueHistogram.upperBoundOf(ValueHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    // Each percentile is at or above the exact one and within a bucket of it
+    @Test
+    void percentilesStayWithinABucket() {
+        Random random = new Random(12);
+        ValueHistogram histogram = new ValueHistogram();
+        ValueHistogram other = new ValueHistogram();
+        long[] values = new long[20_001];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 14);
+            (i % 2 == 0 ? histogram : other).record(values[i]);
+        }
+        histogram.add(other);
+        assertEquals(values.length, histogram.getTotal());
+        Arrays.sort(values);
+        for (double fraction : new double[] {0, 0.001, 0.25, 0.5, 0.9, 0.99, 0.999, 1}) {
+            long exact = values[(int) Math.max(0, Math.ceil(fraction * values.length) - 1)];
+            long estimate = histogram.percentile(fraction);
+            assertTrue(estimate >= exact && estimate - exact <= exact / 8, fraction + ": " + exact
+                + " vs " + estimate);
+        }
+        histogram.clear();
+        assertEquals(0, histogram.percentile(0.5));
+    }
+
+    private static SimulationStats run(int threads) throws InterruptedException {
+        SimulationConfig config = new SimulationConfig(BuiltInStrategy.NEAREST, 42, 3000);
+        config.setSize(6, 8);
+        config.setThreads(threads);
+        return new SimulationEngine(new GameService()).run(config, null);
+    }
+}